@@ -0,0 +1,27 @@
+package annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Met en cache la réponse rendue d'une méthode GET (statut, en-têtes et corps)
+ * Tant que l'entrée est valide, les requêtes suivantes sont servies sans lier les
+ * paramètres, sans appeler la méthode et sans rendre la vue.
+ *
+ * La clé est le chemin (donc les variables de chemin) plus les paramètres nommés
+ * dans key() ; les autres paramètres de la requête sont ignorés.
+ * Une réponse qui pose un cookie, redirige ou n'a pas le statut 200 n'est pas mise en cache.
+ *
+ * La session ne fait pas partie de la clé : une même entrée est servie à tous les utilisateurs.
+ * La méthode ne peut donc pas recevoir de @SessionParam, ni HttpServletRequest ou
+ * HttpServletResponse (refusé à la compilation du plan). Une réponse dont le rendu a lu la
+ * session (RequestSession, ou attribut de HttpSession lu par la JSP) n'est pas mise en cache.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Cacheable {
+    long ttl() default 60;     // Durée de validité, en secondes
+    String[] key() default {}; // Paramètres de requête qui font partie de la clé
+}
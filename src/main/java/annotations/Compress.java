@@ -0,0 +1,17 @@
+package annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Niveau de compression gzip / deflate propre à une méthode de contrôleur
+ * 1 (rapide) à 9 (plus compact) ; 0 désactive la compression pour cette route.
+ * Sans l'annotation, le niveau global (compression.level) s'applique.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Compress {
+    int level(); // Niveau de compression (0 à 9)
+}
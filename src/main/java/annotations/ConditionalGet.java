@@ -0,0 +1,22 @@
+package annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Déclare une clé de version peu coûteuse pour une méthode GET
+ *
+ * value() est le nom d'une méthode du même contrôleur, sans paramètre ou recevant
+ * la Map des variables de chemin. Elle est appelée avant la méthode mappée :
+ * - si elle renvoie un long, une Date ou un Instant, c'est la date de dernière
+ *   modification (Last-Modified / If-Modified-Since)
+ * - sinon sa valeur (toString) sert de version pour l'ETag (If-None-Match)
+ * Si la ressource n'a pas changé, un 304 est renvoyé sans appeler la méthode mappée.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface ConditionalGet {
+    String value(); // Nom de la méthode qui donne la version
+}
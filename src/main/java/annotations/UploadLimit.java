@@ -0,0 +1,19 @@
+package annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Limites d'upload propres à une méthode de contrôleur
+ * Une valeur négative reprend la limite globale (upload.maxFileSize / upload.maxRequestSize)
+ * Avec multipart.parser=container, le plafond du conteneur (UploadLimits.CONTAINER_MAX_FILE_SIZE
+ * / CONTAINER_MAX_REQUEST_SIZE) l'emporte sur des valeurs plus grandes.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface UploadLimit {
+    long maxFileSize() default -1;     // Taille maximale d'un fichier, en octets
+    long maxRequestSize() default -1;  // Taille maximale du corps de la requête, en octets
+}
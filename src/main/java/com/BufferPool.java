@@ -0,0 +1,85 @@
+package com;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Pool de tableaux d'octets par classes de taille (2 Ko, 8 Ko, 32 Ko, 128 Ko)
+ *
+ * Chaque thread garde un tableau de chacune des petites classes (2 Ko et 8 Ko) sous
+ * la main : en régime établi, une requête reprend le tableau libéré par la précédente
+ * sans synchronisation, pour 10 Ko par thread au plus.
+ * Les grandes classes, plus rares, ne passent que par le pool partagé borné : un
+ * tableau de chaque par thread coûterait 160 Ko de plus sur chaque thread du conteneur.
+ * Les tableaux plus grands que la dernière classe ne sont pas gardés.
+ */
+public class BufferPool {
+
+    private static final int[] SIZES = { 2 * 1024, 8 * 1024, 32 * 1024, 128 * 1024 };
+
+    // Classes gardées par thread (les premières de SIZES)
+    private static final int LOCAL_CLASSES = 2;
+
+    // Tableaux inactifs gardés dans le pool partagé, par classe
+    private static final int SHARED_CAPACITY = 64;
+
+    private static final List<ArrayBlockingQueue<byte[]>> SHARED = new ArrayList<>(SIZES.length);
+    static {
+        for (int i = 0; i < SIZES.length; i++) {
+            SHARED.add(new ArrayBlockingQueue<>(SHARED_CAPACITY));
+        }
+    }
+
+    private static final ThreadLocal<byte[][]> LOCAL = ThreadLocal.withInitial(() -> new byte[LOCAL_CLASSES][]);
+
+    /**
+     * Donne un tableau d'au moins minSize octets (contenu indéterminé)
+     */
+    public static byte[] acquire(int minSize) {
+        int sizeClass = sizeClass(minSize);
+        if (sizeClass < 0) {
+            return new byte[minSize];
+        }
+        if (sizeClass < LOCAL_CLASSES) {
+            byte[][] local = LOCAL.get();
+            byte[] buffer = local[sizeClass];
+            if (buffer != null) {
+                local[sizeClass] = null;
+                return buffer;
+            }
+        }
+        byte[] buffer = SHARED.get(sizeClass).poll();
+        return buffer != null ? buffer : new byte[SIZES[sizeClass]];
+    }
+
+    /**
+     * Rend un tableau obtenu par acquire()
+     */
+    public static void release(byte[] buffer) {
+        int sizeClass = exactSizeClass(buffer.length);
+        if (sizeClass < 0) return;
+        if (sizeClass < LOCAL_CLASSES) {
+            byte[][] local = LOCAL.get();
+            if (local[sizeClass] == null) {
+                local[sizeClass] = buffer;
+                return;
+            }
+        }
+        SHARED.get(sizeClass).offer(buffer);
+    }
+
+    private static int sizeClass(int minSize) {
+        for (int i = 0; i < SIZES.length; i++) {
+            if (minSize <= SIZES[i]) return i;
+        }
+        return -1;
+    }
+
+    private static int exactSizeClass(int length) {
+        for (int i = 0; i < SIZES.length; i++) {
+            if (length == SIZES[i]) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,462 @@
+package com;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Réponse qui garde le corps en mémoire pour pouvoir le mettre en cache
+ *
+ * Le statut et les en-têtes passent directement à la réponse d'origine et sont
+ * notés au passage ; seul le corps est retenu, puis recopié par commit().
+ * Un cookie, une redirection ou une erreur rend la réponse non cachable.
+ *
+ * Le corps est retenu dans un PooledByteOutput (tableau du BufferPool, texte UTF-8
+ * encodé directement dedans) ; release() rend le tableau en fin de requête.
+ * commit() en tire l'ETag et répond 304 si le client a déjà cette version.
+ *
+ * La rétention est bornée (response.bufferMaxSize) : au-delà, ou dès que le contrôleur
+ * appelle flushBuffer(), le corps déjà écrit part vers le client et la suite est envoyée au fil de l'eau, compressée en flux si
+ * la compression s'applique, sans ETag, sans Content-Length et sans mise en cache.
+ */
+class CapturingResponse extends HttpServletResponseWrapper {
+
+    // Taille maximale du corps retenu, en octets (au-delà : envoi au fil de l'eau)
+    private static volatile int maxBufferedSize = 1024 * 1024;
+
+    // En envoi au fil de l'eau, le corps est vidé vers le client par blocs de cette taille
+    private static final int STREAM_CHUNK = 8 * 1024;
+
+    private final HttpServletRequest request;
+    private final PooledByteOutput body = new PooledByteOutput();
+    // Destination du corps une fois la limite dépassée (null tant qu'il est retenu)
+    private OutputStream passThrough;
+    private ResponseCompression.CompressingStream compressor;
+    private String etag;
+    private int compressionLevel = -1;
+    private final Map<String, List<String>> headers = new LinkedHashMap<>();
+    private int status = SC_OK;
+    private boolean cacheable = true;
+
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    CapturingResponse(HttpServletRequest request, HttpServletResponse response) {
+        super(response);
+        this.request = request;
+    }
+
+    /**
+     * Fixe la taille maximale d'un corps retenu en mémoire (et donc doté d'un ETag calculé)
+     */
+    static void setMaxBufferedSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("response.bufferMaxSize doit être positif: " + size);
+        }
+        maxBufferedSize = size;
+    }
+
+    // =====================================================
+    // Statut et en-têtes : transmis et notés
+    // =====================================================
+
+    @Override
+    public void setStatus(int sc) {
+        super.setStatus(sc);
+        status = sc;
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        cacheable = false;
+        flushCaptured();
+        super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+        cacheable = false;
+        flushCaptured();
+        super.sendError(sc);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        cacheable = false;
+        flushCaptured();
+        super.sendRedirect(location);
+    }
+
+    /**
+     * Redirection écrite directement sur la réponse d'origine (voir RedirectTarget)
+     * Comme sendRedirect : non cachable, corps retenu abandonné, réponse envoyée.
+     */
+    void redirect(int sc, String location) throws IOException {
+        cacheable = false;
+        flushCaptured();
+        status = sc;
+        HttpServletResponse response = (HttpServletResponse) getResponse();
+        response.setStatus(sc);
+        response.setHeader("Location", location);
+        response.setContentLength(0);
+        response.flushBuffer();
+    }
+
+    @Override
+    public void addCookie(Cookie cookie) {
+        cacheable = false;
+        super.addCookie(cookie);
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        super.setHeader(name, value);
+        recordHeader(name, value, false);
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        super.addHeader(name, value);
+        recordHeader(name, value, true);
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        super.setIntHeader(name, value);
+        recordHeader(name, String.valueOf(value), false);
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        super.addIntHeader(name, value);
+        recordHeader(name, String.valueOf(value), true);
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+        // La date serait figée dans l'entrée du cache
+        cacheable = false;
+        super.setDateHeader(name, date);
+    }
+
+    @Override
+    public void addDateHeader(String name, long date) {
+        cacheable = false;
+        super.addDateHeader(name, date);
+    }
+
+    private void recordHeader(String name, String value, boolean add) {
+        if ("Set-Cookie".equalsIgnoreCase(name)) {
+            cacheable = false;
+        }
+        if (add) {
+            headers.computeIfAbsent(name, k -> new ArrayList<>()).add(value);
+        } else {
+            List<String> values = new ArrayList<>();
+            values.add(value);
+            headers.put(name, values);
+        }
+    }
+
+    // =====================================================
+    // Corps : retenu en mémoire
+    // =====================================================
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if (writer != null) {
+            throw new IllegalStateException("getWriter() a déjà été appelé");
+        }
+        if (outputStream == null) {
+            outputStream = new ServletOutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    body.write(b);
+                    afterWrite();
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    if (passThrough == null && body.size() + len > maxBufferedSize) {
+                        startPassThrough();
+                    }
+                    if (passThrough != null && len >= STREAM_CHUNK) {
+                        // Gros bloc : envoyé sans passer par le tampon
+                        drain();
+                        passThrough.write(b, off, len);
+                        return;
+                    }
+                    body.write(b, off, len);
+                    afterWrite();
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener listener) {
+                    throw new UnsupportedOperationException("Écriture non bloquante non supportée");
+                }
+            };
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() {
+        if (outputStream != null) {
+            throw new IllegalStateException("getOutputStream() a déjà été appelé");
+        }
+        if (writer == null) {
+            Charset charset = Charset.forName(getCharacterEncoding());
+            writer = new PrintWriter(StandardCharsets.UTF_8.equals(charset)
+                ? new BodyWriter(body.utf8Writer())
+                : new BodyWriter(new OutputStreamWriter(body, charset)));
+        }
+        return writer;
+    }
+
+    /**
+     * Tampon du corps, pour un rendu qui y écrit directement (templates .tpl)
+     * Le rendu est retenu en entier : la limite n'est vérifiée qu'à commit().
+     */
+    PooledByteOutput directBody() {
+        getOutputStream();
+        return body;
+    }
+
+    /**
+     * Writer vers le corps, qui vérifie la limite après chaque écriture
+     */
+    private final class BodyWriter extends Writer {
+        private final Writer target;
+
+        BodyWriter(Writer target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            target.write(c);
+            afterWrite();
+        }
+
+        @Override
+        public void write(char[] chars, int off, int len) throws IOException {
+            target.write(chars, off, len);
+            afterWrite();
+        }
+
+        @Override
+        public void write(String text, int off, int len) throws IOException {
+            target.write(text, off, len);
+            afterWrite();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target.flush();
+            afterWrite();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    private void afterWrite() throws IOException {
+        if (passThrough == null) {
+            if (body.size() <= maxBufferedSize) return;
+            startPassThrough();
+        }
+        if (body.size() >= STREAM_CHUNK) {
+            drain();
+        }
+    }
+
+    /**
+     * Passe à l'envoi au fil de l'eau : en-têtes de la réponse d'origine figés, pas d'ETag
+     * calculé, pas de Content-Length ; le corps retenu jusqu'ici part en premier
+     */
+    private void startPassThrough() throws IOException {
+        cacheable = false;
+        HttpServletResponse response = (HttpServletResponse) getResponse();
+        OutputStream out = response.getOutputStream();
+        // Même négociation que ResponseBodyWriter, le corps dépassant forcément le seuil
+        int level = ResponseCompression.effectiveLevel(compressionLevel);
+        boolean compressible = level > 0
+            && ResponseCompression.isCompressible(getContentType(), Integer.MAX_VALUE)
+            && !response.containsHeader("Content-Encoding");
+        String encoding = compressible ? ResponseCompression.negotiate(request) : null;
+        if (compressible) {
+            response.addHeader("Vary", "Accept-Encoding");
+        }
+        if (encoding != null) {
+            response.setHeader("Content-Encoding", encoding);
+            List<String> declared = headers.get("ETag");
+            if (declared != null) {
+                response.setHeader("ETag", ConditionalRequest.withEncoding(declared.get(0), encoding));
+            }
+            compressor = ResponseCompression.compressingStream(out, encoding, level);
+            out = compressor;
+        }
+        passThrough = out;
+        etag = null;
+    }
+
+    // Envoie le corps retenu vers le client (envoi au fil de l'eau)
+    private void drain() throws IOException {
+        if (body.size() == 0) return;
+        body.writeTo(passThrough);
+        body.reset();
+    }
+
+    /**
+     * Le contrôleur demande l'envoi immédiat : la réponse passe au fil de l'eau
+     * (comme au-delà de la limite) et ce qui a été écrit part tout de suite
+     */
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) writer.flush();
+        if (passThrough == null) {
+            startPassThrough();
+        }
+        drain();
+        passThrough.flush();
+        super.flushBuffer();
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        if (writer != null) writer.flush();
+        clearBody();
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        if (writer != null) writer.flush();
+        clearBody();
+        headers.clear();
+        status = SC_OK;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        // La longueur est posée par commit() sur le corps réellement capturé
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+    }
+
+    /**
+     * Vrai si la réponse peut être rejouée telle quelle (corps retenu en entier)
+     */
+    boolean isCacheable() {
+        return cacheable && status == SC_OK && passThrough == null && body.size() <= maxBufferedSize;
+    }
+
+    /**
+     * ETag de la réponse : celui posé par le contrôleur ou par @ConditionalGet,
+     * sinon le condensé du corps écrit
+     */
+    String getEtag() {
+        List<String> declared = headers.get("ETag");
+        if (declared != null) return declared.get(0);
+        if (passThrough != null) return null;
+        if (etag == null) {
+            if (writer != null) writer.flush();
+            etag = ConditionalRequest.etagFor(body.array(), body.size());
+        }
+        return etag;
+    }
+
+    /**
+     * Niveau de compression de la route (@Compress ; -1 = défaut, 0 = jamais)
+     */
+    void setCompressionLevel(int level) {
+        this.compressionLevel = level;
+    }
+
+    /**
+     * Construit l'entrée de cache à partir de la réponse capturée
+     */
+    ResponseCache.Entry toEntry(long expiresAt) {
+        String responseEtag = getEtag();
+        return new ResponseCache.Entry(status, getContentType(), headers, responseEtag,
+            body.toByteArray(), compressionLevel, expiresAt);
+    }
+
+    /**
+     * Envoie le corps retenu à la réponse d'origine (voir ResponseBodyWriter)
+     * Pour un GET en 200, pose l'ETag et envoie un 304 sans corps si la requête
+     * a déjà cette version (If-None-Match).
+     */
+    void commit(HttpServletRequest request) throws IOException {
+        if (writer != null) writer.flush();
+        HttpServletResponse response = (HttpServletResponse) getResponse();
+        if (passThrough != null) {
+            drain();
+            if (compressor != null) {
+                compressor.finish();
+                compressor = null;
+            }
+            return;
+        }
+        if (response.isCommitted()) {
+            // Redirection, erreur ou flush du conteneur : le reste du corps suit tel quel
+            if (body.size() > 0) body.writeTo(response.getOutputStream());
+            clearBody();
+            return;
+        }
+        // ETag calculé seulement pour un corps borné (un rendu direct peut dépasser la limite)
+        String responseEtag = status == SC_OK && "GET".equalsIgnoreCase(request.getMethod())
+            && (headers.containsKey("ETag") || body.size() <= maxBufferedSize)
+            ? getEtag() : null;
+        ResponseBodyWriter.write(request, response, body.array(), body.size(),
+            getContentType(), responseEtag, compressionLevel, null);
+        clearBody();
+    }
+
+    // Avant une erreur ou une redirection, le corps déjà produit n'a plus lieu d'être retenu
+    private void flushCaptured() {
+        if (writer != null) writer.flush();
+        clearBody();
+    }
+
+    private void clearBody() {
+        body.reset();
+        etag = null;
+    }
+
+    /**
+     * Rend le tableau du corps au pool (fin de requête, après commit() ou une erreur)
+     */
+    void release() {
+        if (compressor != null) {
+            compressor.discard();
+            compressor = null;
+        }
+        body.release();
+    }
+}
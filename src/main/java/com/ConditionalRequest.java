@@ -0,0 +1,128 @@
+package com;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Validateurs HTTP (ETag, Last-Modified) et réponses 304
+ *
+ * Les ETags sont forts : ils sont dérivés d'un SHA-256 du corps envoyé
+ * (ou de la clé de version déclarée par @ConditionalGet). Une réponse compressée
+ * porte l'ETag du corps suivi de l'encodage ("...-gzip") ; la comparaison ignore
+ * ce suffixe, le contenu étant le même.
+ */
+public class ConditionalRequest {
+
+    // Octets du condensé gardés dans l'ETag (128 bits)
+    private static final int ETAG_BYTES = 16;
+
+    // Suffixes ajoutés par withEncoding()
+    private static final String[] ENCODING_SUFFIXES = {
+        "-" + ResponseCompression.GZIP, "-" + ResponseCompression.DEFLATE
+    };
+
+    // Un condensé réutilisé par thread (getInstance() consulte les fournisseurs à chaque appel)
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 fait partie des algorithmes obligatoires de la JVM
+            throw new IllegalStateException(e);
+        }
+    });
+
+    /**
+     * ETag fort d'un corps
+     */
+    static String etagFor(byte[] body, int length) {
+        MessageDigest digest = DIGEST.get();
+        digest.reset();
+        digest.update(body, 0, length);
+        byte[] truncated = Arrays.copyOf(digest.digest(), ETAG_BYTES);
+        return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(truncated) + "\"";
+    }
+
+    /**
+     * ETag fort à partir d'une clé de version (@ConditionalGet)
+     */
+    static String etagForVersion(String version) {
+        byte[] bytes = version.getBytes(StandardCharsets.UTF_8);
+        return etagFor(bytes, bytes.length);
+    }
+
+    /**
+     * ETag de la représentation compressée d'un corps
+     */
+    static String withEncoding(String etag, String encoding) {
+        if (etag.endsWith("\"")) {
+            return etag.substring(0, etag.length() - 1) + "-" + encoding + "\"";
+        }
+        return etag + "-" + encoding;
+    }
+
+    /**
+     * Vrai si la requête possède déjà la représentation :
+     * If-None-Match contient l'ETag (comparaison faible, RFC 7232 §3.2), ou,
+     * en l'absence d'If-None-Match, If-Modified-Since n'est pas antérieur à lastModified
+     *
+     * @param etag L'ETag de la réponse, ou null
+     * @param lastModified Date de dernière modification en millisecondes, ou -1
+     */
+    public static boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            return etag != null && matchesEtag(ifNoneMatch, etag);
+        }
+        if (lastModified >= 0) {
+            long ifModifiedSince;
+            try {
+                ifModifiedSince = request.getDateHeader("If-Modified-Since");
+            } catch (IllegalArgumentException e) {
+                return false; // date illisible : la condition est ignorée
+            }
+            // Les dates HTTP sont à la seconde près
+            return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+        }
+        return false;
+    }
+
+    private static boolean matchesEtag(String ifNoneMatch, String etag) {
+        String opaque = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*") || stripWeak(candidate).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String encoding : ENCODING_SUFFIXES) {
+            if (opaque.endsWith(encoding + "\"")) {
+                return opaque.substring(0, opaque.length() - encoding.length() - 1) + "\"";
+            }
+        }
+        return opaque;
+    }
+
+    /**
+     * Envoie un 304 sans corps, avec les validateurs
+     */
+    public static void sendNotModified(HttpServletResponse response, String etag, long lastModified) {
+        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        if (etag != null) {
+            response.setHeader("ETag", etag);
+        }
+        if (lastModified >= 0) {
+            response.setDateHeader("Last-Modified", lastModified);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Stockage des fichiers uploadés adressé par contenu
+ *
+ * Chaque fichier est rangé sous son empreinte SHA-256, dans des répertoires
+ * répartis sur les deux premiers octets : ab/cd/abcd1234...
+ * Un fichier compteur (.refs) à côté du contenu compte les références :
+ * - un upload déjà présent incrémente le compteur sans aucune écriture du contenu
+ * - delete() décrémente le compteur et ne supprime le contenu qu'à zéro
+ *
+ * L'espace disque occupé dépend donc uniquement du contenu unique.
+ *
+ * Un contenu n'apparaît sous son nom d'empreinte que par renommage atomique depuis
+ * le répertoire .tmp du stockage : un nom valide désigne toujours un contenu complet.
+ * Un upload reçu en flux (StreamedMultipartFile) a déjà été écrit une fois pendant la
+ * réception, car l'empreinte n'est connue qu'à la fin du corps ; un doublon coûte
+ * alors cette écriture plus une suppression. Placer le répertoire de réception
+ * (upload.spoolDirectory) sur le même système de fichiers que le stockage évite en
+ * plus la copie d'un nouveau contenu : il est simplement renommé.
+ */
+public class ContentAddressedStore {
+
+    private static final String REFS_SUFFIX = ".refs";
+    private static final String TMP_DIR = ".tmp";
+    private static final int LOCK_STRIPES = 64;
+    private static final int TRANSFER_BUFFER_SIZE = 8 * 1024;
+
+    // Une instance par répertoire racine pour partager les verrous
+    private static final Map<String, ContentAddressedStore> stores = new ConcurrentHashMap<>();
+
+    private final Path root;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    private ContentAddressedStore(Path root) {
+        this.root = root;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Retourne le stockage associé à un répertoire racine
+     */
+    public static ContentAddressedStore forDirectory(File rootDirectory) {
+        Path root = rootDirectory.toPath().toAbsolutePath().normalize();
+        return stores.computeIfAbsent(root.toString(), k -> new ContentAddressedStore(root));
+    }
+
+    /**
+     * Enregistre un fichier (ou ajoute une référence s'il est déjà présent)
+     *
+     * @param file Le fichier uploadé
+     * @param maxSizeInBytes La taille maximale acceptée
+     * @return Le fichier stocké avec sa taille et ses empreintes
+     */
+    public UploadResult store(MultipartFile file, long maxSizeInBytes) throws IOException {
+        if (file.getSize() > maxSizeInBytes) {
+            throw UploadRejectedException.tooLarge("Fichier trop volumineux : taille maximale " + maxSizeInBytes + " octets");
+        }
+
+        if (file instanceof StreamedMultipartFile) {
+            // Empreinte déjà calculée à la réception : déplacement seulement si nouveau
+            StreamedMultipartFile streamed = (StreamedMultipartFile) file;
+            String sha256 = streamed.getSha256();
+            synchronized (lockFor(sha256)) {
+                Path target = contentPath(sha256);
+                if (!Files.exists(target)) {
+                    Path tmpDir = root.resolve(TMP_DIR);
+                    Files.createDirectories(tmpDir);
+                    streamed.moveTo(target.toFile(), tmpDir.toFile());
+                }
+                incrementReferences(sha256);
+                return new UploadResult(target.toFile(), streamed.getSize(), sha256, streamed.getCrc32());
+            }
+        }
+
+        // Autre MultipartFile : lecture seule pour l'empreinte, écriture uniquement si nouveau
+        Digest digest = digest(file);
+        synchronized (lockFor(digest.sha256)) {
+            Path target = contentPath(digest.sha256);
+            if (!Files.exists(target)) {
+                writeContent(file, target, digest.sha256, maxSizeInBytes);
+            }
+            incrementReferences(digest.sha256);
+            return new UploadResult(target.toFile(), digest.size, digest.sha256, digest.crc32);
+        }
+    }
+
+    /**
+     * Vérifie si un chemin désigne un contenu de ce stockage
+     */
+    public boolean contains(File file) {
+        Path path = file.toPath().toAbsolutePath().normalize();
+        if (!path.startsWith(root)) return false;
+        String name = path.getFileName().toString();
+        return isSha256(name) && path.equals(contentPath(name));
+    }
+
+    /**
+     * Retire une référence vers le contenu ; le contenu est supprimé à zéro référence
+     *
+     * @return true si le contenu a été physiquement supprimé
+     */
+    public boolean delete(File file) throws IOException {
+        if (!contains(file)) return false;
+        String sha256 = file.getName();
+        synchronized (lockFor(sha256)) {
+            Path target = contentPath(sha256);
+            Path refs = refsPath(sha256);
+            long count = readReferences(refs) - 1;
+            if (count > 0) {
+                writeReferences(refs, count);
+                return false;
+            }
+            Files.deleteIfExists(refs);
+            return Files.deleteIfExists(target);
+        }
+    }
+
+    /**
+     * Nombre de références vers un contenu
+     */
+    public long getReferenceCount(String sha256) throws IOException {
+        synchronized (lockFor(sha256)) {
+            return readReferences(refsPath(sha256));
+        }
+    }
+
+    // =====================================================
+    // CHEMINS ET COMPTEURS
+    // =====================================================
+
+    private Path contentPath(String sha256) {
+        return root.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256);
+    }
+
+    private Path refsPath(String sha256) {
+        return contentPath(sha256).resolveSibling(sha256 + REFS_SUFFIX);
+    }
+
+    private Object lockFor(String sha256) {
+        return locks[Math.floorMod(sha256.hashCode(), LOCK_STRIPES)];
+    }
+
+    private void incrementReferences(String sha256) throws IOException {
+        Path refs = refsPath(sha256);
+        writeReferences(refs, readReferences(refs) + 1);
+    }
+
+    private long readReferences(Path refs) throws IOException {
+        if (!Files.exists(refs)) return 0;
+        String content = new String(Files.readAllBytes(refs), StandardCharsets.US_ASCII).trim();
+        return content.isEmpty() ? 0 : Long.parseLong(content);
+    }
+
+    /**
+     * Remplace le compteur de façon atomique (écriture dans un fichier voisin puis renommage)
+     */
+    private void writeReferences(Path refs, long count) throws IOException {
+        Files.createDirectories(refs.getParent());
+        Path tmp = refs.resolveSibling(refs.getFileName() + ".tmp");
+        Files.write(tmp, Long.toString(count).getBytes(StandardCharsets.US_ASCII));
+        try {
+            Files.move(tmp, refs, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, refs, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static boolean isSha256(String name) {
+        if (name.length() != 64) return false;
+        for (int i = 0; i < name.length(); i++) {
+            if (Character.digit(name.charAt(i), 16) < 0) return false;
+        }
+        return true;
+    }
+
+    // =====================================================
+    // ÉCRITURE DU CONTENU
+    // =====================================================
+
+    /**
+     * Écrit un nouveau contenu dans un fichier temporaire du stockage puis le renomme
+     * (même système de fichiers : le contenu n'apparaît jamais partiellement écrit)
+     */
+    private void writeContent(MultipartFile file, Path target, String expectedSha256, long maxSizeInBytes)
+            throws IOException {
+        Path tmpDir = root.resolve(TMP_DIR);
+        Files.createDirectories(tmpDir);
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(tmpDir, "cas-", ".part");
+        try {
+            UploadSink sink = UploadSink.open(tmp, maxSizeInBytes);
+            try (InputStream in = file.getInputStream(); UploadSink out = sink) {
+                in.transferTo(out);
+            }
+            if (!expectedSha256.equals(sink.getSha256())) {
+                throw new IOException("Le contenu du fichier a changé pendant l'enregistrement");
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Empreintes d'un contenu calculées sans rien écrire sur disque
+     */
+    private static final class Digest {
+        String sha256;
+        long crc32;
+        long size;
+    }
+
+    private static Digest digest(MultipartFile file) throws IOException {
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+        CRC32 crc32 = new CRC32();
+        Digest digest = new Digest();
+        byte[] buffer = new byte[TRANSFER_BUFFER_SIZE];
+        try (InputStream in = file.getInputStream()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                sha256.update(buffer, 0, read);
+                crc32.update(buffer, 0, read);
+                digest.size += read;
+            }
+        }
+        digest.sha256 = UploadSink.toHex(sha256.digest());
+        digest.crc32 = crc32.getValue();
+        return digest;
+    }
+}
@@ -0,0 +1,131 @@
+package com;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Surveillance d'un répertoire en mode développement (WatchService)
+ *
+ * Tous les sous-répertoires sont surveillés, y compris ceux créés après le démarrage.
+ * Les évènements sont regroupés : le listener est appelé une fois que le répertoire
+ * est resté calme pendant QUIET_PERIOD_MS (une compilation écrit souvent plusieurs
+ * fichiers d'affilée). En cas de perte d'évènements (OVERFLOW), le répertoire racine
+ * lui-même fait partie des chemins modifiés : tout doit alors être relu.
+ */
+public class DevWatcher implements Closeable {
+
+    private static final long QUIET_PERIOD_MS = 100;
+
+    /**
+     * Reçoit les fichiers modifiés, créés ou supprimés
+     */
+    public interface Listener {
+        void onChange(Set<Path> changedFiles);
+    }
+
+    private final Path root;
+    private final Listener listener;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    private final Thread thread;
+
+    private DevWatcher(Path root, Listener listener) throws IOException {
+        this.root = root;
+        this.listener = listener;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        registerAll(root);
+        this.thread = new Thread(this::run, "framework-dev-watcher-" + root.getFileName());
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Démarre la surveillance d'un répertoire
+     */
+    public static DevWatcher start(Path root, Listener listener) throws IOException {
+        DevWatcher watcher = new DevWatcher(root, listener);
+        watcher.thread.start();
+        return watcher;
+    }
+
+    @Override
+    public void close() throws IOException {
+        thread.interrupt();
+        watchService.close();
+    }
+
+    private void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<Path> changed = new LinkedHashSet<>();
+                collect(watchService.take(), changed);
+
+                // Regroupe les évènements jusqu'à une période calme
+                WatchKey key;
+                while ((key = watchService.poll(QUIET_PERIOD_MS, TimeUnit.MILLISECONDS)) != null) {
+                    collect(key, changed);
+                }
+
+                try {
+                    listener.onChange(changed);
+                } catch (RuntimeException e) {
+                    System.err.println("Erreur lors du rechargement: " + e.getMessage());
+                    e.printStackTrace();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Arrêt de la surveillance
+        }
+    }
+
+    private void collect(WatchKey key, Set<Path> changed) {
+        Path directory = directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || directory == null) {
+                changed.add(root);
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            changed.add(path);
+            // Nouveau répertoire : surveillé à son tour, ses fichiers déjà présents sont signalés
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                try {
+                    registerAll(path);
+                    try (Stream<Path> files = Files.walk(path)) {
+                        files.filter(Files::isRegularFile).forEach(changed::add);
+                    }
+                } catch (IOException e) {
+                    changed.add(root);
+                }
+            }
+        }
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+    }
+
+    private void registerAll(Path start) throws IOException {
+        try (Stream<Path> paths = Files.walk(start)) {
+            for (Path directory : (Iterable<Path>) paths.filter(Files::isDirectory)::iterator) {
+                WatchKey key = directory.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+                directories.put(key, directory);
+            }
+        }
+    }
+}
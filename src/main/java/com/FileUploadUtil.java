@@ -2,6 +2,8 @@ package com;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.UUID;
 
@@ -12,6 +14,29 @@ public class FileUploadUtil {
     
     private static final String UPLOAD_DIR = "uploads";
     
+    // Tampon de copie pour les fichiers non reçus en flux
+    private static final int TRANSFER_BUFFER_SIZE = 8 * 1024;
+    
+    /**
+     * Mode de stockage des fichiers uploadés
+     * - UNIQUE_NAME : une copie par upload, nommée par un UUID (par défaut)
+     * - CONTENT_ADDRESSED : une copie par contenu unique (ab/cd/<sha256>), avec comptage des références
+     */
+    public enum StorageMode { UNIQUE_NAME, CONTENT_ADDRESSED }
+    
+    private static volatile StorageMode storageMode = StorageMode.UNIQUE_NAME;
+    
+    /**
+     * Configure le mode de stockage des uploads
+     */
+    public static void setStorageMode(StorageMode mode) {
+        storageMode = mode != null ? mode : StorageMode.UNIQUE_NAME;
+    }
+    
+    public static StorageMode getStorageMode() {
+        return storageMode;
+    }
+    
     /**
      * Sauvegarde un fichier uploadé
      */
@@ -25,6 +50,26 @@ public class FileUploadUtil {
      */
     public static File saveUploadedFile(MultipartFile file, String baseDirectory, String uploadDirName) 
             throws IOException {
+        return storeUploadedFile(file, baseDirectory, uploadDirName, Long.MAX_VALUE).getFile();
+    }
+    
+    /**
+     * Enregistre un fichier uploadé en un seul passage sur les données
+     * 
+     * - Fichier reçu en flux (StreamedMultipartFile) : empreintes et taille sont déjà
+     *   connues, le fichier temporaire est renommé atomiquement vers sa destination
+     * - Autre MultipartFile : le contenu est lu une fois et écrit par FileChannel en
+     *   calculant SHA-256, CRC32 et taille, avec rejet dès le dépassement de maxSizeInBytes
+     * 
+     * @param file Le fichier uploadé
+     * @param baseDirectory Le répertoire de base
+     * @param uploadDirName Le nom du répertoire d'upload
+     * @param maxSizeInBytes La taille maximale acceptée
+     * @return Le fichier enregistré avec sa taille et ses empreintes
+     */
+    public static UploadResult storeUploadedFile(MultipartFile file, String baseDirectory, 
+                                                 String uploadDirName, long maxSizeInBytes) 
+            throws IOException {
         
         if (file == null || file.isEmpty()) {
             throw new IOException("File is empty or null");
@@ -36,27 +81,83 @@ public class FileUploadUtil {
             uploadDir.mkdirs();
         }
         
+        // Mode adressé par contenu : un doublon n'est pas réécrit
+        if (storageMode == StorageMode.CONTENT_ADDRESSED) {
+            return ContentAddressedStore.forDirectory(uploadDir).store(file, maxSizeInBytes);
+        }
+        
         // Générer un nom de fichier unique pour éviter les collisions
+        File destination = new File(uploadDir, UUID.randomUUID().toString() + getSafeExtension(file));
+        
+        if (file instanceof StreamedMultipartFile) {
+            StreamedMultipartFile streamed = (StreamedMultipartFile) file;
+            if (streamed.getSize() > maxSizeInBytes) {
+                throw UploadRejectedException.tooLarge("Fichier trop volumineux : taille maximale " + maxSizeInBytes + " octets");
+            }
+            streamed.moveTo(destination);
+            return new UploadResult(destination, streamed.getSize(), streamed.getSha256(), streamed.getCrc32());
+        }
+        
+        return writeThroughSink(file, destination, maxSizeInBytes);
+    }
+    
+    /**
+     * Copie le contenu d'un fichier vers sa destination à travers un UploadSink
+     * Le fichier partiel est supprimé en cas d'erreur (ex: taille dépassée)
+     */
+    private static UploadResult writeThroughSink(MultipartFile file, File destination, long maxSizeInBytes) 
+            throws IOException {
+        UploadSink sink = UploadSink.open(destination.toPath(), maxSizeInBytes);
+        try (InputStream in = file.getInputStream(); UploadSink out = sink) {
+            byte[] buffer = new byte[TRANSFER_BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(destination.toPath());
+            throw e;
+        }
+        return new UploadResult(destination, sink.getSize(), sink.getSha256(), sink.getCrc32());
+    }
+    
+    /**
+     * Extension du nom original, limitée aux caractères sûrs (ex: ".png")
+     */
+    private static String getSafeExtension(MultipartFile file) {
         String originalFilename = file.getOriginalFilename();
         String safeOriginal = originalFilename != null ? originalFilename.replaceAll("[^A-Za-z0-9._-]", "_") : "";
-        String fileExtension = "";
         if (safeOriginal.contains(".")) {
-            fileExtension = safeOriginal.substring(safeOriginal.lastIndexOf("."));
+            return safeOriginal.substring(safeOriginal.lastIndexOf("."));
         }
-        String uniqueFilename = UUID.randomUUID().toString() + fileExtension;
-        File destination = new File(uploadDir, uniqueFilename);
-        
-        // Sauvegarder le fichier
-        file.transferTo(destination);
-        
-        return destination;
+        return "";
     }
     
     /**
      * Supprime un fichier uploadé
+     * En mode adressé par contenu, retire une référence : le contenu n'est
+     * supprimé que lorsque plus aucun upload ne le référence.
      */
     public static boolean deleteUploadedFile(String filePath) {
         File file = new File(filePath);
+        if (storageMode == StorageMode.CONTENT_ADDRESSED) {
+            // Le répertoire racine est trois niveaux au-dessus : <racine>/ab/cd/<sha256>
+            File shardDir = file.getAbsoluteFile().getParentFile();
+            File root = shardDir != null && shardDir.getParentFile() != null
+                ? shardDir.getParentFile().getParentFile() : null;
+            if (root != null) {
+                ContentAddressedStore store = ContentAddressedStore.forDirectory(root);
+                if (store.contains(file)) {
+                    try {
+                        store.delete(file);
+                        return true;
+                    } catch (IOException e) {
+                        System.err.println("Erreur lors de la suppression de: " + filePath + " - " + e.getMessage());
+                        return false;
+                    }
+                }
+            }
+        }
         return file.delete();
     }
     
@@ -0,0 +1,86 @@
+package com;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Cache des fragments de templates ({{#cache}} dans les vues .tpl)
+ *
+ * Un fragment est gardé sous forme d'octets déjà encodés en UTF-8 et recopié
+ * tel quel dans la réponse. Comme ResponseCache : borné en octets, éviction LRU,
+ * entrées expirées retirées quand on les rencontre.
+ */
+public class FragmentCache {
+
+    // Coût fixe approximatif d'une entrée (objets, clé), en octets
+    private static final int ENTRY_OVERHEAD = 96;
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long currentBytes;
+
+    private static final class Entry {
+        private final byte[] bytes;
+        private final long expiresAt;
+        private final int weight;
+
+        Entry(String key, byte[] bytes, long expiresAt) {
+            this.bytes = bytes;
+            this.expiresAt = expiresAt;
+            this.weight = ENTRY_OVERHEAD + key.length() * 2 + bytes.length;
+        }
+    }
+
+    /**
+     * @param maxBytes Taille maximale du cache, en octets
+     */
+    public FragmentCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return Les octets du fragment, ou null s'il est absent ou expiré
+     */
+    public synchronized byte[] get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) return null;
+        if (System.currentTimeMillis() >= entry.expiresAt) {
+            entries.remove(key);
+            currentBytes -= entry.weight;
+            return null;
+        }
+        return entry.bytes;
+    }
+
+    /**
+     * Ajoute un fragment puis évince les moins récemment utilisés jusqu'à repasser sous la borne
+     * Un fragment plus grand que le quart du cache n'est pas conservé.
+     */
+    public synchronized void put(String key, byte[] bytes, long ttlMillis) {
+        Entry entry = new Entry(key, bytes, System.currentTimeMillis() + ttlMillis);
+        if (entry.weight > maxBytes / 4) return;
+
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            currentBytes -= previous.weight;
+        }
+        currentBytes += entry.weight;
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (currentBytes > maxBytes && eldest.hasNext()) {
+            Entry candidate = eldest.next();
+            if (candidate == entry) continue;
+            eldest.remove();
+            currentBytes -= candidate.weight;
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -31,8 +31,7 @@ public class HomePageRenderer {
                                 Map<String, MappedMethod> urlMethodMap,
                                 List<MappedMethod> dynamicUrlMethods) throws IOException {
         
-        response.setContentType("text/html;charset=UTF-8");
-        StringBuilder html = new StringBuilder();
+        StringBuilder html = new StringBuilder(4096);
         
         // Construction de la structure HTML
         buildHtmlHeader(html);
@@ -40,7 +39,8 @@ public class HomePageRenderer {
         buildMappedMethodsSection(html, urlMethodMap, dynamicUrlMethods);
         buildHtmlFooter(html);
         
-        response.getWriter().println(html.toString());
+        html.append('\n');
+        ResponseBodyWriter.writeText(response, "text/html", html);
     }
     
     /**
@@ -146,12 +146,18 @@ public class HomePageRenderer {
         html.append("</p>");
         html.append("<p><strong>Méthode HTTP:</strong> ")
             .append(mappedMethod.getHttpMethod()).append("</p>");
+        String className = mappedMethod.getClassName();
         html.append("<p><strong>Classe:</strong> ")
-            .append(mappedMethod.getMethod().getDeclaringClass().getSimpleName()).append("</p>");
+            .append(className.substring(Math.max(className.lastIndexOf('.'), className.lastIndexOf('$')) + 1))
+            .append("</p>");
         html.append("<p><strong>Méthode Java:</strong> ")
-            .append(mappedMethod.getMethod().getName()).append("</p>");
+            .append(mappedMethod.getMethodName()).append("</p>");
+        // En mode paresseux, la page d'accueil ne charge pas les contrôleurs
         html.append("<p><strong>Type de retour:</strong> ")
-            .append(mappedMethod.getMethod().getReturnType().getSimpleName()).append("</p>");
+            .append(mappedMethod.isResolved()
+                ? mappedMethod.getMethod().getReturnType().getSimpleName()
+                : "(classe non chargée)")
+            .append("</p>");
         html.append("<p><strong>Auteur:</strong> ")
             .append(mappedMethod.getAuteur()).append("</p>");
         html.append("<p><strong>Version:</strong> ")
@@ -1,5 +1,6 @@
 package com;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Method;
@@ -11,11 +12,14 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Future;
 
+import jakarta.servlet.ServletContext;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.Part;
+import lookup.HandlerPlan;
 import lookup.MappingAnalyzer.MappedMethod;
 
 /**
@@ -27,6 +31,48 @@ import lookup.MappingAnalyzer.MappedMethod;
  */
 public class MappingHelper {
     
+    // Attributs de requête utilisés par le parseur multipart du framework
+    private static final String MULTIPART_DATA_ATTRIBUTE = "framework.multipart.data";
+    private static final String MULTIPART_FILES_ATTRIBUTE = "framework.multipart.files";
+    // Limites avec lesquelles le corps multipart a été (ou sera) analysé pour la route appelée
+    private static final String MULTIPART_LIMITS_ATTRIBUTE = "framework.multipart.limits";
+    
+    // Taille maximale d'un champ texte multipart (1 Mo)
+    private static final int MAX_MULTIPART_FIELD_SIZE = 1024 * 1024;
+    
+    // true : multipart analysé en flux par le framework ; false : request.getParts() du conteneur
+    private boolean streamingMultipart = true;
+    
+    // Répertoire de réception des fichiers (null = répertoire temporaire du conteneur)
+    private File uploadSpoolDirectory;
+    
+    /**
+     * Choisit le parseur multipart utilisé pour la liaison des paramètres
+     * 
+     * @param streamingMultipart true pour MultipartStream, false pour request.getParts()
+     */
+    public void setStreamingMultipart(boolean streamingMultipart) {
+        this.streamingMultipart = streamingMultipart;
+    }
+    
+    public boolean isStreamingMultipart() {
+        return streamingMultipart;
+    }
+    
+    /**
+     * Choisit le répertoire où les fichiers reçus en flux sont écrits pendant l'analyse
+     * Sur le même système de fichiers que le stockage des uploads, l'enregistrement
+     * final devient un simple renommage.
+     * 
+     * @param directory Le répertoire, ou null pour le répertoire temporaire du conteneur
+     */
+    public void setUploadSpoolDirectory(File directory) {
+        if (directory != null) {
+            directory.mkdirs();
+        }
+        this.uploadSpoolDirectory = directory;
+    }
+    
     /**
      * Vérifie si un type est un objet complexe (non primitif et non type simple)
      */
@@ -69,15 +115,42 @@ public class MappingHelper {
 
     /**
      * Extrait les fichiers multipart de la requête
+     * Les limites sont celles de la méthode appelée (@UploadLimit), sinon les limites globales.
      */
     public Map<String, MultipartFile[]> extractMultipartFiles(HttpServletRequest request) 
             throws IOException, ServletException {
+        Object limits = request.getAttribute(MULTIPART_LIMITS_ATTRIBUTE);
+        return extractMultipartFiles(request,
+            limits instanceof UploadLimits ? (UploadLimits) limits : UploadLimits.defaults());
+    }
+    
+    /**
+     * Extrait les fichiers multipart de la requête
+     * 
+     * @param request La requête HTTP
+     * @param limits Les limites d'upload à appliquer
+     * @throws UploadRejectedException si l'upload dépasse les limites
+     */
+    public Map<String, MultipartFile[]> extractMultipartFiles(HttpServletRequest request, UploadLimits limits) 
+            throws IOException, ServletException {
         
         Map<String, List<MultipartFile>> temp = new HashMap<>();
-        if (isMultipartRequest(request)) {
+        if (isMultipartRequest(request) && streamingMultipart) {
+            // Le corps ne peut être lu qu'une fois : on réutilise l'analyse en flux
+            for (Map.Entry<String, Object[]> entry : getFormData(request, limits).entrySet()) {
+                for (Object value : entry.getValue()) {
+                    if (value instanceof MultipartFile) {
+                        temp.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).add((MultipartFile) value);
+                    }
+                }
+            }
+        } else if (isMultipartRequest(request)) {
+            limits = limits.cappedToContainer();
+            limits.checkContentLength(request);
             Collection<Part> parts = request.getParts();
             for (Part part : parts) {
                 if (part.getSubmittedFileName() != null && !part.getSubmittedFileName().isEmpty()) {
+                    limits.checkFileSize(part.getSize());
                     String paramName = part.getName();
                     temp.computeIfAbsent(paramName, k -> new ArrayList<>())
                         .add(new StandardMultipartFile(part));
@@ -106,8 +179,13 @@ public class MappingHelper {
      * @return Une map simplifiée avec des objets typés
      */
     public Map<String, Object> convertFormDataToObjectMap(Map<String, Object[]> formData) {
-        Map<String, Object> result = new HashMap<>();
-        
+        return convertFormDataToObjectMap(formData, new HashMap<>());
+    }
+    
+    /**
+     * Convertit les données du formulaire dans une map fournie (réutilisée par RequestContext)
+     */
+    Map<String, Object> convertFormDataToObjectMap(Map<String, Object[]> formData, Map<String, Object> result) {
         for (Map.Entry<String, Object[]> entry : formData.entrySet()) {
             String key = entry.getKey();
             Object[] values = entry.getValue();
@@ -368,22 +446,84 @@ public class MappingHelper {
     public Object[] prepareMethodParameters(Method method, Map<String, String> pathVariables,
                                         HttpServletRequest request, HttpServletResponse response) 
             throws IllegalArgumentException, IOException, ServletException {
-        Class<?>[] parameterTypes = method.getParameterTypes();
-        java.lang.reflect.Parameter[] parameters = method.getParameters();
-        Object[] parametersValues = new Object[parameterTypes.length];
+        return prepareMethodParameters(HandlerPlan.compile(method), pathVariables, request, response);
+    }
+    
+    /**
+     * Prépare les paramètres à partir du plan d'appel compilé de la route
+     * (types, annotations et types génériques des paramètres déjà résolus)
+     * 
+     * @param plan Le plan d'appel de la méthode
+     * @param pathVariables Les variables extraites du chemin
+     * @param request La requête HTTP
+     * @param response La réponse HTTP
+     * @return Un tableau d'objets contenant les valeurs des paramètres dans le bon ordre
+     * @throws IllegalArgumentException si un paramètre requis n'est pas trouvé
+     */
+    public Object[] prepareMethodParameters(HandlerPlan plan, Map<String, String> pathVariables,
+                                        HttpServletRequest request, HttpServletResponse response) 
+            throws IllegalArgumentException, IOException, ServletException {
+        return prepareMethodParameters(plan, pathVariables, new Object[plan.getParameterCount()],
+            new HashMap<>(), false, request, response);
+    }
+    
+    /**
+     * Prépare les paramètres dans les tableaux et maps réutilisés du contexte de la requête
+     * Le tableau renvoyé appartient au contexte : il est effacé par RequestContext.release().
+     */
+    Object[] prepareMethodParameters(HandlerPlan plan, RequestContext context,
+                                     HttpServletRequest request, HttpServletResponse response) 
+            throws IllegalArgumentException, IOException, ServletException {
+        return prepareMethodParameters(plan, context.getPathVariables(),
+            context.arguments(plan.getParameterCount()), context.formValues(), true, request, response);
+    }
+    
+    /**
+     * @param parametersValues Tableau à remplir (taille = nombre de paramètres)
+     * @param formValues Map vide qui reçoit les données du formulaire converties
+     * @param pooled true si pathVariables et formValues sont réutilisés après la requête :
+     *        le contrôleur qui demande une Map en reçoit alors une copie
+     */
+    @SuppressWarnings("unchecked")
+    private Object[] prepareMethodParameters(HandlerPlan plan, Map<String, String> pathVariables,
+                                             Object[] parametersValues, Map<String, Object> formValues,
+                                             boolean pooled, HttpServletRequest request,
+                                             HttpServletResponse response) 
+            throws IllegalArgumentException, IOException, ServletException {
+        Class<?>[] parameterTypes = plan.getParameterTypes();
 
         // Récupère les données du formulaire (inclut maintenant les fichiers)
-        Map<String, Object[]> formData = getFormData(request);
+        // Si le contrôleur lit lui-même le flux multipart, le corps n'est pas consommé ici.
+        // Si tous les paramètres se lient sans formulaire (requête, session, variables de
+        // chemin), rien n'est lu ni copié.
+        UploadLimits uploadLimits = UploadLimits.forMethod(plan.getMethod());
+        if (isMultipartRequest(request)) {
+            // Reprises par extractMultipartFiles si le contrôleur l'appelle lui-même
+            request.setAttribute(MULTIPART_LIMITS_ATTRIBUTE, uploadLimits);
+        }
+        Map<String, Object[]> formData;
+        if (!needsFormData(plan, pathVariables)
+                || plan.hasParameterOfType(MultipartStream.class) && isMultipartRequest(request)) {
+            formData = java.util.Collections.emptyMap();
+        } else if (pooled && !isMultipartRequest(request)) {
+            // Paramètres du conteneur lus en place (map non modifiée par la liaison)
+            formData = (Map<String, Object[]>) (Map<String, ?>) request.getParameterMap();
+        } else {
+            formData = getFormData(request, uploadLimits);
+        }
         
         // Convertit les données du formulaire en Map<String, Object>
-        Map<String, Object> formDataAsObjectMap = convertFormDataToObjectMap(formData);
+        Map<String, Object> formDataAsObjectMap = convertFormDataToObjectMap(formData, formValues);
 
-        // Gestion de session : récupère ou crée une session
-        String sessionId = SessionManager.getOrCreateSession(request, response);
+        // Gestion de session : réutilise la vue de la requête si elle est ouverte
+        RequestSession requestSession = RequestSession.current();
+        String sessionId = requestSession != null
+            ? requestSession.getSessionId()
+            : SessionManager.getOrCreateSession(request, response);
 
         for (int i = 0; i < parameterTypes.length; i++) {
             Class<?> pType = parameterTypes[i];
-            java.lang.reflect.Parameter parameter = parameters[i];
+            java.lang.reflect.Parameter parameter = plan.getParameter(i);
             Object value;
 
             // 1️⃣ HttpServletRequest / Response
@@ -395,16 +535,19 @@ public class MappingHelper {
             }
             
             // 🆕 2️⃣ Paramètres de session (@SessionParam)
-            else if (parameter.isAnnotationPresent(annotations.SessionParam.class)) {
-                value = prepareSessionParameter(parameter, pType, sessionId);
+            else if (plan.getSessionParam(i) != null) {
+                value = prepareSessionParameter(parameter, plan.getSessionParam(i), pType, sessionId);
+            }
+
+            // 3️⃣ Flux multipart lu par le contrôleur (fichiers à usage unique)
+            else if (pType == MultipartStream.class) {
+                UploadAdmission.admit(request, getUploadTempDirectory(request), uploadLimits);
+                value = MultipartStream.from(request, uploadLimits);
             }
 
             // 3️⃣ MultipartFile (simple)
             else if (MultipartFile.class.isAssignableFrom(pType)) {
-                String paramName = getParameterName(
-                    parameter,
-                    parameter.getAnnotation(annotations.RequestParam.class)
-                );
+                String paramName = getParameterName(parameter, plan.getRequestParam(i));
 
                 Object fileObj = formDataAsObjectMap.get(paramName);
                 
@@ -432,10 +575,7 @@ public class MappingHelper {
             else if (pType.isArray()
                     && MultipartFile.class.isAssignableFrom(pType.getComponentType())) {
 
-                String paramName = getParameterName(
-                    parameter,
-                    parameter.getAnnotation(annotations.RequestParam.class)
-                );
+                String paramName = getParameterName(parameter, plan.getRequestParam(i));
 
                 Object fileObj = formDataAsObjectMap.get(paramName);
 
@@ -447,6 +587,14 @@ public class MappingHelper {
                     );
                 } else if (fileObj instanceof MultipartFile) {
                     value = new MultipartFile[]{ (MultipartFile) fileObj };
+                } else if (fileObj instanceof Object[]) {
+                    // Plusieurs fichiers pour le même champ
+                    Object[] array = (Object[]) fileObj;
+                    List<MultipartFile> files = new ArrayList<>(array.length);
+                    for (Object item : array) {
+                        if (item instanceof MultipartFile) files.add((MultipartFile) item);
+                    }
+                    value = files.toArray(new MultipartFile[0]);
                 } else {
                     value = new MultipartFile[0];
                 }
@@ -455,7 +603,7 @@ public class MappingHelper {
             // 5️⃣ Map
             else if (Map.class.isAssignableFrom(pType)) {
 
-                Type genericType = parameter.getParameterizedType();
+                Type genericType = plan.getGenericType(i);
 
                 if (genericType instanceof ParameterizedType) {
                     ParameterizedType pt = (ParameterizedType) genericType;
@@ -465,12 +613,13 @@ public class MappingHelper {
                         && typeArgs[0] == String.class
                         && typeArgs[1] == Object.class) {
 
-                        value = formDataAsObjectMap;
+                        value = pooled ? new HashMap<>(formDataAsObjectMap) : formDataAsObjectMap;
                     }
                     else if (typeArgs[0] == String.class
                         && typeArgs[1] == String.class) {
 
-                        value = pathVariables != null ? pathVariables : new HashMap<>();
+                        value = pathVariables == null ? new HashMap<>()
+                            : pooled ? new LinkedHashMap<>(pathVariables) : pathVariables;
                     }
                     else {
                         throw new IllegalArgumentException(
@@ -478,7 +627,7 @@ public class MappingHelper {
                         );
                     }
                 } else {
-                    value = formDataAsObjectMap;
+                    value = pooled ? new HashMap<>(formDataAsObjectMap) : formDataAsObjectMap;
                 }
             }
 
@@ -495,8 +644,7 @@ public class MappingHelper {
 
             // 7️⃣ @RequestParam simple
             else {
-                annotations.RequestParam requestParamAnnotation =
-                    parameter.getAnnotation(annotations.RequestParam.class);
+                annotations.RequestParam requestParamAnnotation = plan.getRequestParam(i);
 
                 String paramName = getParameterName(parameter, requestParamAnnotation);
 
@@ -523,45 +671,117 @@ public class MappingHelper {
     }   
         
     /**
-     * Récupère les données du formulaire, y compris les fichiers
+     * Vrai si un paramètre au moins se lie à partir des données du formulaire
+     * (les @RequestParam trouvés dans les variables de chemin n'en ont pas besoin)
+     */
+    private boolean needsFormData(HandlerPlan plan, Map<String, String> pathVariables) {
+        Class<?>[] parameterTypes = plan.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            Class<?> pType = parameterTypes[i];
+            if (pType == HttpServletRequest.class || pType == HttpServletResponse.class
+                    || pType == MultipartStream.class || plan.getSessionParam(i) != null) {
+                continue;
+            }
+            if (!MultipartFile.class.isAssignableFrom(pType) && !pType.isArray()
+                    && !Map.class.isAssignableFrom(pType) && !isComplexObjectType(pType)
+                    && pathVariables != null
+                    && pathVariables.containsKey(getParameterName(plan.getParameter(i), plan.getRequestParam(i)))) {
+                continue;
+            }
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Récupère les données du formulaire, y compris les fichiers (limites d'upload globales)
      * 
      * @param request La requête HTTP
      * @return Une map contenant tous les paramètres de la requête
      */
     public Map<String, Object[]> getFormData(HttpServletRequest request) 
             throws IOException, ServletException {
+        return getFormData(request, UploadLimits.defaults());
+    }
+    
+    /**
+     * Récupère les données du formulaire, y compris les fichiers
+     * 
+     * @param request La requête HTTP
+     * @param limits Les limites d'upload de la méthode appelée
+     * @return Une map contenant tous les paramètres de la requête
+     * @throws UploadRejectedException si l'upload dépasse les limites ou n'est pas admis
+     */
+    public Map<String, Object[]> getFormData(HttpServletRequest request, UploadLimits limits) 
+            throws IOException, ServletException {
         
         Map<String, Object[]> data = new HashMap<>();
         
         String contentType = request.getContentType();
         boolean isMultipart = contentType != null && contentType.toLowerCase().startsWith("multipart/");
         
+        if (isMultipart && streamingMultipart) {
+            return getStreamedFormData(request, limits);
+        }
+        
         if (isMultipart) {
+            // Le conteneur applique son plafond (@MultipartConfig) : une requête au-delà est
+            // refusée ici en 413 plutôt qu'en erreur de getParts
+            limits = limits.cappedToContainer();
+            // Refus avant toute lecture du corps : un corps chunked serait lu par le conteneur
+            // jusqu'à son plafond avant que les limites de la route ne soient vérifiées
+            if (request.getContentLengthLong() < 0) {
+                throw new UploadRejectedException(411, "Content-Length requis pour un upload multipart");
+            }
+            limits.checkContentLength(request);
+            UploadAdmission.admit(request, getUploadTempDirectory(request), limits);
+            
+            // Traitements des fichiers en parallèle si un pool est configuré ; les champs texte,
+            // déjà en mémoire dans le conteneur, sont lus directement
+            List<Future<?>> pending = new ArrayList<>();
+            
             // Traiter exclusivement via parts (évite double parsing)
+            boolean parsed = false;
             try {
                 Collection<Part> parts = request.getParts();
+                String charset = request.getCharacterEncoding();
                 for (Part part : parts) {
                     String paramName = part.getName();
                     if (paramName == null) continue;
                     
                     if (part.getSubmittedFileName() != null && !part.getSubmittedFileName().isEmpty()) {
                         // Fichier
+                        limits.checkFileSize(part.getSize());
                         MultipartFile multipartFile = new StandardMultipartFile(part);
                         // si plusieurs fichiers pour le même param, garder le dernier (ou gérer liste si tu veux)
                         data.put(paramName, new Object[]{multipartFile});
+                        if (UploadProcessingPool.hasProcessors()) {
+                            pending.add(UploadProcessingPool.submit(multipartFile));
+                        }
                     } else {
                         // Champ texte
-                        String value = getPartValue(part, request.getCharacterEncoding());
+                        String value = getPartValue(part, charset);
                         if (value != null) {
                             data.put(paramName, new String[]{value});
                         }
                     }
                 }
+                parsed = true;
+            } catch (UploadRejectedException e) {
+                throw e;
             } catch (IllegalStateException | IOException | ServletException e) {
                 // Sur certains containers getParts peut échouer si multipart non supporté
                 System.err.println("Warning: Multipart processing not supported: " + e.getMessage());
                 // Fallback: utiliser les paramètres normaux
+                parsed = true;
+            } finally {
+                // Requête rejetée : les fichiers déjà confiés au pool ne doivent pas être
+                // supprimés pendant que leurs traitements les lisent encore
+                if (!parsed) UploadProcessingPool.awaitQuietly(pending);
             }
+            
+            // Attend tous les traitements avant l'appel du contrôleur
+            UploadProcessingPool.awaitAll(pending);
             // IMPORTANT : ne pas appeler request.getParameterNames() ici (double parsing)
             return data;
         }
@@ -577,6 +797,115 @@ public class MappingHelper {
         return data;
     }
 
+    /**
+     * Analyse le corps multipart en flux avec MultipartStream
+     * Les fichiers sont écrits une fois sur disque (StreamedMultipartFile), les champs
+     * texte sont lus avec une taille maximale. Le résultat est gardé dans la requête
+     * car le corps ne peut être lu qu'une seule fois ; il n'est réutilisé que pour les
+     * mêmes limites, une analyse faite avec d'autres limites ne les a pas appliquées.
+     * 
+     * @param request La requête HTTP multipart
+     * @param limits Les limites appliquées pendant la lecture
+     * @return Les champs et fichiers, plusieurs valeurs par nom si nécessaire
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object[]> getStreamedFormData(HttpServletRequest request, UploadLimits limits) 
+            throws IOException {
+        
+        Object cached = request.getAttribute(MULTIPART_DATA_ATTRIBUTE);
+        if (cached != null) {
+            if (!limits.equals(request.getAttribute(MULTIPART_LIMITS_ATTRIBUTE))) {
+                throw new IllegalStateException(
+                    "Corps multipart déjà analysé avec d'autres limites d'upload");
+            }
+            return (Map<String, Object[]>) cached;
+        }
+        request.setAttribute(MULTIPART_LIMITS_ATTRIBUTE, limits);
+        
+        Map<String, List<Object>> values = new LinkedHashMap<>();
+        List<StreamedMultipartFile> files = new ArrayList<>();
+        request.setAttribute(MULTIPART_FILES_ATTRIBUTE, files);
+        
+        File tempDir = getUploadTempDirectory(request);
+        UploadAdmission.admit(request, tempDir, limits);
+        MultipartStream multipartStream = MultipartStream.from(request, limits);
+        MultipartStream.StreamedPart part;
+        // Chaque fichier est traité pendant la lecture des parties suivantes
+        List<Future<?>> pending = new ArrayList<>();
+        boolean parsed = false;
+        try {
+            while ((part = multipartStream.nextPart()) != null) {
+                String paramName = part.getName();
+                if (paramName == null) continue;
+                
+                if (part.isFile()) {
+                    StreamedMultipartFile file = StreamedMultipartFile.spool(part, tempDir, limits.getMaxFileSize());
+                    files.add(file);
+                    values.computeIfAbsent(paramName, k -> new ArrayList<>()).add(file);
+                    if (UploadProcessingPool.hasProcessors()) {
+                        pending.add(UploadProcessingPool.submit(file));
+                    }
+                } else {
+                    String value = part.getString(MAX_MULTIPART_FIELD_SIZE);
+                    if (!value.isEmpty()) {
+                        values.computeIfAbsent(paramName, k -> new ArrayList<>()).add(value);
+                    }
+                }
+            }
+            parsed = true;
+        } catch (UploadRejectedException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new UploadRejectedException(400, "Corps multipart invalide: " + e.getMessage(), e);
+        } finally {
+            // Corps invalide ou rejeté : attendre les traitements en cours avant que
+            // releaseMultipartResources ne supprime les fichiers qu'ils lisent
+            if (!parsed) UploadProcessingPool.awaitQuietly(pending);
+        }
+        
+        UploadProcessingPool.awaitAll(pending);
+        
+        Map<String, Object[]> data = new HashMap<>();
+        for (Map.Entry<String, List<Object>> entry : values.entrySet()) {
+            List<Object> list = entry.getValue();
+            boolean allStrings = list.stream().allMatch(v -> v instanceof String);
+            data.put(entry.getKey(), allStrings ? list.toArray(new String[0]) : list.toArray());
+        }
+        request.setAttribute(MULTIPART_DATA_ATTRIBUTE, data);
+        return data;
+    }
+    
+    /**
+     * Supprime les fichiers temporaires créés par l'analyse multipart de la requête
+     * et rend son jeton d'admission d'upload
+     * À appeler à la fin du traitement de la requête
+     */
+    @SuppressWarnings("unchecked")
+    public static void releaseMultipartResources(HttpServletRequest request) {
+        UploadAdmission.release(request);
+        Object files = request.getAttribute(MULTIPART_FILES_ATTRIBUTE);
+        if (files != null) {
+            for (StreamedMultipartFile file : (List<StreamedMultipartFile>) files) {
+                file.delete();
+            }
+            request.removeAttribute(MULTIPART_FILES_ATTRIBUTE);
+        }
+    }
+    
+    /**
+     * Répertoire des fichiers reçus : upload.spoolDirectory, sinon le répertoire temporaire du conteneur
+     */
+    private File getUploadTempDirectory(HttpServletRequest request) {
+        if (uploadSpoolDirectory != null) {
+            return uploadSpoolDirectory;
+        }
+        Object tempDir = request.getServletContext().getAttribute(ServletContext.TEMPDIR);
+        if (tempDir instanceof File) {
+            return (File) tempDir;
+        }
+        return new File(System.getProperty("java.io.tmpdir"));
+    }
+    
     /**
      * Lit la valeur d'une Part (pour les paramètres non-fichiers)
      */
@@ -700,14 +1029,15 @@ public class MappingHelper {
      * Prépare un paramètre de session annoté avec @SessionParam
      * 
      * @param parameter Le paramètre Java
+     * @param sessionParam L'annotation @SessionParam du paramètre
      * @param parameterType Le type du paramètre
      * @param sessionId L'ID de session
      * @return La valeur du paramètre depuis la session
      */
     private Object prepareSessionParameter(java.lang.reflect.Parameter parameter, 
+                                          annotations.SessionParam sessionParam,
                                           Class<?> parameterType, 
                                           String sessionId) {
-        annotations.SessionParam sessionParam = parameter.getAnnotation(annotations.SessionParam.class);
         
         // Déterminer le nom de la clé en session
         String sessionKey = getSessionParameterName(parameter, sessionParam);
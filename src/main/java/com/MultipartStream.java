@@ -0,0 +1,421 @@
+package com;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Parseur multipart/form-data en flux, appartenant au framework
+ *
+ * Lit directement request.getInputStream() à travers un tampon de taille fixe
+ * (fenêtre glissante : seuls les octets pouvant encore contenir le début d'une
+ * frontière sont conservés entre deux lectures). Les parties sont parcourues
+ * une par une avec nextPart() ; le contenu de chaque partie est exposé comme un
+ * flux à usage unique, jamais chargé entièrement en mémoire.
+ *
+ * Un contrôleur peut recevoir directement un MultipartStream en paramètre pour
+ * traiter les fichiers au fil de l'eau (ex: upload de 50 Mo avec quelques Ko de heap).
+ */
+public class MultipartStream {
+
+    // Taille par défaut du tampon de lecture
+    public static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+
+    // Taille maximale du bloc d'en-têtes d'une partie
+    private static final int MAX_HEADER_SIZE = 8 * 1024;
+
+    private final InputStream in;
+    private final byte[] delimiter;  // "\r\n--" + boundary
+    private final byte[] buffer;
+    private final Charset charset;
+    private int pos;
+    private int limit;
+    private boolean eof;             // flux sous-jacent épuisé
+    private boolean finished;        // frontière finale "--boundary--" atteinte
+    private PartInputStream current; // partie en cours (ou préambule)
+
+    /**
+     * @param in Le flux du corps de la requête
+     * @param boundary La frontière déclarée dans le Content-Type
+     * @param charset L'encodage des champs texte et des en-têtes
+     * @param bufferSize La taille du tampon de lecture
+     */
+    public MultipartStream(InputStream in, String boundary, Charset charset, int bufferSize) {
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        this.buffer = new byte[Math.max(bufferSize, delimiter.length * 2 + 4)];
+        this.charset = charset;
+        // CRLF virtuel : la première frontière n'est pas précédée d'un saut de ligne
+        buffer[0] = '\r';
+        buffer[1] = '\n';
+        limit = 2;
+        // Le préambule (avant la première frontière) est traité comme une partie ignorée
+        current = new PartInputStream();
+    }
+
+    /**
+     * Crée un parseur sur le corps d'une requête multipart (limites globales)
+     *
+     * @throws IOException si la requête n'est pas multipart ou si la frontière est absente
+     */
+    public static MultipartStream from(HttpServletRequest request) throws IOException {
+        return from(request, UploadLimits.defaults());
+    }
+
+    /**
+     * Crée un parseur sur le corps d'une requête multipart
+     * La lecture échoue (UploadRejectedException, 413) dès que le corps dépasse maxRequestSize.
+     *
+     * @throws IOException si la requête n'est pas multipart ou si la frontière est absente
+     */
+    public static MultipartStream from(HttpServletRequest request, UploadLimits limits) throws IOException {
+        String boundary = extractBoundary(request.getContentType());
+        if (boundary == null) {
+            throw new IOException("Requête multipart sans boundary");
+        }
+        limits.checkContentLength(request);
+        String encoding = request.getCharacterEncoding();
+        Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+        return new MultipartStream(limits.limitRequestBody(request.getInputStream()),
+                                   boundary, charset, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Extrait le paramètre boundary d'un Content-Type multipart
+     */
+    static String extractBoundary(String contentType) {
+        if (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("multipart/")) {
+            return null;
+        }
+        String value = parseHeaderParameters(contentType).get("boundary");
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Passe à la partie suivante
+     * Le contenu non lu de la partie précédente est ignoré (sans être mis en mémoire).
+     *
+     * @return La partie suivante, ou null quand la frontière finale est atteinte
+     */
+    public StreamedPart nextPart() throws IOException {
+        if (finished) return null;
+
+        current.skipRemaining();
+
+        // Après une frontière : "--" (fin) ou CRLF (partie suivante)
+        if (!ensure(2)) {
+            throw new IOException("Fin de flux inattendue après une frontière multipart");
+        }
+        if (buffer[pos] == '-' && buffer[pos + 1] == '-') {
+            finished = true;
+            return null;
+        }
+        // Ignore un éventuel "transport padding" (espaces) avant CRLF
+        while (ensure(1) && (buffer[pos] == ' ' || buffer[pos] == '\t')) {
+            pos++;
+        }
+        if (!ensure(2) || buffer[pos] != '\r' || buffer[pos + 1] != '\n') {
+            throw new IOException("Frontière multipart mal formée");
+        }
+        pos += 2;
+
+        Map<String, String> headers = readHeaders();
+        Map<String, String> disposition = parseHeaderParameters(headers.get("content-disposition"));
+        current = new PartInputStream();
+        return new StreamedPart(disposition.get("name"), disposition.get("filename"),
+                                headers.get("content-type"), headers, current);
+    }
+
+    // =====================================================
+    // LECTURE DU TAMPON
+    // =====================================================
+
+    /**
+     * Garantit qu'au moins n octets sont disponibles dans le tampon
+     *
+     * @return false si le flux se termine avant
+     */
+    private boolean ensure(int n) throws IOException {
+        while (limit - pos < n && !eof) {
+            fill();
+        }
+        return limit - pos >= n;
+    }
+
+    /**
+     * Compacte le tampon puis lit de nouveaux octets depuis le flux
+     */
+    private void fill() throws IOException {
+        if (pos > 0) {
+            System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read == -1) {
+            eof = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    /**
+     * Cherche la frontière dans le tampon à partir de pos
+     *
+     * @return l'index de la frontière ou -1
+     */
+    private int indexOfDelimiter() {
+        int last = limit - delimiter.length;
+        byte first = delimiter[0];
+        outer:
+        for (int i = pos; i <= last; i++) {
+            if (buffer[i] != first) continue;
+            for (int j = 1; j < delimiter.length; j++) {
+                if (buffer[i + j] != delimiter[j]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Lit le bloc d'en-têtes d'une partie (jusqu'à la ligne vide)
+     * Les noms d'en-têtes sont mis en minuscules.
+     */
+    private Map<String, String> readHeaders() throws IOException {
+        Map<String, String> headers = new HashMap<>();
+        ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+        int total = 0;
+
+        while (true) {
+            if (!ensure(1)) {
+                throw new IOException("Fin de flux inattendue dans les en-têtes multipart");
+            }
+            byte b = buffer[pos++];
+            if (++total > MAX_HEADER_SIZE) {
+                throw new IOException("En-têtes multipart trop volumineux");
+            }
+            if (b == '\n') {
+                int length = line.size();
+                if (length > 0 && line.toByteArray()[length - 1] == '\r') {
+                    length--;
+                }
+                if (length == 0) {
+                    return headers;
+                }
+                String header = new String(line.toByteArray(), 0, length, charset);
+                int colon = header.indexOf(':');
+                if (colon > 0) {
+                    headers.put(header.substring(0, colon).trim().toLowerCase(Locale.ROOT),
+                                header.substring(colon + 1).trim());
+                }
+                line.reset();
+            } else {
+                line.write(b);
+            }
+        }
+    }
+
+    /**
+     * Parse les paramètres d'un en-tête (ex: form-data; name="a"; filename="b.txt")
+     * Les noms de paramètres sont mis en minuscules.
+     */
+    static Map<String, String> parseHeaderParameters(String header) {
+        if (header == null) return Collections.emptyMap();
+
+        Map<String, String> params = new HashMap<>();
+        int i = header.indexOf(';');
+        while (i >= 0 && i < header.length()) {
+            i++;
+            int eq = header.indexOf('=', i);
+            if (eq < 0) break;
+            String name = header.substring(i, eq).trim().toLowerCase(Locale.ROOT);
+            int start = eq + 1;
+            String value;
+            if (start < header.length() && header.charAt(start) == '"') {
+                // Valeur entre guillemets (les \" sont échappés)
+                StringBuilder sb = new StringBuilder();
+                int j = start + 1;
+                while (j < header.length() && header.charAt(j) != '"') {
+                    char c = header.charAt(j);
+                    if (c == '\\' && j + 1 < header.length()) {
+                        c = header.charAt(++j);
+                    }
+                    sb.append(c);
+                    j++;
+                }
+                value = sb.toString();
+                i = header.indexOf(';', j);
+            } else {
+                int end = header.indexOf(';', start);
+                value = (end < 0 ? header.substring(start) : header.substring(start, end)).trim();
+                i = end;
+            }
+            params.put(name, value);
+        }
+        return params;
+    }
+
+    // =====================================================
+    // PARTIES
+    // =====================================================
+
+    /**
+     * Flux à usage unique sur le contenu d'une partie
+     * Se termine (retourne -1) à la frontière suivante.
+     */
+    private final class PartInputStream extends InputStream {
+        private boolean done;
+        private final byte[] single = new byte[1];
+
+        @Override
+        public int read() throws IOException {
+            int n = read(single, 0, 1);
+            return n == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            int available = nextSegment();
+            if (available == -1) return -1;
+            int count = Math.min(available, len);
+            System.arraycopy(buffer, pos, b, off, count);
+            pos += count;
+            return count;
+        }
+
+        /**
+         * Écrit le reste de la partie directement depuis le tampon du parseur
+         * (aucune copie intermédiaire)
+         */
+        @Override
+        public long transferTo(OutputStream out) throws IOException {
+            long transferred = 0;
+            int available;
+            while ((available = nextSegment()) != -1) {
+                out.write(buffer, pos, available);
+                pos += available;
+                transferred += available;
+            }
+            return transferred;
+        }
+
+        /**
+         * Nombre d'octets de la partie lisibles à partir de pos, -1 à la fin de la partie
+         */
+        private int nextSegment() throws IOException {
+            if (done) return -1;
+            while (true) {
+                int index = indexOfDelimiter();
+                if (index == pos) {
+                    pos += delimiter.length;
+                    done = true;
+                    return -1;
+                }
+                if (index > pos) {
+                    return index - pos;
+                }
+                // Les derniers octets peuvent être le début de la frontière : on les garde
+                int safe = limit - pos - (delimiter.length - 1);
+                if (safe > 0) {
+                    return safe;
+                }
+                if (eof) {
+                    throw new IOException("Fin de flux inattendue dans une partie multipart");
+                }
+                fill();
+            }
+        }
+
+        void skipRemaining() throws IOException {
+            int available;
+            while ((available = nextSegment()) != -1) {
+                pos += available;
+            }
+        }
+    }
+
+    /**
+     * Partie d'un corps multipart
+     * Le contenu ne peut être lu qu'une seule fois, et uniquement avant l'appel
+     * suivant à nextPart().
+     */
+    public final class StreamedPart {
+        private final String name;
+        private final String submittedFileName;
+        private final String contentType;
+        private final Map<String, String> headers;
+        private final PartInputStream content;
+        private boolean consumed;
+
+        StreamedPart(String name, String submittedFileName, String contentType,
+                     Map<String, String> headers, PartInputStream content) {
+            this.name = name;
+            this.submittedFileName = submittedFileName;
+            this.contentType = contentType;
+            this.headers = headers;
+            this.content = content;
+        }
+
+        public String getName() { return name; }
+        public String getSubmittedFileName() { return submittedFileName; }
+        public String getContentType() { return contentType; }
+
+        /**
+         * @param name Nom de l'en-tête (insensible à la casse)
+         */
+        public String getHeader(String name) {
+            return headers.get(name.toLowerCase(Locale.ROOT));
+        }
+
+        /**
+         * Indique si la partie est un fichier (nom de fichier non vide)
+         */
+        public boolean isFile() {
+            return submittedFileName != null && !submittedFileName.isEmpty();
+        }
+
+        /**
+         * Retourne le flux à usage unique du contenu de la partie
+         *
+         * @throws IllegalStateException si le flux a déjà été demandé
+         */
+        public InputStream getInputStream() {
+            if (consumed) {
+                throw new IllegalStateException("Le contenu de la partie '" + name + "' a déjà été lu");
+            }
+            consumed = true;
+            return content;
+        }
+
+        /**
+         * Lit le contenu d'un champ texte
+         *
+         * @param maxBytes Taille maximale acceptée
+         * @throws IOException si le champ dépasse maxBytes
+         */
+        public String getString(int maxBytes) throws IOException {
+            InputStream input = getInputStream();
+            ByteArrayOutputStream value = new ByteArrayOutputStream(64);
+            byte[] chunk = new byte[512];
+            int read;
+            while ((read = input.read(chunk)) != -1) {
+                if (value.size() + read > maxBytes) {
+                    throw new IOException("Champ multipart '" + name + "' trop volumineux (max " + maxBytes + " octets)");
+                }
+                value.write(chunk, 0, read);
+            }
+            return value.toString(charset.name());
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com;
+
+/**
+ * Normalisation du chemin de la requête avant le routage, en une seule passe
+ *
+ * - décodage des %XX (UTF-8) ; %2F reste tel quel pour ne pas créer de segment
+ * - slashs multiples fusionnés, slash final retiré
+ * - segments "." supprimés, ".." retire le segment précédent (jamais au-dessus de la racine)
+ *
+ * La plupart des chemins n'ont rien à normaliser : needsNormalization() le vérifie
+ * sans rien allouer et le routage travaille alors sur l'URI brute. Sinon le chemin
+ * est réécrit dans le tampon de RequestContext et une seule String en sort.
+ * Une séquence %XX invalide (hexadécimal ou UTF-8) est recopiée sans être décodée.
+ */
+final class PathNormalizer {
+
+    private PathNormalizer() {
+    }
+
+    /**
+     * Vrai si le chemin (à partir de from) contient un %, un slash double ou final,
+     * ou un segment "." ou ".."
+     */
+    static boolean needsNormalization(String path, int from) {
+        int end = path.length();
+        for (int i = from; i < end; i++) {
+            char c = path.charAt(i);
+            if (c == '%') return true;
+            if (c != '/') continue;
+            if (i + 1 == end) return i > from;
+            char next = path.charAt(i + 1);
+            if (next == '/') return true;
+            if (next == '.' && isDotSegment(path, i + 1, end)) return true;
+        }
+        return false;
+    }
+
+    // "." ou ".." commençant en start et suivi d'un slash ou de la fin
+    private static boolean isDotSegment(String path, int start, int end) {
+        int after = start + 1;
+        if (after < end && path.charAt(after) == '.') after++;
+        return after == end || path.charAt(after) == '/';
+    }
+
+    /**
+     * Chemin normalisé, toujours avec un slash initial ("/" pour un chemin vide)
+     *
+     * @param path Le chemin (ou l'URI complète)
+     * @param from Début du chemin dans path (longueur du chemin de contexte)
+     * @param context Fournit le tampon de caractères réutilisé
+     */
+    static String normalize(String path, int from, RequestContext context) {
+        int end = path.length();
+        // Le décodage ne rallonge jamais : au plus un slash initial ajouté
+        char[] out = context.pathBuffer(end - from + 1);
+        int n = 0;
+        int i = from;
+        while (i < end) {
+            if (path.charAt(i) == '/') {
+                i++;
+                continue;
+            }
+
+            int segmentStart = n;
+            out[n++] = '/';
+            while (i < end) {
+                char c = path.charAt(i);
+                if (c == '/') break;
+                if (c != '%') {
+                    out[n++] = c;
+                    i++;
+                    continue;
+                }
+                // Suite de %XX (hors %2F) décodée d'un bloc : un caractère UTF-8 peut en occuper plusieurs
+                int runEnd = i;
+                while (runEnd + 2 < end && path.charAt(runEnd) == '%'
+                        && hex(path.charAt(runEnd + 1)) >= 0 && hex(path.charAt(runEnd + 2)) >= 0
+                        && !isEncodedSlash(path, runEnd)) {
+                    runEnd += 3;
+                }
+                if (runEnd == i) {
+                    out[n++] = c;
+                    i++;
+                    continue;
+                }
+                int decoded = decodeUtf8(path, i, runEnd, out, n);
+                if (decoded < 0) {
+                    path.getChars(i, runEnd, out, n);
+                    n += runEnd - i;
+                } else {
+                    n = decoded;
+                }
+                i = runEnd;
+            }
+
+            int length = n - segmentStart - 1;
+            if (length == 1 && out[segmentStart + 1] == '.') {
+                n = segmentStart;
+            } else if (length == 2 && out[segmentStart + 1] == '.' && out[segmentStart + 2] == '.') {
+                n = segmentStart;
+                while (n > 0 && out[--n] != '/') {
+                    // remonte jusqu'au début du segment précédent
+                }
+            }
+        }
+        return n == 0 ? "/" : new String(out, 0, n);
+    }
+
+    private static boolean isEncodedSlash(String path, int percent) {
+        return path.charAt(percent + 1) == '2' && (path.charAt(percent + 2) | 0x20) == 'f';
+    }
+
+    private static int hex(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+        return -1;
+    }
+
+    // Octet codé par le %XX qui commence en percent
+    private static int byteAt(String path, int percent) {
+        return (hex(path.charAt(percent + 1)) << 4) | hex(path.charAt(percent + 2));
+    }
+
+    /**
+     * Décode en UTF-8 les %XX de path[start, end) dans out à partir de n
+     *
+     * @return La nouvelle position dans out, ou -1 si les octets ne sont pas de l'UTF-8 valide
+     */
+    private static int decodeUtf8(String path, int start, int end, char[] out, int n) {
+        int p = start;
+        while (p < end) {
+            int b = byteAt(path, p);
+            p += 3;
+            if (b < 0x80) {
+                out[n++] = (char) b;
+                continue;
+            }
+            int extra;
+            int codePoint;
+            int min;
+            if ((b & 0xe0) == 0xc0) {
+                extra = 1;
+                codePoint = b & 0x1f;
+                min = 0x80;
+            } else if ((b & 0xf0) == 0xe0) {
+                extra = 2;
+                codePoint = b & 0x0f;
+                min = 0x800;
+            } else if ((b & 0xf8) == 0xf0) {
+                extra = 3;
+                codePoint = b & 0x07;
+                min = 0x10000;
+            } else {
+                return -1;
+            }
+            if (p + extra * 3 > end) return -1;
+            for (int k = 0; k < extra; k++) {
+                int next = byteAt(path, p);
+                p += 3;
+                if ((next & 0xc0) != 0x80) return -1;
+                codePoint = (codePoint << 6) | (next & 0x3f);
+            }
+            // Formes trop longues, demi-paires de substitution et valeurs hors Unicode refusées
+            if (codePoint < min || codePoint > Character.MAX_CODE_POINT
+                    || (codePoint >= 0xd800 && codePoint <= 0xdfff)) {
+                return -1;
+            }
+            n += Character.toChars(codePoint, out, n);
+        }
+        return n;
+    }
+}
@@ -0,0 +1,189 @@
+package com;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * Flux d'octets en mémoire dont le tableau vient de BufferPool
+ *
+ * Il grandit en passant à la classe de taille suivante ; release() rend le tableau
+ * au pool. Le texte peut y être encodé directement en UTF-8 (writeUtf8, utf8Writer)
+ * sans passer par un CharsetEncoder ni par un tableau intermédiaire.
+ */
+public class PooledByteOutput extends OutputStream {
+
+    private byte[] buffer;
+    private int count;
+    // Demi-paire de substitution en attente de sa seconde moitié (0 si aucune)
+    private char pendingHighSurrogate;
+
+    public PooledByteOutput() {
+        this(2 * 1024);
+    }
+
+    public PooledByteOutput(int initialSize) {
+        this.buffer = BufferPool.acquire(initialSize);
+    }
+
+    private void ensureCapacity(int additional) {
+        int required = count + additional;
+        if (required <= buffer.length) return;
+        if (required < 0) {
+            throw new OutOfMemoryError("Corps de réponse trop grand");
+        }
+        byte[] larger = BufferPool.acquire(Math.max(required, buffer.length * 2));
+        System.arraycopy(buffer, 0, larger, 0, count);
+        BufferPool.release(buffer);
+        buffer = larger;
+    }
+
+    @Override
+    public void write(int b) {
+        ensureCapacity(1);
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        ensureCapacity(len);
+        System.arraycopy(b, off, buffer, count, len);
+        count += len;
+    }
+
+    /**
+     * Encode des caractères en UTF-8 directement dans le tableau
+     * Une paire de substitution coupée entre deux appels est recollée ;
+     * une demi-paire isolée devient '?'.
+     */
+    public void writeUtf8(CharSequence text, int start, int end) {
+        if (start >= end) return;
+        ensureCapacity(end - start + 4);
+        byte[] b = buffer;
+        int n = count;
+        if (pendingHighSurrogate != 0) {
+            char low = text.charAt(start);
+            if (Character.isLowSurrogate(low)) {
+                n = writeCodePoint(b, n, Character.toCodePoint(pendingHighSurrogate, low));
+                start++;
+            } else {
+                b[n++] = '?';
+            }
+            pendingHighSurrogate = 0;
+        }
+        for (int i = start; i < end; i++) {
+            if (n + 4 > b.length) {
+                // Place pour au moins un caractère de plus (4 octets au plus) et le reste en ASCII
+                count = n;
+                ensureCapacity(4 + end - i);
+                b = buffer;
+            }
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                b[n++] = (byte) c;
+            } else if (c < 0x800) {
+                b[n++] = (byte) (0xc0 | (c >> 6));
+                b[n++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+                n = writeCodePoint(b, n, Character.toCodePoint(c, text.charAt(++i)));
+            } else if (Character.isHighSurrogate(c) && i + 1 == end) {
+                pendingHighSurrogate = c;
+            } else if (Character.isSurrogate(c)) {
+                b[n++] = '?';
+            } else {
+                b[n++] = (byte) (0xe0 | (c >> 12));
+                b[n++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                b[n++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        count = n;
+    }
+
+    private static int writeCodePoint(byte[] b, int n, int codePoint) {
+        b[n++] = (byte) (0xf0 | (codePoint >> 18));
+        b[n++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+        b[n++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+        b[n++] = (byte) (0x80 | (codePoint & 0x3f));
+        return n;
+    }
+
+    public void writeUtf8(CharSequence text) {
+        writeUtf8(text, 0, text.length());
+    }
+
+    /**
+     * Writer qui encode en UTF-8 directement dans ce flux
+     */
+    public Writer utf8Writer() {
+        return new Writer() {
+            @Override
+            public void write(int c) {
+                if (c < 0x80 && pendingHighSurrogate == 0) {
+                    PooledByteOutput.this.write(c);
+                } else {
+                    writeUtf8(String.valueOf((char) c), 0, 1);
+                }
+            }
+
+            @Override
+            public void write(char[] chars, int off, int len) {
+                writeUtf8(CharBuffer.wrap(chars), off, off + len);
+            }
+
+            @Override
+            public void write(String text, int off, int len) {
+                writeUtf8(text, off, off + len);
+            }
+
+            @Override
+            public Writer append(CharSequence text) {
+                CharSequence value = text != null ? text : "null";
+                writeUtf8(value, 0, value.length());
+                return this;
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /** Tableau interne (les size() premiers octets sont utiles) */
+    public byte[] array() {
+        return buffer;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public void reset() {
+        count = 0;
+        pendingHighSurrogate = 0;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, count);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, count);
+    }
+
+    /**
+     * Rend le tableau au pool ; le flux ne doit plus servir ensuite
+     */
+    public void release() {
+        if (buffer != null) {
+            BufferPool.release(buffer);
+            buffer = null;
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com;
+
+import java.io.IOException;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Redirection déjà résolue : statut et en-tête Location prêts à écrire
+ *
+ * La servlet en garde une par route. Tant que la méthode renvoie la même chaîne
+ * (un littéral du code, donc la même instance à chaque appel) et le même statut,
+ * la cible est réutilisée : ni substring, ni préfixe, ni concaténation du contexte.
+ * Une route dont l'URL varie est marquée NOT_CONSTANT et n'est plus mise en cache.
+ */
+final class RedirectTarget {
+
+    // Marqueur d'une route qui a renvoyé plusieurs URL : ne correspond à aucune redirection
+    static final RedirectTarget NOT_CONSTANT = new RedirectTarget(null, -1, null);
+
+    private final String source;
+    private final int status;
+    private final String location;
+
+    RedirectTarget(String source, int status, String location) {
+        this.source = source;
+        this.status = status;
+        this.location = location;
+    }
+
+    /**
+     * Vrai si cette cible a été calculée à partir de cette chaîne (même instance) et de ce statut
+     */
+    boolean matches(String redirectSource, int redirectStatus) {
+        return source == redirectSource && status == redirectStatus;
+    }
+
+    /**
+     * Construit l'en-tête Location : URL externe telle quelle, sinon préfixée par le contexte
+     *
+     * @param redirectUrl L'URL de la View (voir View.getRedirectUrl())
+     */
+    static String toLocation(String contextPath, String redirectUrl) {
+        if (redirectUrl.startsWith("http://") || redirectUrl.startsWith("https://")) {
+            return redirectUrl;
+        }
+        return redirectUrl.startsWith("/") ? contextPath + redirectUrl : contextPath + "/" + redirectUrl;
+    }
+
+    /**
+     * Écrit le statut et Location, sans corps
+     */
+    void send(HttpServletResponse response) throws IOException {
+        if (response instanceof CapturingResponse) {
+            ((CapturingResponse) response).redirect(status, location);
+            return;
+        }
+        response.setStatus(status);
+        response.setHeader("Location", location);
+        response.setContentLength(0);
+        response.flushBuffer();
+    }
+
+    String getLocation() {
+        return location;
+    }
+
+    int getStatus() {
+        return status;
+    }
+}
@@ -1,18 +1,25 @@
 package com;
 
+import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Method;
+import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-import com.MappingHelper.MethodMatchResult;
 import com.google.gson.Gson;
 
+import annotations.Cacheable;
 import annotations.Controller;
+import jakarta.servlet.ServletContext;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.MultipartConfig;
 import jakarta.servlet.annotation.WebServlet;
@@ -22,8 +29,11 @@ import jakarta.servlet.http.HttpServletResponse;
 import lookup.AnnotationAnalyzer;
 import lookup.AnnotationAnalyzer.AnnotationAnalysisResult;
 import lookup.ClassScanner;
+import lookup.HandlerPlan;
 import lookup.MappingAnalyzer;
 import lookup.MappingAnalyzer.MappedMethod;
+import lookup.RouteIndex;
+import lookup.RouteReloader;
 import model.View;
 
 /**
@@ -35,10 +45,13 @@ import model.View;
  * - L'affichage HTML à HomePageRenderer
  */
 @WebServlet(name = "RedirectionServlet", urlPatterns = { "/" })
+// Plafond du conteneur : borne getParameter/getParts, ${param} des JSP et les filtres.
+// Le parseur en flux n'y est pas soumis ; avec multipart.parser=container, les UploadLimits
+// (init-params et @UploadLimit) ne peuvent pas le dépasser
 @MultipartConfig(
-    maxFileSize = 1024 * 1024 * 10,      // 10MB max file size
-    maxRequestSize = 1024 * 1024 * 50,   // 50MB max request size
-    fileSizeThreshold = 1024 * 1024      // 1MB avant écriture sur disque
+    fileSizeThreshold = 1024 * 1024,                        // 1MB avant écriture sur disque
+    maxFileSize = UploadLimits.CONTAINER_MAX_FILE_SIZE,
+    maxRequestSize = UploadLimits.CONTAINER_MAX_REQUEST_SIZE
 )
 public class RedirectionServlet extends HttpServlet {
 
@@ -46,12 +59,26 @@ public class RedirectionServlet extends HttpServlet {
     // Maps pour les sessions
     private Map<String, Object> Session = new HashMap<>();
 
-    // Maps et listes pour stocker les mappings
-    private Map<String, MappedMethod> urlMethodMap = new HashMap<>();
-    private List<MappedMethod> dynamicUrlMethods = new ArrayList<>();
-    private List<Class<?>> allClasses;
+    // Table de routage immuable, remplacée en bloc lors d'un rechargement (mode développement)
+    private volatile RouteTable routeTable = RouteTable.empty();
     private AnnotationAnalysisResult analysisResult;
     
+    // Cache des réponses @Cacheable (null si désactivé par cache.maxSize=0)
+    private ResponseCache responseCache;
+    
+    // Résolution des JSP mise en cache, et moteur des vues .tpl
+    private ViewResolver viewResolver;
+    private TemplateEngine templateEngine;
+    
+    // Première redirection résolue par route (réutilisée tant que l'URL est une constante),
+    // ou RedirectTarget.NOT_CONSTANT si la route a déjà renvoyé une autre URL
+    private final ConcurrentHashMap<HandlerPlan, RedirectTarget> redirectTargets = new ConcurrentHashMap<>();
+    
+    // Surveillance de WEB-INF/classes et des JSP en mode développement (null sinon)
+    private DevWatcher classesWatcher;
+    private RouteReloader routeReloader;
+    private DevWatcher viewsWatcher;
+    
     // Classes helper pour déléguer les opérations
     private MappingHelper mappingHelper;
     private HomePageRenderer homePageRenderer;    
@@ -75,28 +102,258 @@ public class RedirectionServlet extends HttpServlet {
             AnnotationAnalyzer annotationAnalyzer = new AnnotationAnalyzer();
             MappingAnalyzer mappingAnalyzer = new MappingAnalyzer();
             
-            // Scan de toutes les classes dans WEB-INF/classes
-            allClasses = classScanner.getAllClassesFromWebInfClasses();
+            // Index générés à la compilation (RouteIndexProcessor), fusionnés sur tout le classpath
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            RouteIndex routeIndex = RouteIndex.load(classLoader);
+            boolean lazyRoutes = Boolean.parseBoolean(getConfigParameter("routes.lazy", "false"));
             
-            // Analyse des classes avec l'annotation @Controller
-            analysisResult = annotationAnalyzer.analyzeClasses(allClasses, Controller.class);
+            // Scan de WEB-INF/classes et WEB-INF/lib par lecture du bytecode, limité aux emplacements
+            // sans index (tout, s'il n'y en a aucun) ; seules les classes @Controller et @Entity
+            // sont chargées (sans exécuter leurs initialiseurs)
+            classScanner.setIndexFile(getScanIndexFile());
+            // Packages à scanner, séparés par des virgules (ex: "com.app,org.module")
+            String scanPackages = getConfigParameter("scan.packages", "");
+            classScanner.setPackagePrefixes(Arrays.asList(scanPackages.split(",")));
+            if (routeIndex != null) {
+                classScanner.setSkippedLocations(routeIndex.getLocations());
+            }
+            ClassScanner.ScanResult scanResult =
+                classScanner.scanWebInfClasses(Controller.class, annotations.Entity.class);
+            List<Class<?>> scannedControllers = scanResult.getAnnotatedClasses(Controller.class);
+            List<Class<?>> entities = new ArrayList<>(scanResult.getAnnotatedClasses(annotations.Entity.class));
+            List<MappedMethod> mappedMethods =
+                flatten(mappingAnalyzer.analyzeMethodMappings(scannedControllers));
             
-            // Analyse des classes avec l'annotation @Entity
-            AnnotationAnalyzer.AnnotationAnalysisResult entityResult = 
-                annotationAnalyzer.analyzeClasses(allClasses, annotations.Entity.class);
+            if (routeIndex == null) {
+                analysisResult = annotationAnalyzer.analyzeScan(scanResult, Controller.class);
+            } else if (lazyRoutes) {
+                // Mode paresseux : seules les routes indexées sont enregistrées, chaque contrôleur est
+                // chargé et son plan d'appel compilé à la première requête qui le vise
+                entities.addAll(RouteIndex.loadClasses(routeIndex.getEntities(), classLoader));
+                analysisResult = new AnnotationAnalysisResult(new ArrayList<>(scannedControllers),
+                    routeIndex.getControllers().size() + routeIndex.getEntities().size()
+                        + scanResult.getScannedCount(), Controller.class);
+                mappedMethods.addAll(mappingAnalyzer.registerRouteIndex(routeIndex, classLoader));
+            } else {
+                List<Class<?>> controllers = RouteIndex.loadClasses(routeIndex.getControllers(), classLoader);
+                entities.addAll(RouteIndex.loadClasses(routeIndex.getEntities(), classLoader));
+                mappedMethods.addAll(flatten(mappingAnalyzer.analyzeRouteIndex(routeIndex, classLoader)));
+                controllers.addAll(scannedControllers);
+                analysisResult = new AnnotationAnalysisResult(controllers,
+                    routeIndex.getControllers().size() + routeIndex.getEntities().size()
+                        + scanResult.getScannedCount(), Controller.class);
+            }
             
             // Cache les entités pour référence rapide
-            cacheEntities(entityResult.getAnnotatedClasses());
+            cacheEntities(entities);
             
             // Construction des mappings URL -> Méthode
-            buildMethodMappings(mappingAnalyzer, allClasses);
+            routeTable = RouteTable.build(mappedMethods);
+            
+            // Cache des réponses @Cacheable, borné en octets (16 Mo par défaut, 0 = désactivé)
+            long cacheMaxSize = Long.parseLong(getConfigParameter("cache.maxSize", String.valueOf(16L * 1024 * 1024)).trim());
+            responseCache = cacheMaxSize > 0 ? new ResponseCache(cacheMaxSize) : null;
+            
+            // Compression gzip / deflate des réponses (niveau modifiable par route avec @Compress)
+            ResponseCompression.configure(
+                Boolean.parseBoolean(getConfigParameter("compression.enabled", "true")),
+                Integer.parseInt(getConfigParameter("compression.minSize", "1024").trim()),
+                Integer.parseInt(getConfigParameter("compression.level", "6").trim()));
+            
+            // Corps retenus en mémoire pour l'ETag, la compression et le cache (1 Mo par défaut) :
+            // au-delà, la réponse est envoyée au fil de l'eau, sans ETag ni mise en cache
+            CapturingResponse.setMaxBufferedSize(Integer.parseInt(
+                getConfigParameter("response.bufferMaxSize", String.valueOf(1024 * 1024)).trim()));
+            
+            // Vues JSP : toutes résolues au démarrage, puis servies depuis le cache
+            viewResolver = new ViewResolver(getServletContext());
+            // Fragments {{#cache}} des vues .tpl, bornés en octets (4 Mo par défaut, 0 = désactivé)
+            templateEngine = new TemplateEngine(getServletContext(), Long.parseLong(
+                getConfigParameter("cache.fragmentMaxSize", String.valueOf(4L * 1024 * 1024)).trim()));
+            System.out.println("Vues JSP résolues: " + viewResolver.warmUp());
+            
+            // Mode développement : rechargement des routes quand WEB-INF/classes change,
+            // et du cache des vues quand une JSP change
+            if (Boolean.parseBoolean(getConfigParameter("dev.mode", "false"))) {
+                startClassesWatcher(classLoader);
+                startViewsWatcher();
+            }
+            
+            // Parseur multipart : "streaming" (framework, par défaut) ou "container" (getParts)
+            mappingHelper.setStreamingMultipart(
+                !"container".equalsIgnoreCase(getConfigParameter("multipart.parser", "streaming")));
+            
+            // Stockage des uploads : "unique" (un fichier par upload) ou "content-addressed"
+            if ("content-addressed".equalsIgnoreCase(getConfigParameter("upload.storage", "unique"))) {
+                FileUploadUtil.setStorageMode(FileUploadUtil.StorageMode.CONTENT_ADDRESSED);
+            }
+            
+            // Répertoire de réception des fichiers : à placer sur le système de fichiers du
+            // stockage pour que l'enregistrement soit un renommage (défaut : temporaire du conteneur)
+            String spoolDirectory = getConfigParameter("upload.spoolDirectory", null);
+            if (spoolDirectory != null && !spoolDirectory.isBlank()) {
+                mappingHelper.setUploadSpoolDirectory(new File(spoolDirectory.trim()));
+            }
+            
+            // Limites et admission des uploads (les limites peuvent être surchargées par @UploadLimit)
+            configureUploads();
             
+            // Traitement parallèle des fichiers uploadés par les UploadPartProcessor enregistrés
+            // (0 = séquentiel ; sans traitement enregistré, le pool reste inutilisé)
+            int uploadThreads = Integer.parseInt(getConfigParameter("upload.parallelism", "0").trim());
+            if (uploadThreads > 0) {
+                int queueCapacity = Integer.parseInt(
+                    getConfigParameter("upload.queueCapacity", String.valueOf(uploadThreads * 4)).trim());
+                UploadProcessingPool.configure(uploadThreads, queueCapacity);
+            }
+            
+            // Configuration des sessions
+            configureSessions();
+            String touchInterval = getConfigParameter("session.touchInterval", null);
+            if (touchInterval != null) {
+                SessionManager.setTouchInterval(Long.parseLong(touchInterval.trim()));
+            }
                         
         } catch (Exception e) {
             throw new ServletException("Erreur lors de l'initialisation du scan des contrôleurs", e);
         }
     }
 
+    /**
+     * Libère les ressources du framework à l'arrêt de l'application
+     */
+    @Override
+    public void destroy() {
+        for (DevWatcher watcher : new DevWatcher[] { classesWatcher, viewsWatcher }) {
+            if (watcher == null) continue;
+            try {
+                watcher.close();
+            } catch (IOException e) {
+                System.err.println("Erreur à l'arrêt de la surveillance des fichiers: " + e.getMessage());
+            }
+        }
+        if (routeReloader != null) {
+            routeReloader.close();
+        }
+        UploadProcessingPool.shutdown();
+        super.destroy();
+    }
+
+    /**
+     * Surveille WEB-INF/classes et remplace la table de routage à chaque modification
+     * Seules les classes modifiées sont relues, dans un nouveau ClassLoader ; la nouvelle
+     * table est publiée d'un bloc, les requêtes en cours gardent l'ancienne.
+     */
+    private void startClassesWatcher(ClassLoader classLoader) throws Exception {
+        URL classesUrl = classLoader.getResource("");
+        if (classesUrl == null || !"file".equals(classesUrl.getProtocol())) {
+            System.err.println("Mode développement : WEB-INF/classes introuvable, pas de rechargement");
+            return;
+        }
+        Path classesDir = Paths.get(classesUrl.toURI());
+        RouteReloader reloader = new RouteReloader(classesDir, classLoader, routeTable.getAllRoutes());
+        routeReloader = reloader;
+        classesWatcher = DevWatcher.start(classesDir, changedFiles -> {
+            try {
+                long start = System.nanoTime();
+                routeTable = RouteTable.build(reloader.reload(changedFiles));
+                if (responseCache != null) {
+                    responseCache.clear();
+                }
+                templateEngine.clearFragments();
+                redirectTargets.clear();
+                System.out.println("Routes rechargées en " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            } catch (IOException e) {
+                System.err.println("Échec du rechargement des routes: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Surveille les JSP de l'application et vide le cache des vues quand elles changent
+     */
+    private void startViewsWatcher() throws IOException {
+        String webRoot = getServletContext().getRealPath("/");
+        if (webRoot == null) {
+            System.err.println("Mode développement : application non dépliée, pas de rechargement des vues");
+            return;
+        }
+        viewsWatcher = DevWatcher.start(Paths.get(webRoot), changedFiles -> {
+            viewResolver.invalidate(changedFiles);
+            templateEngine.invalidate(changedFiles);
+        });
+    }
+
+    /**
+     * Fichier d'index du scan des classes, dans le répertoire temporaire du conteneur
+     */
+    private File getScanIndexFile() {
+        Object tempDir = getServletContext().getAttribute(ServletContext.TEMPDIR);
+        if (tempDir instanceof File) {
+            return new File((File) tempDir, "framework-scan.idx");
+        }
+        return null;
+    }
+
+    /**
+     * Lit un paramètre de configuration : d'abord dans les init-param du servlet,
+     * puis dans les context-param de l'application
+     * 
+     * @param name Le nom du paramètre
+     * @param defaultValue La valeur si le paramètre est absent
+     * @return La valeur du paramètre ou defaultValue
+     */
+    private String getConfigParameter(String name, String defaultValue) {
+        String value = getInitParameter(name);
+        if (value == null) {
+            value = getServletContext().getInitParameter(name);
+        }
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * Configure les limites globales d'upload et le contrôle d'admission
+     * - upload.maxFileSize / upload.maxRequestSize : limites en octets
+     * - upload.maxConcurrent : nombre d'uploads simultanés (0 = illimité)
+     * - upload.minFreeDiskSpace : espace libre minimal à conserver, en octets
+     */
+    private void configureUploads() {
+        UploadLimits defaults = UploadLimits.defaults();
+        long maxFileSize = Long.parseLong(
+            getConfigParameter("upload.maxFileSize", String.valueOf(defaults.getMaxFileSize())).trim());
+        long maxRequestSize = Long.parseLong(
+            getConfigParameter("upload.maxRequestSize", String.valueOf(defaults.getMaxRequestSize())).trim());
+        UploadLimits.setDefaults(new UploadLimits(maxFileSize, maxRequestSize));
+        if (!mappingHelper.isStreamingMultipart() && UploadLimits.defaults().exceedsContainer()) {
+            System.err.println("Warning: upload.maxFileSize / upload.maxRequestSize dépassent le plafond du "
+                + "conteneur (@MultipartConfig), qui s'applique avec multipart.parser=container");
+        }
+        
+        int maxConcurrent = Integer.parseInt(getConfigParameter("upload.maxConcurrent", "0").trim());
+        long minFreeDiskSpace = Long.parseLong(getConfigParameter("upload.minFreeDiskSpace", "0").trim());
+        UploadAdmission.configure(maxConcurrent, minFreeDiskSpace);
+    }
+
+    /**
+     * Active le mode de session sans état si session.mode=cookie
+     * Le secret (session.cookie.secret) doit être identique sur tous les noeuds
+     * Les classes de l'application stockées en session sont à déclarer dans
+     * session.cookie.allowedClasses (ex: "com.app.model.*;com.app.Panier")
+     */
+    private void configureSessions() throws ServletException {
+        String sessionMode = getConfigParameter("session.mode", "server");
+        if (!"cookie".equalsIgnoreCase(sessionMode)) {
+            return;
+        }
+        String secret = getConfigParameter("session.cookie.secret", null);
+        if (secret == null) {
+            throw new ServletException("session.mode=cookie requiert le paramètre session.cookie.secret");
+        }
+        boolean encrypt = Boolean.parseBoolean(getConfigParameter("session.cookie.encrypt", "false"));
+        String allowedClasses = getConfigParameter("session.cookie.allowedClasses", null);
+        SessionManager.useSignedCookieSessions(new SignedCookieSessionCodec(secret, encrypt, allowedClasses));
+    }
+
     /**
      * Gère les erreurs en JSON
      */
@@ -124,11 +381,17 @@ public class RedirectionServlet extends HttpServlet {
 
     /**
      * Gère les erreurs de téléchargement de fichiers
+     * Le code HTTP vient de l'exception (413 limite dépassée, 503 capacité atteinte, 400 corps invalide)
      */
-    private void handleFileUploadError(HttpServletRequest request, HttpServletResponse response, Exception e) 
-            throws IOException {
+    private void handleFileUploadError(HttpServletRequest request, HttpServletResponse response,
+                                       UploadRejectedException e) throws IOException {
         
-        response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        response.setStatus(e.getStatusCode());
+        if (e.getStatusCode() == HttpServletResponse.SC_SERVICE_UNAVAILABLE) {
+            response.setHeader("Retry-After", "5");
+        }
+        // Le reste du corps n'est pas lu : le client ne doit pas réutiliser la connexion
+        response.setHeader("Connection", "close");
         
         // Vérifier si c'est une erreur JSON
         boolean isJsonRequest = request.getHeader("Accept") != null && 
@@ -182,38 +445,14 @@ public class RedirectionServlet extends HttpServlet {
         }
     }
     /**
-     * Construit la map des URLs vers les méthodes annotées avec @Mapping, @GetMapping et @PostMapping
-     * Sépare les URLs statiques (ex: /users) des URLs dynamiques (ex: /users/{id})
-     * 
-     * @param mappingAnalyzer L'analyseur de mappings
-     * @param allClasses La liste de toutes les classes scannées
+     * Regroupe en une seule liste les méthodes mappées de toutes les classes
      */
-    private void buildMethodMappings(MappingAnalyzer mappingAnalyzer, List<Class<?>> allClasses) {
-        Map<Class<?>, List<MappedMethod>> allMethodMappings = mappingAnalyzer.analyzeMethodMappings(allClasses);
-
-        for (Map.Entry<Class<?>, List<MappedMethod>> entry : allMethodMappings.entrySet()) {
-            List<MappedMethod> methods = entry.getValue();
-
-            for (MappedMethod mappedMethod : methods) {
-                String url = mappedMethod.getUrl();
-
-                if (url == null) continue;
-
-                String normalizedUrl = url.startsWith("/") ? url.substring(1) : url;
-
-                // Si l'URL contient des accolades {}, c'est une URL dynamique
-                if (url.contains("{")) {
-                    dynamicUrlMethods.add(mappedMethod);
-                } else {
-                    // URL statique : on l'ajoute dans la map
-                    String key = normalizedUrl;
-                    if (urlMethodMap.containsKey(key)) {
-                        System.err.println("Conflit de mapping pour l'URL: " + key);
-                    }
-                    urlMethodMap.put(key, mappedMethod);
-                }
-            }
+    private static List<MappedMethod> flatten(Map<Class<?>, List<MappedMethod>> methodMappings) {
+        List<MappedMethod> methods = new ArrayList<>();
+        for (List<MappedMethod> classMethods : methodMappings.values()) {
+            methods.addAll(classMethods);
         }
+        return methods;
     }
     
     /**
@@ -249,21 +488,33 @@ public class RedirectionServlet extends HttpServlet {
     private void doService(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
 
-        // Extrait le chemin de l'URL (sans le contexte de l'application)
-        String path = request.getRequestURI().substring(request.getContextPath().length());
+        // Le chemin de l'URL commence après le contexte de l'application : le routage
+        // travaille sur l'URI par positions, la sous-chaîne n'est créée que si besoin
+        String uri = request.getRequestURI();
+        int from = request.getContextPath().length();
         
         // Si c'est la racine "/", affiche la page d'accueil
-        if ("/".equals(path)) {
+        if (uri.length() == from + 1 && uri.charAt(from) == '/') {
             displayHomePage(request, response);
             return;
         }
         
-        // Vérifie si l'URL correspond à une méthode mappée
-        if (mappingHelper.isUrlMappedToMethod(path, request.getMethod(), urlMethodMap, dynamicUrlMethods)) {
-            executeMappedMethod(request, response, path);
-            return;
+        // Une seule lecture de la table de routage (volatile) par requête ; la route et ses
+        // variables sont notées dans le contexte réutilisé du thread, sans allocation
+        RequestContext context = RequestContext.acquire();
+        try {
+            // Vérifie si l'URL correspond à une méthode mappée
+            if (routeTable.match(uri, from, context)
+                    && mappingHelper.isMethodMatching(context.getMappedMethod().getHttpMethod(), request.getMethod())) {
+                executeMappedMethod(request, response, context);
+                return;
+            }
+        } finally {
+            context.release();
         }
         
+        String path = uri.substring(from);
+        
         // Vérifie si c'est une ressource statique (fichier CSS, JS, image, etc.)
         boolean resourceExists = getServletContext().getResource(path) != null;
         if (resourceExists) {
@@ -272,9 +523,8 @@ public class RedirectionServlet extends HttpServlet {
         } else {
             // Aucune correspondance trouvée : erreur 404
             response.setStatus(404);
-            response.setContentType("text/html;charset=UTF-8");
-            response.getWriter().println("<h1>404 - Page non trouvée</h1>");
-            response.getWriter().println("<p>Aucun mapping trouvé pour l'URL: " + path + "</p>");
+            ResponseBodyWriter.writeText(response, "text/html",
+                "<h1>404 - Page non trouvée</h1>\n<p>Aucun mapping trouvé pour l'URL: " + path + "</p>\n");
         }
     }
     
@@ -287,13 +537,13 @@ public class RedirectionServlet extends HttpServlet {
      */
     private void displayHomePage(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
-        homePageRenderer.displayHomePage(response, analysisResult, urlMethodMap, dynamicUrlMethods);
+        RouteTable routes = routeTable;
+        homePageRenderer.displayHomePage(response, analysisResult, routes.getStaticRoutes(), routes.getDynamicRoutes());
     }
     
     /**
      * Exécute la méthode mappée correspondant à l'URL
      * Gère :
-     * - La recherche de la méthode (statique ou dynamique)
      * - La vérification de la méthode HTTP (GET/POST)
      * - L'injection des paramètres
      * - L'invocation de la méthode
@@ -301,82 +551,128 @@ public class RedirectionServlet extends HttpServlet {
      * 
      * @param request La requête HTTP
      * @param response La réponse HTTP
-     * @param path Le chemin de l'URL
+     * @param context Le contexte de la requête (méthode trouvée, chemin normalisé et variables de chemin)
      */
     private void executeMappedMethod(HttpServletRequest request, HttpServletResponse response, 
-                                   String path) throws ServletException, IOException {
+                                   RequestContext context) throws ServletException, IOException {
+        CapturingResponse capture = null;
+        SessionTrackingRequest sessionTracking = null;
         try {
-            // Recherche la méthode mappée (statique ou dynamique)
-            MappedMethod mappedMethod = mappingHelper.getMappedMethodForUrl(path, urlMethodMap);
-            Map<String, String> pathVariables = null;
-            
-            if (mappedMethod == null) {
-                // Pas trouvé dans les statiques, cherche dans les dynamiques
-                MethodMatchResult matchResult = mappingHelper.findMatchingDynamicMethod(path, dynamicUrlMethods);
-                if (matchResult != null) {
-                    mappedMethod = matchResult.getMappedMethod();
-                    pathVariables = matchResult.getPathVariables();
-                }
-            } else {
-                pathVariables = new HashMap<>();
-            }
+            MappedMethod mappedMethod = context.getMappedMethod();
+            Map<String, String> pathVariables = context.getPathVariables();
             
-            // Si aucune méthode trouvée, erreur 404
-            if (mappedMethod == null) {
-                response.setStatus(404);
-                response.getWriter().println("Méthode mappée non trouvée pour l'URL: " + path);
-                return;
-            }
             
             // Vérifie que la méthode HTTP correspond
             String requestMethod = request.getMethod();
             String mappingMethod = mappedMethod.getHttpMethod();
             if (!mappingHelper.isMethodMatching(mappingMethod, requestMethod)) {
                 response.setStatus(405);
-                response.getWriter().println("Méthode HTTP non autorisée. Attendu: " + mappingMethod);
+                ResponseBodyWriter.writeText(response, "text/plain",
+                    "Méthode HTTP non autorisée. Attendu: " + mappingMethod + "\n");
                 return;
             }
             
-            // Récupère la méthode Java et crée une instance du contrôleur
-            Method method = mappedMethod.getMethod();
-            Object controllerInstance = method.getDeclaringClass().getDeclaredConstructor().newInstance();
+            // Plan d'appel de la route (compilé à la première requête)
+            HandlerPlan plan = mappedMethod.getPlan();
+            
+            boolean isGet = "GET".equalsIgnoreCase(requestMethod);
+            
+            // Méthode @Cacheable (GET) : une réponse en cache est renvoyée sans liaison,
+            // sans appel et sans rendu
+            Cacheable cacheable = plan.getCacheable();
+            String cacheKey = null;
+            if (isGet && cacheable != null && responseCache != null) {
+                // Chemin normalisé : "/produits/12/" et "/produits//12" partagent l'entrée de "/produits/12"
+                cacheKey = ResponseCache.keyFor(request, context.getMatchedPath(), cacheable);
+                ResponseCache.Entry cached = responseCache.get(cacheKey);
+                if (cached != null) {
+                    cached.writeTo(request, response);
+                    return;
+                }
+                // La clé ne contient pas la session : on note si le rendu (JSP) la lit
+                sessionTracking = new SessionTrackingRequest(request);
+                request = sessionTracking;
+            }
+            
+            Object controllerInstance = plan.newController();
+            
+            // @ConditionalGet : la version déclarée permet un 304 avant l'appel de la méthode
+            String versionEtag = null;
+            if (isGet && plan.hasVersionMethod()) {
+                Object version = plan.invokeVersion(controllerInstance, pathVariables);
+                long lastModified = toLastModified(version);
+                if (lastModified < 0 && version != null) {
+                    versionEtag = ConditionalRequest.etagForVersion(version.toString());
+                }
+                if (ConditionalRequest.isNotModified(request, versionEtag, lastModified)) {
+                    ConditionalRequest.sendNotModified(response, versionEtag, lastModified);
+                    return;
+                }
+                if (lastModified >= 0) {
+                    response.setDateHeader("Last-Modified", lastModified);
+                }
+            }
+            
+            // Le corps est retenu puis écrit d'un bloc par ResponseBodyWriter quand il y a
+            // quelque chose à en faire : ETag et 304 pour un GET, mise en cache pour @Cacheable,
+            // compression si le client l'accepte ; sinon il va directement à la réponse
+            HttpServletResponse target = response;
+            if (isGet || (ResponseCompression.effectiveLevel(plan.getCompressionLevel()) > 0
+                    && ResponseCompression.negotiate(request) != null)) {
+                capture = new CapturingResponse(request, response);
+                capture.setCompressionLevel(plan.getCompressionLevel());
+                target = capture;
+            }
+            if (versionEtag != null) {
+                target.setHeader("ETag", versionEtag);
+            }
+            
+            // Ouvre la vue de session de la requête (écritures différées jusqu'au flush)
+            SessionManager.beginRequestSession(request, target);
             
             // Prépare les paramètres (injection automatique)
-            Object[] parameters = mappingHelper.prepareMethodParameters(method, pathVariables, request, response);
+            Object[] parameters = mappingHelper.prepareMethodParameters(plan, context, request, target);
             
             // Invoque la méthode du contrôleur
-            Object result = method.invoke(controllerInstance, parameters);
+            Object result = plan.invoke(controllerInstance, parameters);
+            
+            // Écrit en un seul lot les attributs de session modifiés par le contrôleur
+            RequestSession.flushCurrent();
             
             // =====================================================
             // Gestion JSON vs JSP
             // =====================================================
             
-            boolean isJsonMapping = method.isAnnotationPresent(annotations.JsonMapping.class);
+            boolean isJsonMapping = plan.isJsonMapping();
 
             // ---------- CAS API REST (JSON) ----------
             if (isJsonMapping) {
-                String jsonResponse = gson.toJson(result);
-                response.setContentType("application/json");
-                response.setCharacterEncoding("UTF-8");
-                response.getWriter().write(jsonResponse);
-                response.getWriter().flush();
-                return;
+                // Sérialisé directement en UTF-8 dans le tampon de la réponse, sans String intermédiaire
+                target.setContentType("application/json");
+                target.setCharacterEncoding("UTF-8");
+                gson.toJson(result, target.getWriter());
             }
-
             // ---------- CAS JSP CLASSIQUE ----------
-            if (result instanceof View) {
+            else if (result instanceof View) {
                 // Si c'est un objet View, envoie vers la JSP
-                sendViewResponse(request, response, (View) result);
+                sendViewResponse(request, target, (View) result, plan);
             } else if (result instanceof String) {
                 // Si c'est une String, crée une View avec ce nom
                 View view = new View((String) result);
-                sendViewResponse(request, response, view);
+                sendViewResponse(request, target, view, plan);
             } else {
                 // Pour tout autre type, affiche en texte brut
-                response.setContentType("text/plain;charset=UTF-8");
-                response.getWriter().println(result != null ? result.toString() : "null");
+                target.setContentType("text/plain;charset=UTF-8");
+                target.getWriter().println(result != null ? result.toString() : "null");
             }
             
+            if (capture != null) {
+                if (cacheKey != null && capture.isCacheable() && !sessionTracking.wasSessionRead()) {
+                    responseCache.put(cacheKey, capture.toEntry(
+                        System.currentTimeMillis() + cacheable.ttl() * 1000));
+                }
+                capture.commit(request);
+            }
         }
         catch (IllegalArgumentException e) {
             // Gestion spécifique des erreurs de conversion de paramètres
@@ -386,20 +682,38 @@ public class RedirectionServlet extends HttpServlet {
             response.getWriter().println("<p>Erreur de paramètre: " + e.getMessage() + "</p>");
             e.printStackTrace(response.getWriter());
         }  
+        catch (UploadRejectedException e) {
+            // Upload refusé (limites, admission, corps invalide)
+            handleFileUploadError(request, response, e);
+        }
         catch (IOException | ServletException e) {
-            // Gestion spécifique des erreurs de fichiers
-            if (e.getMessage() != null && 
-                (e.getMessage().contains("multipart") || 
-                 e.getMessage().contains("file") || 
-                 e.getMessage().contains("size"))) {
-                handleFileUploadError(request, response, e);
-                return;
-            }
             throw new ServletException("Erreur lors de l'exécution de la méthode mappée: " + e.getMessage(), e);
         }
         catch (Exception e) {
             throw new ServletException("Erreur lors de l'exécution de la méthode mappée: " + e.getMessage(), e);
         }
+        finally {
+            // Écrit les modifications restantes et détache la vue de session du thread
+            RequestSession.end();
+            // Supprime les fichiers temporaires des uploads reçus en flux
+            MappingHelper.releaseMultipartResources(request);
+            // Rend le tampon du corps au pool
+            if (capture != null) {
+                capture.release();
+            }
+        }
+    }
+    
+    /**
+     * Date de dernière modification renvoyée par une méthode de @ConditionalGet
+     *
+     * @return La date en millisecondes, ou -1 si la version n'est pas une date
+     */
+    private long toLastModified(Object version) {
+        if (version instanceof Long) return (Long) version;
+        if (version instanceof Date) return ((Date) version).getTime();
+        if (version instanceof Instant) return ((Instant) version).toEpochMilli();
+        return -1;
     }
     
     /**
@@ -411,8 +725,10 @@ public class RedirectionServlet extends HttpServlet {
      * @param request La requête HTTP
      * @param response La réponse HTTP
      * @param view L'objet View contenant les données et le nom du template
+     * @param plan Le plan de la route (garde la dernière redirection résolue), ou null
      */
-    private void sendViewResponse(HttpServletRequest request, HttpServletResponse response, View view)
+    private void sendViewResponse(HttpServletRequest request, HttpServletResponse response, View view,
+            HandlerPlan plan)
             throws ServletException, IOException {
         if (view == null) {
             throw new IllegalArgumentException("View ne peut pas être null");
@@ -422,28 +738,28 @@ public class RedirectionServlet extends HttpServlet {
         // CAS 1: REDIRECTION (template commence par "redirect:")
         // =====================================================
         if (view.isRedirect()) {
-            String redirectUrl = view.getRedirectUrl();
-            if (redirectUrl == null || redirectUrl.isBlank()) {
-                throw new ServletException("URL de redirection invalide dans la View");
-            }
-            
-            // Construire l'URL complète avec le contexte de l'application
-            String fullUrl;
-            if (redirectUrl.startsWith("http://") || redirectUrl.startsWith("https://")) {
-                // URL absolue externe
-                fullUrl = redirectUrl;
-            } else {
-                // URL relative - ajouter le contexte de l'application
-                String contextPath = request.getContextPath();
-                if (redirectUrl.startsWith("/")) {
-                    fullUrl = contextPath + redirectUrl;
-                } else {
-                    fullUrl = contextPath + "/" + redirectUrl;
+            // URL constante (même chaîne, même statut qu'au premier appel de la route) :
+            // la cible déjà calculée est réutilisée telle quelle
+            String source = view.getRedirectSource();
+            int status = view.getRedirectStatus();
+            RedirectTarget cached = plan != null ? redirectTargets.get(plan) : null;
+            RedirectTarget redirect = cached;
+            if (redirect == null || !redirect.matches(source, status)) {
+                String redirectUrl = view.getRedirectUrl();
+                if (redirectUrl == null || redirectUrl.isBlank()) {
+                    throw new ServletException("URL de redirection invalide dans la View");
+                }
+                redirect = new RedirectTarget(source, status,
+                    RedirectTarget.toLocation(request.getContextPath(), redirectUrl));
+                // Une seule écriture par route : la première cible, ou le marqueur dès qu'une
+                // autre URL apparaît (redirect:/users/{id}...), qui n'est alors plus jamais mise en cache
+                if (plan != null && cached != RedirectTarget.NOT_CONSTANT) {
+                    redirectTargets.put(plan, cached == null ? redirect : RedirectTarget.NOT_CONSTANT);
                 }
             }
             
-            // Effectuer la redirection HTTP 302
-            response.sendRedirect(fullUrl);
+            // Statut (302 par défaut, 303/307... via View.redirect(url, status)) et Location
+            redirect.send(response);
             return;
         }
         
@@ -460,21 +776,17 @@ public class RedirectionServlet extends HttpServlet {
             name = "model";
         }
         
-        // Construction du chemin vers la JSP
-        String viewPath = template;
-        if (viewPath == null || viewPath.isBlank()) {
-            viewPath = "/" + name;
-        }
-        if (!viewPath.startsWith("/")) {
-            viewPath = "/" + viewPath;
-        }
-        if (!viewPath.endsWith(".jsp")) {
-            viewPath = viewPath + ".jsp";
+        // Template .tpl : rendu par le moteur intégré, sans forward JSP
+        if (TemplateEngine.handles(template)) {
+            sendTemplateResponse(response, view, name);
+            return;
         }
         
-        // Vérifie que le template existe
-        if (getServletContext().getResource(viewPath) == null) {
-            throw new ServletException("Template JSP introuvable: " + viewPath);
+        // Chemin de la JSP, existence et dispatcher : résolus une fois puis gardés en cache
+        ViewResolver.ResolvedView resolvedView = viewResolver.resolve(
+            template == null || template.isBlank() ? name : template);
+        if (!resolvedView.exists()) {
+            throw new ServletException("Template JSP introuvable: " + resolvedView.getPath());
         }
         
         // Place les données principales en attribut
@@ -491,6 +803,37 @@ public class RedirectionServlet extends HttpServlet {
         }
         
         // Forward vers la JSP
-        request.getRequestDispatcher(viewPath).forward(request, response);
+        resolvedView.getDispatcher().forward(request, response);
+    }
+    
+    /**
+     * Rend une View .tpl avec le moteur intégré
+     * Les données de la View sont passées au template sous leur nom, sans passer
+     * par les attributs de la requête ; le rendu écrit directement dans le tampon
+     * de la réponse.
+     */
+    private void sendTemplateResponse(HttpServletResponse response, View view, String name)
+            throws IOException {
+        Map<String, Object> model = new HashMap<>();
+        if (view.getData() != null) {
+            model.put(name, view.getData());
+        }
+        if (view.getAdditionalData() != null) {
+            model.putAll(view.getAdditionalData());
+        }
+        
+        response.setContentType("text/html;charset=UTF-8");
+        if (response instanceof CapturingResponse) {
+            templateEngine.render(view.getTemplate(), model, ((CapturingResponse) response).directBody());
+            return;
+        }
+        PooledByteOutput out = new PooledByteOutput();
+        try {
+            templateEngine.render(view.getTemplate(), model, out);
+            response.setContentLength(out.size());
+            out.writeTo(response.getOutputStream());
+        } finally {
+            out.release();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,234 @@
+package com;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import lookup.MappingAnalyzer.MappedMethod;
+
+/**
+ * État de routage et de liaison d'une requête, réutilisé d'une requête à l'autre par thread
+ *
+ * Remplace les objets créés à chaque requête par des tableaux plats remis à zéro :
+ * - la route trouvée et ses variables de chemin (noms, début et fin dans le chemin ;
+ *   la sous-chaîne n'est créée que si la valeur est lue)
+ * - le tableau des arguments de la méthode, un par nombre de paramètres
+ * - la map des données de formulaire converties
+ * - le tampon où PathNormalizer réécrit le chemin
+ *
+ * acquire() rend le contexte du thread, ou un contexte neuf si celui-ci est déjà
+ * pris (requête imbriquée par un include/forward vers la servlet) ; release() efface
+ * toutes les références pour ne rien retenir entre deux requêtes.
+ * Ce qui est remis au contrôleur (Map de paramètre, méthode de version) est une copie :
+ * il peut la garder au-delà de la requête.
+ */
+final class RequestContext {
+
+    private static final ThreadLocal<RequestContext> CURRENT = ThreadLocal.withInitial(RequestContext::new);
+
+    // Au-delà, le tableau des arguments est alloué à chaque appel
+    private static final int MAX_POOLED_ARITY = 16;
+
+    private boolean inUse;
+
+    private MappedMethod mappedMethod;
+    private String path;
+    // Début du chemin dans path (0 si path a été normalisé)
+    private int pathStart;
+
+    // Variables de chemin : nom (segment du pattern), position dans path, valeur déjà extraite
+    private String[] names = new String[4];
+    private int[] starts = new int[4];
+    private int[] ends = new int[4];
+    private String[] values = new String[4];
+    private int variableCount;
+    private final PathVariables pathVariables = new PathVariables();
+
+    private final Object[][] arguments = new Object[MAX_POOLED_ARITY + 1][];
+    private final HashMap<String, Object> formValues = new HashMap<>();
+    private char[] pathBuffer = new char[256];
+
+    private RequestContext() {
+    }
+
+    /**
+     * Contexte du thread courant, remis à zéro
+     */
+    static RequestContext acquire() {
+        RequestContext context = CURRENT.get();
+        if (context.inUse) {
+            context = new RequestContext();
+        }
+        context.inUse = true;
+        return context;
+    }
+
+    /**
+     * Efface les références de la requête et rend le contexte au thread
+     */
+    void release() {
+        mappedMethod = null;
+        path = null;
+        Arrays.fill(names, 0, variableCount, null);
+        Arrays.fill(values, 0, variableCount, null);
+        variableCount = 0;
+        for (Object[] array : arguments) {
+            if (array != null) Arrays.fill(array, null);
+        }
+        formValues.clear();
+        inUse = false;
+    }
+
+    // =====================================================
+    // Route et variables de chemin (remplies par RouteTable)
+    // =====================================================
+
+    void setMatch(MappedMethod method, String requestPath, int from) {
+        mappedMethod = method;
+        path = requestPath;
+        pathStart = from;
+        Arrays.fill(names, 0, variableCount, null);
+        Arrays.fill(values, 0, variableCount, null);
+        variableCount = 0;
+    }
+
+    void addVariable(String name, int start, int end) {
+        if (variableCount == names.length) {
+            int capacity = names.length * 2;
+            names = Arrays.copyOf(names, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        names[variableCount] = name;
+        starts[variableCount] = start;
+        ends[variableCount] = end;
+        variableCount++;
+    }
+
+    MappedMethod getMappedMethod() {
+        return mappedMethod;
+    }
+
+    /**
+     * Chemin normalisé sur lequel la route a été trouvée (sans le chemin de contexte)
+     */
+    String getMatchedPath() {
+        return path.substring(pathStart);
+    }
+
+    /**
+     * Variables de chemin de la route, en lecture seule (vue sur les tableaux du contexte)
+     */
+    Map<String, String> getPathVariables() {
+        return pathVariables;
+    }
+
+    private String value(int index) {
+        String value = values[index];
+        if (value == null) {
+            value = path.substring(starts[index], ends[index]);
+            values[index] = value;
+        }
+        return value;
+    }
+
+    // Du dernier au premier : un nom répété garde sa dernière valeur, comme Map.put
+    private int indexOf(Object name) {
+        for (int i = variableCount - 1; i >= 0; i--) {
+            if (names[i].equals(name)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Tampon de caractères d'au moins length caractères (normalisation du chemin)
+     */
+    char[] pathBuffer(int length) {
+        if (pathBuffer.length < length) {
+            pathBuffer = new char[Math.max(length, pathBuffer.length * 2)];
+        }
+        return pathBuffer;
+    }
+
+    // =====================================================
+    // Liaison des paramètres
+    // =====================================================
+
+    /**
+     * Tableau des arguments pour une méthode de count paramètres (contenu effacé par release())
+     */
+    Object[] arguments(int count) {
+        if (count > MAX_POOLED_ARITY) return new Object[count];
+        Object[] array = arguments[count];
+        if (array == null) {
+            array = new Object[count];
+            arguments[count] = array;
+        }
+        return array;
+    }
+
+    /**
+     * Map des données de formulaire converties, vide au début de chaque requête
+     */
+    Map<String, Object> formValues() {
+        return formValues;
+    }
+
+    /**
+     * Map en lecture seule sur les variables de chemin du contexte
+     * get() et containsKey() parcourent les tableaux : il y a rarement plus de 3 variables.
+     */
+    private final class PathVariables extends AbstractMap<String, String> {
+
+        @Override
+        public int size() {
+            return variableCount;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return indexOf(key) >= 0;
+        }
+
+        @Override
+        public String get(Object key) {
+            int index = indexOf(key);
+            return index >= 0 ? value(index) : null;
+        }
+
+        @Override
+        public Set<Map.Entry<String, String>> entrySet() {
+            return new AbstractSet<Map.Entry<String, String>>() {
+                @Override
+                public int size() {
+                    return variableCount;
+                }
+
+                @Override
+                public Iterator<Map.Entry<String, String>> iterator() {
+                    return new Iterator<Map.Entry<String, String>>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < variableCount;
+                        }
+
+                        @Override
+                        public Map.Entry<String, String> next() {
+                            if (next >= variableCount) throw new NoSuchElementException();
+                            int index = next++;
+                            return new AbstractMap.SimpleImmutableEntry<>(names[index], value(index));
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
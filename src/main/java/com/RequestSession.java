@@ -0,0 +1,253 @@
+package com;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Vue de session propre à une requête HTTP
+ *
+ * Les lectures sont mises en cache localement et les écritures sont simplement
+ * enregistrées (clés "sales"). Rien n'est écrit dans le stockage des sessions
+ * avant l'appel à flush() : toutes les modifications sont alors appliquées en
+ * un seul lot via SessionManager.applyChanges().
+ *
+ * La vue est attachée au thread de la requête par RedirectionServlet
+ * (begin / end), ce qui permet à SessionManager.getSessionValue() et
+ * setSessionValue() de passer par elle sans changer l'API des contrôleurs.
+ *
+ * En mode cookie signé, la vue porte les données décodées du cookie et le
+ * flush réémet le cookie au lieu d'écrire dans le stockage serveur.
+ */
+public class RequestSession {
+
+    // Vue courante du thread de la requête
+    private static final ThreadLocal<RequestSession> CURRENT = new ThreadLocal<>();
+
+    // Marqueur d'une clé supprimée pendant la requête
+    private static final Object REMOVED = new Object();
+
+    private final String sessionId;
+
+    // Valeurs lues depuis le stockage pendant la requête
+    private final Map<String, Object> readCache = new HashMap<>();
+
+    // Modifications en attente : clé -> nouvelle valeur (ou REMOVED)
+    private final Map<String, Object> dirty = new HashMap<>();
+
+    // true si la session a été détruite pendant la requête
+    private boolean destroyed;
+
+    // true dès qu'une valeur a été lue (la réponse dépend alors de la session)
+    private boolean read;
+
+    // Données décodées du cookie signé (mode sans état), null en mode serveur
+    private final Map<String, Object> cookieData;
+    private final HttpServletResponse response;
+    private final long issuedAt;
+    private boolean cookieWritten;
+
+    RequestSession(String sessionId) {
+        this(sessionId, null, null, 0);
+    }
+
+    RequestSession(String sessionId, Map<String, Object> cookieData,
+                   HttpServletResponse response, long issuedAt) {
+        this.sessionId = sessionId;
+        this.cookieData = cookieData;
+        this.response = response;
+        this.issuedAt = issuedAt;
+    }
+
+    /**
+     * Ouvre une vue de session pour la requête courante et l'attache au thread
+     *
+     * @param sessionId L'ID de session de la requête
+     * @return La vue de session attachée
+     */
+    public static RequestSession begin(String sessionId) {
+        return bind(new RequestSession(sessionId));
+    }
+
+    /**
+     * Attache une vue déjà construite au thread courant
+     */
+    static RequestSession bind(RequestSession requestSession) {
+        CURRENT.set(requestSession);
+        return requestSession;
+    }
+
+    /**
+     * Retourne la vue de session attachée au thread courant
+     *
+     * @return La vue courante ou null hors d'une requête du framework
+     */
+    public static RequestSession current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Retourne la vue courante si elle correspond à la session demandée
+     */
+    static RequestSession currentFor(String sessionId) {
+        RequestSession requestSession = CURRENT.get();
+        if (requestSession != null && requestSession.sessionId.equals(sessionId)) {
+            return requestSession;
+        }
+        return null;
+    }
+
+    /**
+     * Écrit les modifications en attente de la vue courante (si elle existe)
+     */
+    public static void flushCurrent() {
+        RequestSession requestSession = CURRENT.get();
+        if (requestSession != null) {
+            requestSession.flush();
+        }
+    }
+
+    /**
+     * Termine la requête : écrit les modifications restantes et détache la vue du thread
+     */
+    public static void end() {
+        RequestSession requestSession = CURRENT.get();
+        if (requestSession == null) return;
+        try {
+            requestSession.flush();
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * Récupère une valeur : d'abord les écritures locales, puis le cache de lecture,
+     * et enfin le stockage des sessions (une seule fois par clé)
+     */
+    public Object get(String key) {
+        if (destroyed) return null;
+        read = true;
+
+        Object pending = dirty.get(key);
+        if (pending != null) {
+            return pending == REMOVED ? null : pending;
+        }
+        if (readCache.containsKey(key)) {
+            return readCache.get(key);
+        }
+
+        Object value = cookieData != null
+            ? cookieData.get(key)
+            : SessionManager.readStoredValue(sessionId, key);
+        readCache.put(key, value);
+        return value;
+    }
+
+    /**
+     * Enregistre localement une nouvelle valeur pour la clé
+     */
+    public void set(String key, Object value) {
+        if (destroyed) return;
+        dirty.put(key, value != null ? value : REMOVED);
+    }
+
+    /**
+     * Enregistre localement la suppression de la clé
+     */
+    public void remove(String key) {
+        if (destroyed) return;
+        dirty.put(key, REMOVED);
+    }
+
+    /**
+     * Indique si des données de la session ont été lues pendant la requête
+     */
+    public boolean wasRead() {
+        return read;
+    }
+
+    void markRead() {
+        read = true;
+    }
+
+    /**
+     * Indique si des modifications sont en attente d'écriture
+     */
+    public boolean isDirty() {
+        return !dirty.isEmpty();
+    }
+
+    /**
+     * Abandonne les modifications en attente (session détruite pendant la requête)
+     */
+    void markDestroyed() {
+        destroyed = true;
+        dirty.clear();
+        readCache.clear();
+    }
+
+    /**
+     * Mode cookie : données de session portées par le cookie (lecture seule)
+     */
+    Map<String, Object> getCookieData() {
+        return cookieData != null ? Collections.unmodifiableMap(cookieData) : null;
+    }
+
+    /**
+     * Mode cookie : fait expirer le cookie de session côté client
+     */
+    void expireCookie() {
+        SessionManager.clearCookieSession(response);
+    }
+
+    /**
+     * Applique en un seul lot les clés modifiées depuis le dernier flush
+     */
+    public void flush() {
+        if (destroyed) return;
+        if (cookieData != null) {
+            flushCookie();
+            return;
+        }
+        if (dirty.isEmpty()) return;
+
+        Map<String, Object> changes = new HashMap<>(dirty.size());
+        for (Map.Entry<String, Object> entry : dirty.entrySet()) {
+            Object value = entry.getValue();
+            changes.put(entry.getKey(), value == REMOVED ? null : value);
+            readCache.put(entry.getKey(), value == REMOVED ? null : value);
+        }
+        dirty.clear();
+
+        SessionManager.applyChanges(sessionId, changes);
+    }
+
+    /**
+     * Mode cookie : fusionne les modifications et réémet le cookie signé
+     * Un cookie existant est aussi réémis quand son expiration doit être repoussée
+     */
+    private void flushCookie() {
+        boolean refreshDue = !cookieWritten && SessionManager.isCookieRefreshDue(issuedAt);
+        if (dirty.isEmpty() && !refreshDue) return;
+
+        for (Map.Entry<String, Object> entry : dirty.entrySet()) {
+            Object value = entry.getValue() == REMOVED ? null : entry.getValue();
+            if (value == null) {
+                cookieData.remove(entry.getKey());
+            } else {
+                cookieData.put(entry.getKey(), value);
+            }
+            readCache.put(entry.getKey(), value);
+        }
+        dirty.clear();
+
+        SessionManager.writeCookieSession(response, sessionId, cookieData);
+        cookieWritten = true;
+    }
+}
@@ -0,0 +1,96 @@
+package com;
+
+import java.io.IOException;
+import java.util.Map;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Écriture finale d'un corps de réponse déjà rendu
+ *
+ * Point unique pour les réponses capturées et celles servies depuis le cache :
+ * - négociation de la compression (gzip / deflate)
+ * - ETag propre à l'encodage choisi, 304 si le client a déjà cette version
+ * - Vary, Content-Encoding et Content-Length
+ */
+class ResponseBodyWriter {
+
+    /**
+     * @param body Le corps non compressé
+     * @param length Nombre d'octets utiles de body
+     * @param contentType Le type du corps (peut être null)
+     * @param etag L'ETag du corps non compressé, ou null pour ne pas traiter If-None-Match
+     * @param routeLevel Niveau de @Compress de la route (-1 = défaut, 0 = jamais)
+     * @param compressed Corps compressés déjà calculés par encodage (mémorisation), ou null
+     */
+    static void write(HttpServletRequest request, HttpServletResponse response,
+                      byte[] body, int length, String contentType, String etag,
+                      int routeLevel, Map<String, byte[]> compressed) throws IOException {
+        int level = ResponseCompression.effectiveLevel(routeLevel);
+        boolean compressible = level > 0
+            && ResponseCompression.isCompressible(contentType, length)
+            && !response.containsHeader("Content-Encoding");
+        String encoding = compressible ? ResponseCompression.negotiate(request) : null;
+
+        if (compressible) {
+            response.addHeader("Vary", "Accept-Encoding");
+        }
+
+        if (etag != null) {
+            // Chaque encodage est une représentation distincte : ETag distinct
+            String representationEtag = encoding == null ? etag
+                : ConditionalRequest.withEncoding(etag, encoding);
+            if (ConditionalRequest.isNotModified(request, representationEtag, -1)) {
+                ConditionalRequest.sendNotModified(response, representationEtag, -1);
+                return;
+            }
+            response.setHeader("ETag", representationEtag);
+        }
+
+        if (encoding == null) {
+            response.setContentLength(length);
+            response.getOutputStream().write(body, 0, length);
+            return;
+        }
+
+        response.setHeader("Content-Encoding", encoding);
+        byte[] encoded = compressed != null ? compressed.get(encoding) : null;
+        if (encoded != null) {
+            response.setContentLength(encoded.length);
+            response.getOutputStream().write(encoded);
+            return;
+        }
+
+        PooledByteOutput out = new PooledByteOutput(Math.max(64, length / 4));
+        try {
+            ResponseCompression.compress(body, length, encoding, level, out);
+            if (compressed != null) {
+                compressed.put(encoding, out.toByteArray());
+            }
+            response.setContentLength(out.size());
+            out.writeTo(response.getOutputStream());
+        } finally {
+            out.release();
+        }
+    }
+
+    /**
+     * Écrit un texte court (page d'erreur, page d'accueil) encodé en UTF-8
+     * dans un tableau du pool, sans passer par getWriter()
+     *
+     * @param contentType Le type, sans charset (ex: "text/html")
+     */
+    static void writeText(HttpServletResponse response, String contentType, CharSequence text)
+            throws IOException {
+        PooledByteOutput out = new PooledByteOutput(text.length() + 16);
+        try {
+            out.writeUtf8(text);
+            response.setContentType(contentType + ";charset=UTF-8");
+            response.setContentLength(out.size());
+            out.writeTo(response.getOutputStream());
+        } finally {
+            out.release();
+        }
+    }
+}
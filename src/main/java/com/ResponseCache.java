@@ -0,0 +1,190 @@
+package com;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import annotations.Cacheable;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Cache des réponses des méthodes @Cacheable
+ *
+ * - borné en octets : chaque entrée pèse la taille de son corps et de ses en-têtes
+ * - éviction LRU (LinkedHashMap en ordre d'accès) quand la borne est dépassée
+ * - une entrée expirée est retirée quand on la rencontre
+ *
+ * Les accès sont synchronisés : une consultation est une recherche dans une map,
+ * bien plus courte que l'exécution qu'elle évite.
+ */
+public class ResponseCache {
+
+    // Coût fixe approximatif d'une entrée (objets, clé), en octets
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long currentBytes;
+
+    /**
+     * Réponse rendue, rejouable à l'identique
+     */
+    static class Entry {
+        private final int status;
+        private final String contentType;
+        private final String etag;
+        private final String[] headerNames;
+        private final String[][] headerValues;
+        private final byte[] body;
+        private final int compressionLevel;
+        // Corps compressés, calculés au premier client qui accepte l'encodage
+        private final Map<String, byte[]> compressed = new ConcurrentHashMap<>(4);
+        private final long expiresAt;
+        private final int weight;
+
+        Entry(int status, String contentType, Map<String, List<String>> headers, String etag,
+              byte[] body, int compressionLevel, long expiresAt) {
+            this.status = status;
+            this.contentType = contentType;
+            this.etag = etag;
+            this.headerNames = new String[headers.size()];
+            this.headerValues = new String[headers.size()][];
+            int weight = ENTRY_OVERHEAD + body.length;
+            if (ResponseCompression.isCompressible(contentType, body.length)) {
+                // Place réservée aux variantes compressées (au plus la taille du corps à elles deux)
+                weight += body.length;
+            }
+            int i = 0;
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                headerNames[i] = header.getKey();
+                headerValues[i] = header.getValue().toArray(new String[0]);
+                weight += header.getKey().length() * 2;
+                for (String value : headerValues[i]) {
+                    weight += value.length() * 2;
+                }
+                i++;
+            }
+            this.body = body;
+            this.compressionLevel = compressionLevel;
+            this.expiresAt = expiresAt;
+            this.weight = weight;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+
+        /**
+         * Écrit la réponse mise en cache (compressée si le client l'accepte),
+         * ou un 304 si le client a déjà cette version
+         */
+        void writeTo(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            response.setStatus(status);
+            if (contentType != null) {
+                response.setContentType(contentType);
+            }
+            for (int i = 0; i < headerNames.length; i++) {
+                response.setHeader(headerNames[i], headerValues[i][0]);
+                for (int j = 1; j < headerValues[i].length; j++) {
+                    response.addHeader(headerNames[i], headerValues[i][j]);
+                }
+            }
+            ResponseBodyWriter.write(request, response, body, body.length, contentType, etag,
+                compressionLevel, compressed);
+        }
+    }
+
+    /**
+     * @param maxBytes Taille maximale du cache, en octets
+     */
+    public ResponseCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Construit la clé d'une requête : chemin puis paramètres nommés par @Cacheable(key)
+     * Exemple : "/products/12?lang=fr&page=2"
+     *
+     * Noms et valeurs sont encodés comme dans une URL, la clé est donc sans ambiguïté :
+     * - paramètre absent : "lang", paramètre vide : "lang="
+     * - plusieurs valeurs : "tag=a&tag=b", distinct de la valeur littérale "a&tag=b"
+     * Un '?' ou un '%' du chemin (décodé) est lui aussi encodé.
+     */
+    public static String keyFor(HttpServletRequest request, String path, Cacheable cacheable) {
+        String[] keyParams = cacheable.key();
+        String escapedPath = path.indexOf('?') < 0 && path.indexOf('%') < 0
+            ? path : path.replace("%", "%25").replace("?", "%3F");
+        if (keyParams.length == 0) return escapedPath;
+
+        StringBuilder key = new StringBuilder(escapedPath).append('?');
+        for (int i = 0; i < keyParams.length; i++) {
+            String name = URLEncoder.encode(keyParams[i], StandardCharsets.UTF_8);
+            String[] values = request.getParameterValues(keyParams[i]);
+            if (i > 0) key.append('&');
+            if (values == null || values.length == 0) {
+                key.append(name);
+                continue;
+            }
+            for (int j = 0; j < values.length; j++) {
+                if (j > 0) key.append('&');
+                key.append(name).append('=').append(URLEncoder.encode(values[j], StandardCharsets.UTF_8));
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * @return L'entrée valide pour la clé, ou null
+     */
+    synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) return null;
+        if (entry.isExpired(System.currentTimeMillis())) {
+            entries.remove(key);
+            currentBytes -= entry.weight;
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Ajoute une entrée puis évince les moins récemment utilisées jusqu'à repasser sous la borne
+     * Une entrée plus grande que le quart du cache n'est pas conservée.
+     */
+    synchronized void put(String key, Entry entry) {
+        if (entry.weight > maxBytes / 4) return;
+
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            currentBytes -= previous.weight;
+        }
+        currentBytes += entry.weight;
+
+        long now = System.currentTimeMillis();
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (currentBytes > maxBytes && eldest.hasNext()) {
+            Entry candidate = eldest.next();
+            if (candidate == entry && !candidate.isExpired(now)) continue;
+            eldest.remove();
+            currentBytes -= candidate.weight;
+        }
+    }
+
+    /**
+     * Vide le cache (rechargement des routes en mode développement)
+     */
+    public synchronized void clear() {
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
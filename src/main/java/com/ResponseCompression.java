@@ -0,0 +1,303 @@
+package com;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Compression gzip / deflate des réponses
+ *
+ * - l'encodage est négocié à partir d'Accept-Encoding (gzip préféré à deflate)
+ * - les corps sous le seuil et les types déjà compressés (images, archives...) sont envoyés tels quels
+ * - les Deflater (mémoire native) sont réutilisés : un pool borné par niveau et par format
+ *
+ * Le niveau par défaut (compression.level) peut être remplacé par route avec @Compress.
+ */
+public class ResponseCompression {
+
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+
+    // Deflater inactifs gardés par niveau et par format
+    private static final int POOL_SIZE = 32;
+
+    private static final byte[] GZIP_HEADER = {
+        0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+
+    private static volatile boolean enabled = true;
+    private static volatile int minSize = 1024;
+    private static volatile int defaultLevel = 6;
+
+    // Index = niveau 1..9 pour le deflate brut (gzip), 10 + niveau pour zlib (deflate) ; 0 et 10 inutilisés
+    private static final List<ArrayBlockingQueue<Deflater>> POOLS = new ArrayList<>(20);
+    static {
+        for (int i = 0; i < 20; i++) {
+            POOLS.add(new ArrayBlockingQueue<>(POOL_SIZE));
+        }
+    }
+
+    /**
+     * Configure la compression
+     *
+     * @param compressionEnabled false pour ne jamais compresser
+     * @param minimumSize Taille minimale du corps, en octets
+     * @param level Niveau par défaut (1 à 9)
+     */
+    public static void configure(boolean compressionEnabled, int minimumSize, int level) {
+        if (level < 1 || level > 9) {
+            throw new IllegalArgumentException("compression.level doit être compris entre 1 et 9: " + level);
+        }
+        enabled = compressionEnabled;
+        minSize = Math.max(0, minimumSize);
+        defaultLevel = level;
+    }
+
+    /**
+     * Niveau effectif d'une route
+     *
+     * @param routeLevel Niveau de @Compress (-1 = défaut, 0 = pas de compression)
+     * @return Le niveau (1 à 9), ou 0 si la réponse ne doit pas être compressée
+     */
+    static int effectiveLevel(int routeLevel) {
+        if (!enabled) return 0;
+        if (routeLevel < 0) return defaultLevel;
+        return Math.min(routeLevel, 9);
+    }
+
+    /**
+     * Vrai si un corps de ce type et de cette taille mérite d'être compressé
+     */
+    static boolean isCompressible(String contentType, int length) {
+        if (length < minSize || contentType == null) return false;
+        String type = contentType.toLowerCase();
+        if (type.startsWith("image/")) return type.startsWith("image/svg");
+        return !(type.startsWith("video/")
+            || type.startsWith("audio/")
+            || type.startsWith("font/woff")
+            || type.startsWith("application/zip")
+            || type.startsWith("application/gzip")
+            || type.startsWith("application/x-gzip")
+            || type.startsWith("application/x-7z")
+            || type.startsWith("application/x-rar")
+            || type.startsWith("application/pdf")
+            || type.startsWith("application/octet-stream"));
+    }
+
+    /**
+     * Choisit l'encodage d'après Accept-Encoding
+     * "*" n'accepte que les encodages que l'en-tête ne nomme pas : "gzip;q=0, *" refuse gzip.
+     *
+     * @return GZIP, DEFLATE ou null si le client n'accepte ni l'un ni l'autre
+     */
+    static String negotiate(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        if (acceptEncoding == null) return null;
+
+        // null : encodage non nommé dans l'en-tête
+        Boolean gzip = null;
+        Boolean deflate = null;
+        boolean wildcard = false;
+        for (String token : acceptEncoding.split(",")) {
+            String coding = token.trim();
+            boolean accepted = true;
+            int semicolon = coding.indexOf(';');
+            if (semicolon >= 0) {
+                accepted = !isZeroQuality(coding.substring(semicolon + 1));
+                coding = coding.substring(0, semicolon).trim();
+            }
+            if (coding.equalsIgnoreCase(GZIP)) gzip = accepted;
+            else if (coding.equalsIgnoreCase(DEFLATE)) deflate = accepted;
+            else if (coding.equals("*")) wildcard = accepted;
+        }
+        if (gzip != null ? gzip : wildcard) return GZIP;
+        if (deflate != null ? deflate : wildcard) return DEFLATE;
+        return null;
+    }
+
+    private static boolean isZeroQuality(String parameters) {
+        for (String parameter : parameters.split(";")) {
+            String p = parameter.trim();
+            if (p.startsWith("q=") || p.startsWith("Q=")) {
+                try {
+                    return Double.parseDouble(p.substring(2).trim()) <= 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compresse un corps
+     *
+     * @param body Le corps
+     * @param length Nombre d'octets utiles de body
+     * @param encoding GZIP ou DEFLATE
+     * @param level Niveau de compression (1 à 9)
+     * @param out Destination du corps compressé
+     */
+    static void compress(byte[] body, int length, String encoding, int level, PooledByteOutput out) {
+        boolean gzip = GZIP.equals(encoding);
+        if (gzip) {
+            out.write(GZIP_HEADER, 0, GZIP_HEADER.length);
+        }
+
+        Deflater deflater = acquire(gzip, level);
+        byte[] chunk = BufferPool.acquire(8 * 1024);
+        try {
+            deflater.setInput(body, 0, length);
+            deflater.finish();
+            while (!deflater.finished()) {
+                int count = deflater.deflate(chunk);
+                out.write(chunk, 0, count);
+            }
+        } finally {
+            BufferPool.release(chunk);
+            release(deflater, gzip, level);
+        }
+
+        if (gzip) {
+            CRC32 crc = new CRC32();
+            crc.update(body, 0, length);
+            writeIntLittleEndian(out, (int) crc.getValue());
+            writeIntLittleEndian(out, length);
+        }
+    }
+
+    /**
+     * Flux qui compresse au fil de l'eau vers out (corps trop grand pour être retenu)
+     * finish() écrit la fin du flux sans fermer out ; le Deflater retourne alors au pool.
+     *
+     * @param encoding GZIP ou DEFLATE
+     * @param level Niveau de compression (1 à 9)
+     */
+    static CompressingStream compressingStream(OutputStream out, String encoding, int level) throws IOException {
+        return new CompressingStream(out, GZIP.equals(encoding), level);
+    }
+
+    /**
+     * Compression en flux : mêmes octets que compress() pour le même corps
+     */
+    static final class CompressingStream extends OutputStream {
+        private final OutputStream out;
+        private final boolean gzip;
+        private final int level;
+        private final CRC32 crc;
+        private Deflater deflater;
+        private byte[] chunk;
+        private int length;
+
+        private CompressingStream(OutputStream out, boolean gzip, int level) throws IOException {
+            this.out = out;
+            this.gzip = gzip;
+            this.level = level;
+            this.crc = gzip ? new CRC32() : null;
+            if (gzip) {
+                out.write(GZIP_HEADER);
+            }
+            this.deflater = acquire(gzip, level);
+            this.chunk = BufferPool.acquire(8 * 1024);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return;
+            if (deflater == null) throw new IOException("Flux de compression terminé");
+            deflater.setInput(b, off, len);
+            while (!deflater.needsInput()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            if (gzip) crc.update(b, off, len);
+            length += len;
+        }
+
+        /**
+         * Envoie tout ce qui a été compressé jusqu'ici (SYNC_FLUSH)
+         */
+        @Override
+        public void flush() throws IOException {
+            if (deflater == null) return;
+            int count;
+            do {
+                count = deflater.deflate(chunk, 0, chunk.length, Deflater.SYNC_FLUSH);
+                out.write(chunk, 0, count);
+            } while (count == chunk.length);
+            out.flush();
+        }
+
+        /**
+         * Termine le flux compressé (out reste ouvert)
+         */
+        void finish() throws IOException {
+            if (deflater == null) return;
+            try {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    out.write(chunk, 0, deflater.deflate(chunk));
+                }
+                if (gzip) {
+                    writeIntLittleEndian(out, (int) crc.getValue());
+                    writeIntLittleEndian(out, length);
+                }
+            } finally {
+                discard();
+            }
+        }
+
+        /**
+         * Rend le Deflater et le tampon sans terminer le flux (requête en échec)
+         */
+        void discard() {
+            if (deflater == null) return;
+            BufferPool.release(chunk);
+            release(deflater, gzip, level);
+            deflater = null;
+            chunk = null;
+        }
+
+        private static void writeIntLittleEndian(OutputStream out, int value) throws IOException {
+            out.write(value & 0xff);
+            out.write((value >>> 8) & 0xff);
+            out.write((value >>> 16) & 0xff);
+            out.write((value >>> 24) & 0xff);
+        }
+    }
+
+    private static ArrayBlockingQueue<Deflater> pool(boolean gzip, int level) {
+        return POOLS.get(gzip ? level : 10 + level);
+    }
+
+    private static Deflater acquire(boolean gzip, int level) {
+        Deflater deflater = pool(gzip, level).poll();
+        // gzip : flux deflate brut, l'en-tête et la fin sont écrits par compress()
+        return deflater != null ? deflater : new Deflater(level, gzip);
+    }
+
+    private static void release(Deflater deflater, boolean gzip, int level) {
+        deflater.reset();
+        if (!pool(gzip, level).offer(deflater)) {
+            // Pool plein : libère la mémoire native tout de suite
+            deflater.end();
+        }
+    }
+
+    private static void writeIntLittleEndian(PooledByteOutput out, int value) {
+        out.write(value & 0xff);
+        out.write((value >>> 8) & 0xff);
+        out.write((value >>> 16) & 0xff);
+        out.write((value >>> 24) & 0xff);
+    }
+}
@@ -0,0 +1,382 @@
+package com;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.MappingHelper.MethodMatchResult;
+import lookup.MappingAnalyzer.MappedMethod;
+
+/**
+ * Table de routage immuable
+ *
+ * Construite une fois (au démarrage ou à chaque rechargement en mode développement)
+ * puis publiée par une référence volatile dans RedirectionServlet. Une requête lit la
+ * référence une seule fois et travaille sur cet instantané : un rechargement remplace
+ * la table entière sans affecter les requêtes en cours.
+ *
+ * Les structures sont des tableaux compacts remplis dans le constructeur et jamais
+ * modifiés ensuite (champs final) : la lecture ne prend aucun verrou.
+ * - URLs statiques : table de hachage à adressage ouvert (clés, hashs et méthodes
+ *   dans des tableaux parallèles), cherchée sans créer de sous-chaîne
+ * - URLs dynamiques : arbre des segments des patterns, parcouru sur le chemin brut
+ *   par positions (début, fin) ; les variables ne deviennent des String que lues
+ *
+ * Le chemin peut être l'URI complète : match(uri, from, context) commence à la
+ * position from (longueur du contexte), sans sous-chaîne. Un chemin encodé (%XX),
+ * avec des slashs doubles ou finaux ou des segments "." / ".." passe d'abord par
+ * PathNormalizer ; les patterns sont comparés au chemin décodé.
+ */
+public final class RouteTable {
+
+    private static final RouteTable EMPTY = new RouteTable(new ArrayList<>(), new ArrayList<>());
+
+    // URLs statiques (sans slash initial) : table à adressage ouvert, taille puissance de 2
+    private final String[] staticKeys;
+    private final int[] staticHashes;
+    private final MappedMethod[] staticMethods;
+    private final int staticMask;
+    private final int staticCount;
+
+    // URLs avec variables, dans l'ordre d'enregistrement
+    private final MappedMethod[] dynamicMethods;
+    // Segments de chaque pattern ; pour une variable, le segment est son nom
+    private final String[][] dynamicSegments;
+    private final boolean[][] dynamicVariables;
+    // Arbre des segments des URLs dynamiques
+    private final SegmentNode dynamicRoot = new SegmentNode();
+
+    /**
+     * Nœud de l'arbre des URLs dynamiques : un par préfixe de pattern
+     * Rempli dans le constructeur de RouteTable, jamais modifié ensuite.
+     */
+    private static final class SegmentNode {
+        private String[] literals = new String[0];
+        private SegmentNode[] children = new SegmentNode[0];
+        private SegmentNode variable;
+        // Plus petit index (ordre d'enregistrement) des routes dont le pattern s'arrête ici
+        private int route = -1;
+
+        SegmentNode literal(String segment) {
+            for (int i = 0; i < literals.length; i++) {
+                if (literals[i].equals(segment)) return children[i];
+            }
+            literals = Arrays.copyOf(literals, literals.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            literals[literals.length - 1] = segment;
+            children[children.length - 1] = new SegmentNode();
+            return children[children.length - 1];
+        }
+
+        SegmentNode variable() {
+            if (variable == null) variable = new SegmentNode();
+            return variable;
+        }
+    }
+
+    private RouteTable(List<MappedMethod> staticRoutes, List<MappedMethod> dynamicRoutes) {
+        int capacity = Integer.highestOneBit(Math.max(2, staticRoutes.size() * 2 - 1)) << 1;
+        this.staticKeys = new String[capacity];
+        this.staticHashes = new int[capacity];
+        this.staticMethods = new MappedMethod[capacity];
+        this.staticMask = capacity - 1;
+
+        int count = 0;
+        for (MappedMethod mappedMethod : staticRoutes) {
+            String key = normalize(mappedMethod.getUrl());
+            int hash = key.hashCode();
+            int slot = spread(hash) & staticMask;
+            while (staticKeys[slot] != null && !staticKeys[slot].equals(key)) {
+                slot = (slot + 1) & staticMask;
+            }
+            if (staticKeys[slot] != null) {
+                System.err.println("Conflit de mapping pour l'URL: " + key);
+            } else {
+                count++;
+            }
+            // Comme avant : la dernière déclaration l'emporte
+            staticKeys[slot] = key;
+            staticHashes[slot] = hash;
+            staticMethods[slot] = mappedMethod;
+        }
+        this.staticCount = count;
+
+        int dynamicCount = dynamicRoutes.size();
+        this.dynamicMethods = dynamicRoutes.toArray(new MappedMethod[dynamicCount]);
+        this.dynamicSegments = new String[dynamicCount][];
+        this.dynamicVariables = new boolean[dynamicCount][];
+        for (int i = 0; i < dynamicCount; i++) {
+            String[] segments = normalize(dynamicMethods[i].getUrl()).split("/");
+            boolean[] variables = new boolean[segments.length];
+            for (int j = 0; j < segments.length; j++) {
+                String segment = segments[j];
+                if (segment.startsWith("{") && segment.endsWith("}")) {
+                    segments[j] = segment.substring(1, segment.length() - 1).trim();
+                    variables[j] = true;
+                }
+            }
+            dynamicSegments[i] = segments;
+            dynamicVariables[i] = variables;
+            insert(i, segments, variables);
+        }
+    }
+
+    private void insert(int route, String[] segments, boolean[] variables) {
+        SegmentNode node = dynamicRoot;
+        for (int j = 0; j < segments.length; j++) {
+            if (variables[j] && segments[j].isEmpty()) {
+                // Variable sans nom ("{}") : le pattern ne correspond à aucun chemin
+                return;
+            }
+            node = variables[j] ? node.variable() : node.literal(segments[j]);
+        }
+        if (node.route < 0) {
+            node.route = route;
+        }
+    }
+
+    /**
+     * Construit la table des URLs vers les méthodes annotées
+     * Sépare les URLs statiques (ex: /users) des URLs dynamiques (ex: /users/{id})
+     *
+     * @param methods Les méthodes mappées (scan, index ou rechargement)
+     */
+    public static RouteTable build(List<MappedMethod> methods) {
+        List<MappedMethod> staticRoutes = new ArrayList<>();
+        List<MappedMethod> dynamicRoutes = new ArrayList<>();
+
+        for (MappedMethod mappedMethod : methods) {
+            String url = mappedMethod.getUrl();
+
+            if (url == null) continue;
+
+            // Si l'URL contient des accolades {}, c'est une URL dynamique
+            if (url.contains("{")) {
+                dynamicRoutes.add(mappedMethod);
+            } else {
+                staticRoutes.add(mappedMethod);
+            }
+        }
+        return new RouteTable(staticRoutes, dynamicRoutes);
+    }
+
+    /** Table vide (avant l'initialisation) */
+    public static RouteTable empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Cherche la route correspondant au chemin, d'abord parmi les URLs statiques
+     * puis parmi les URLs dynamiques (dans l'ordre d'enregistrement)
+     *
+     * @param path Le chemin de la requête (avec ou sans slash initial)
+     * @return La méthode et les variables de chemin, ou null si aucune route ne correspond
+     */
+    public MethodMatchResult match(String path) {
+        MappedMethod staticMethod = findStatic(path);
+        if (staticMethod != null) {
+            return new MethodMatchResult(staticMethod, new HashMap<>());
+        }
+        return findDynamic(path);
+    }
+
+    /**
+     * Cherche la route et remplit le contexte de la requête, sans rien allouer
+     * Les variables de chemin sont notées par position dans path (voir RequestContext).
+     *
+     * @return true si une route correspond
+     */
+    boolean match(String path, RequestContext context) {
+        return match(path, 0, context);
+    }
+
+    /**
+     * Comme match(path, context), pour le chemin qui commence à la position from
+     * (l'URI de la requête, from = longueur du chemin de contexte)
+     */
+    boolean match(String path, int from, RequestContext context) {
+        if (PathNormalizer.needsNormalization(path, from)) {
+            path = PathNormalizer.normalize(path, from, context);
+            from = 0;
+        }
+        MappedMethod staticMethod = findStatic(path, from);
+        if (staticMethod != null) {
+            context.setMatch(staticMethod, path, from);
+            return true;
+        }
+        if (dynamicMethods.length == 0) return false;
+
+        int start = path.startsWith("/", from) ? from + 1 : from;
+        int end = trimmedEnd(path, start);
+        int route = findDynamicRoute(path, start, end);
+        if (route < 0) return false;
+
+        context.setMatch(dynamicMethods[route], path, from);
+        String[] segments = dynamicSegments[route];
+        boolean[] variables = dynamicVariables[route];
+        int segmentStart = start;
+        for (int s = 0; s < segments.length; s++) {
+            int segmentEnd = path.indexOf('/', segmentStart);
+            if (segmentEnd < 0 || segmentEnd > end) segmentEnd = end;
+            if (variables[s]) {
+                context.addVariable(segments[s], segmentStart, segmentEnd);
+            }
+            segmentStart = segmentEnd + 1;
+        }
+        return true;
+    }
+
+    /**
+     * Cherche une URL statique
+     * Le hash est calculé sur la partie du chemin qui suit le slash initial :
+     * aucune sous-chaîne n'est créée.
+     */
+    public MappedMethod findStatic(String path) {
+        return findStatic(path, 0);
+    }
+
+    private MappedMethod findStatic(String path, int from) {
+        int start = path.startsWith("/", from) ? from + 1 : from;
+        int length = path.length() - start;
+        int hash = 0;
+        for (int i = start; i < path.length(); i++) {
+            hash = 31 * hash + path.charAt(i);
+        }
+        int slot = spread(hash) & staticMask;
+        String key;
+        while ((key = staticKeys[slot]) != null) {
+            if (staticHashes[slot] == hash && key.length() == length
+                    && key.regionMatches(0, path, start, length)) {
+                return staticMethods[slot];
+            }
+            slot = (slot + 1) & staticMask;
+        }
+        return null;
+    }
+
+    /**
+     * Cherche une URL dynamique et extrait ses variables
+     * Les segments du chemin sont comparés en place ; comme String.split, les
+     * slashs finaux sont ignorés.
+     */
+    public MethodMatchResult findDynamic(String path) {
+        if (dynamicMethods.length == 0) return null;
+
+        int start = path.startsWith("/") ? 1 : 0;
+        int end = trimmedEnd(path, start);
+        int route = findDynamicRoute(path, start, end);
+        if (route < 0) return null;
+        return new MethodMatchResult(dynamicMethods[route], extractVariables(route, path, start, end));
+    }
+
+    // Fin du chemin sans les slashs finaux
+    private static int trimmedEnd(String path, int start) {
+        int end = path.length();
+        while (end > start && path.charAt(end - 1) == '/') {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Index de la première route dynamique (ordre d'enregistrement) dont les segments
+     * correspondent, ou -1
+     */
+    private int findDynamicRoute(String path, int start, int end) {
+        // Chemin fait uniquement de slashs : comme String.split, aucun segment
+        if (end == start) return -1;
+        return findRoute(dynamicRoot, path, start, end);
+    }
+
+    /**
+     * Parcours de l'arbre à partir du segment qui commence en segmentStart
+     * Un segment littéral et une variable peuvent correspondre au même endroit :
+     * les deux branches sont suivies et la route enregistrée la première l'emporte.
+     */
+    private static int findRoute(SegmentNode node, String path, int segmentStart, int end) {
+        if (segmentStart > end) return node.route;
+
+        int segmentEnd = path.indexOf('/', segmentStart);
+        if (segmentEnd < 0 || segmentEnd > end) segmentEnd = end;
+        int length = segmentEnd - segmentStart;
+
+        int best = -1;
+        String[] literals = node.literals;
+        for (int i = 0; i < literals.length; i++) {
+            if (literals[i].length() == length && literals[i].regionMatches(0, path, segmentStart, length)) {
+                best = findRoute(node.children[i], path, segmentEnd + 1, end);
+                break;
+            }
+        }
+        if (node.variable != null) {
+            int route = findRoute(node.variable, path, segmentEnd + 1, end);
+            if (route >= 0 && (best < 0 || route < best)) best = route;
+        }
+        return best;
+    }
+
+    private Map<String, String> extractVariables(int route, String path, int start, int end) {
+        String[] segments = dynamicSegments[route];
+        boolean[] variables = dynamicVariables[route];
+        Map<String, String> values = new LinkedHashMap<>();
+        int segmentStart = start;
+        for (int s = 0; s < segments.length; s++) {
+            int segmentEnd = path.indexOf('/', segmentStart);
+            if (segmentEnd < 0 || segmentEnd > end) segmentEnd = end;
+            if (variables[s]) {
+                values.put(segments[s], path.substring(segmentStart, segmentEnd));
+            }
+            segmentStart = segmentEnd + 1;
+        }
+        return values;
+    }
+
+    /**
+     * URLs statiques (sans slash initial) vers les méthodes
+     * Copie construite à la demande (page d'accueil), pas utilisée pour le routage.
+     */
+    public Map<String, MappedMethod> getStaticRoutes() {
+        Map<String, MappedMethod> routes = new HashMap<>(staticCount * 2);
+        for (int i = 0; i < staticKeys.length; i++) {
+            if (staticKeys[i] != null) {
+                routes.put(staticKeys[i], staticMethods[i]);
+            }
+        }
+        return Collections.unmodifiableMap(routes);
+    }
+
+    public List<MappedMethod> getDynamicRoutes() {
+        return Collections.unmodifiableList(Arrays.asList(dynamicMethods));
+    }
+
+    /**
+     * Toutes les méthodes de la table (statiques puis dynamiques)
+     */
+    public List<MappedMethod> getAllRoutes() {
+        List<MappedMethod> all = new ArrayList<>(staticCount + dynamicMethods.length);
+        for (MappedMethod mappedMethod : staticMethods) {
+            if (mappedMethod != null) all.add(mappedMethod);
+        }
+        all.addAll(Arrays.asList(dynamicMethods));
+        return all;
+    }
+
+    // Sans slash initial ni final : "/users/" est servie pour "/users" et "/users/"
+    private static String normalize(String url) {
+        int start = url.startsWith("/") ? 1 : 0;
+        int end = url.length();
+        while (end > start && url.charAt(end - 1) == '/') {
+            end--;
+        }
+        return url.substring(start, end);
+    }
+
+    // Mélange les bits de poids fort dans les bits bas (comme HashMap)
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
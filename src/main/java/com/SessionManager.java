@@ -1,5 +1,8 @@
 package com;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -18,6 +21,7 @@ import jakarta.servlet.http.HttpServletResponse;
  * - Gestion des cookies de session
  * - Nettoyage automatique des sessions expirées
  * - Thread-safe avec ConcurrentHashMap
+ * - Mode sans état optionnel : session portée par un cookie signé (aucun stockage serveur)
  */
 public class SessionManager {
     
@@ -30,9 +34,64 @@ public class SessionManager {
     // Nom du cookie de session
     private static final String SESSION_COOKIE_NAME = "FRAMEWORK_SESSIONID";
     
+    // Nom du cookie portant la session signée (mode sans état)
+    private static final String SIGNED_SESSION_COOKIE_NAME = "FRAMEWORK_SESSION";
+    
+    // Codec des sessions cookie, null en mode serveur (par défaut)
+    private static volatile SignedCookieSessionCodec cookieCodec;
+    
     // Durée de vie par défaut d'une session (30 minutes)
     private static final long DEFAULT_SESSION_TIMEOUT = 30 * 60 * 1000; // 30 minutes en ms
     
+    // Intervalle minimal entre deux mises à jour de lastAccessed/expiresAt (5 secondes)
+    private static final long DEFAULT_TOUCH_INTERVAL = 5 * 1000;
+    
+    // Intervalle de rafraîchissement configurable (init-param "session.touchInterval")
+    private static volatile long touchInterval = DEFAULT_TOUCH_INTERVAL;
+    
+    /**
+     * Configure l'intervalle minimal entre deux rafraîchissements d'une même session
+     * Les accès plus rapprochés ne modifient pas les métadonnées de session
+     * 
+     * @param intervalMillis L'intervalle en millisecondes (0 = rafraîchir à chaque accès)
+     */
+    public static void setTouchInterval(long intervalMillis) {
+        touchInterval = Math.max(0, intervalMillis);
+    }
+    
+    /**
+     * Active le mode sans état : les données de session sont sérialisées dans un
+     * cookie signé à la place de FRAMEWORK_SESSIONID, aucun état n'est gardé côté serveur
+     * 
+     * @param codec Le codec de signature/chiffrement (même secret sur tous les noeuds)
+     */
+    public static void useSignedCookieSessions(SignedCookieSessionCodec codec) {
+        cookieCodec = codec;
+    }
+    
+    /**
+     * Indique si les sessions sont portées par un cookie signé
+     */
+    public static boolean isSignedCookieMode() {
+        return cookieCodec != null;
+    }
+    
+    /**
+     * Ouvre la vue de session de la requête et l'attache au thread courant
+     * En mode serveur, la session est récupérée ou créée dans le stockage ;
+     * en mode cookie, elle est décodée depuis le cookie signé.
+     * 
+     * @param request La requête HTTP
+     * @param response La réponse HTTP
+     * @return La vue de session de la requête
+     */
+    public static RequestSession beginRequestSession(HttpServletRequest request, HttpServletResponse response) {
+        if (cookieCodec != null) {
+            return RequestSession.bind(decodeCookieSession(request, response));
+        }
+        return RequestSession.begin(getOrCreateSession(request, response));
+    }
+    
     /**
      * Récupère ou crée une session pour la requête actuelle
      * 
@@ -41,6 +100,15 @@ public class SessionManager {
      * @return L'ID de session
      */
     public static String getOrCreateSession(HttpServletRequest request, HttpServletResponse response) {
+        if (cookieCodec != null) {
+            // Mode cookie : la session n'existe que dans la vue de la requête
+            RequestSession requestSession = RequestSession.current();
+            if (requestSession == null) {
+                requestSession = beginRequestSession(request, response);
+            }
+            return requestSession.getSessionId();
+        }
+        
         String sessionId = getSessionIdFromRequest(request);
         
         if (sessionId == null || !sessions.containsKey(sessionId) || isSessionExpired(sessionId)) {
@@ -58,10 +126,17 @@ public class SessionManager {
      * Récupère l'ID de session depuis les cookies de la requête
      */
     private static String getSessionIdFromRequest(HttpServletRequest request) {
+        return getCookieValue(request, SESSION_COOKIE_NAME);
+    }
+    
+    /**
+     * Récupère la valeur d'un cookie de la requête
+     */
+    private static String getCookieValue(HttpServletRequest request, String name) {
         Cookie[] cookies = request.getCookies();
         if (cookies != null) {
             for (Cookie cookie : cookies) {
-                if (SESSION_COOKIE_NAME.equals(cookie.getName())) {
+                if (name.equals(cookie.getName())) {
                     return cookie.getValue();
                 }
             }
@@ -69,40 +144,103 @@ public class SessionManager {
         return null;
     }
     
+    /**
+     * Décode la session portée par le cookie signé
+     * Un cookie absent, altéré ou expiré donne une nouvelle session vide
+     */
+    private static RequestSession decodeCookieSession(HttpServletRequest request, HttpServletResponse response) {
+        SignedCookieSessionCodec.DecodedSession decoded =
+            cookieCodec.decode(getCookieValue(request, SIGNED_SESSION_COOKIE_NAME));
+        
+        if (decoded == null || System.currentTimeMillis() > decoded.getIssuedAt() + DEFAULT_SESSION_TIMEOUT) {
+            return new RequestSession(UUID.randomUUID().toString(), new HashMap<>(), response, 0);
+        }
+        return new RequestSession(decoded.getSessionId(), decoded.getData(), response, decoded.getIssuedAt());
+    }
+    
+    /**
+     * Indique si un cookie de session émis à issuedAt doit être réémis pour repousser son expiration
+     */
+    static boolean isCookieRefreshDue(long issuedAt) {
+        return issuedAt > 0 && System.currentTimeMillis() - issuedAt >= touchInterval;
+    }
+    
+    /**
+     * Écrit (ou réécrit) le cookie signé contenant les données de session
+     */
+    static void writeCookieSession(HttpServletResponse response, String sessionId, Map<String, Object> data) {
+        if (response == null || response.isCommitted()) {
+            System.err.println("Session cookie non écrite (réponse déjà envoyée): " + sessionId);
+            return;
+        }
+        String value = cookieCodec.encode(sessionId, System.currentTimeMillis(), data);
+        response.addCookie(buildSessionCookie(SIGNED_SESSION_COOKIE_NAME, value,
+            (int) (DEFAULT_SESSION_TIMEOUT / 1000)));
+    }
+    
+    /**
+     * Supprime le cookie signé côté client
+     */
+    static void clearCookieSession(HttpServletResponse response) {
+        if (response != null && !response.isCommitted()) {
+            response.addCookie(buildSessionCookie(SIGNED_SESSION_COOKIE_NAME, "", 0));
+        }
+    }
+    
+    /**
+     * Construit un cookie de session HttpOnly valable pour toute l'application
+     */
+    private static Cookie buildSessionCookie(String name, String value, int maxAgeSeconds) {
+        Cookie sessionCookie = new Cookie(name, value);
+        sessionCookie.setHttpOnly(true);
+        sessionCookie.setPath("/");
+        sessionCookie.setMaxAge(maxAgeSeconds);
+        return sessionCookie;
+    }
+    
     /**
      * Crée une nouvelle session
      */
     private static String createNewSession(HttpServletResponse response) {
-        String sessionId = UUID.randomUUID().toString();
-        
-        // Créer la map de données de session
-        sessions.put(sessionId, new ConcurrentHashMap<>());
-        
-        // Créer les métadonnées de session
-        sessionMetadata.put(sessionId, new SessionMetadata(
-            System.currentTimeMillis(),
-            System.currentTimeMillis() + DEFAULT_SESSION_TIMEOUT
-        ));
+        String sessionId = openSession(System.currentTimeMillis());
         
         // Créer le cookie de session
-        Cookie sessionCookie = new Cookie(SESSION_COOKIE_NAME, sessionId);
-        sessionCookie.setHttpOnly(true);
-        sessionCookie.setPath("/");
-        sessionCookie.setMaxAge((int) (DEFAULT_SESSION_TIMEOUT / 1000)); // En secondes
-        response.addCookie(sessionCookie);
+        response.addCookie(buildSessionCookie(SESSION_COOKIE_NAME, sessionId,
+            (int) (DEFAULT_SESSION_TIMEOUT / 1000))); // En secondes
         
         System.out.println("Nouvelle session créée: " + sessionId);
         return sessionId;
     }
     
+    /**
+     * Enregistre une session vide créée à l'instant now (sans cookie)
+     */
+    static String openSession(long now) {
+        String sessionId = UUID.randomUUID().toString();
+        
+        // Créer les métadonnées de session (avant les données : une session sans
+        // métadonnées est considérée comme expirée)
+        sessionMetadata.put(sessionId, new SessionMetadata(now));
+        
+        // Créer la map de données de session
+        sessions.put(sessionId, new ConcurrentHashMap<>());
+        return sessionId;
+    }
+    
     /**
      * Rafraîchit l'expiration d'une session
+     * Les mises à jour sont regroupées : au plus une par touchInterval
+     * Sans verrou : plusieurs requêtes concurrentes sur la même session ne
+     * peuvent ni reculer lastAccessed ni ressusciter une session expirée.
      */
     private static void refreshSession(String sessionId) {
+        refreshSession(sessionId, System.currentTimeMillis());
+    }
+    
+    static void refreshSession(String sessionId, long now) {
         SessionMetadata metadata = sessionMetadata.get(sessionId);
         if (metadata != null) {
-            metadata.lastAccessed = System.currentTimeMillis();
-            metadata.expiresAt = System.currentTimeMillis() + DEFAULT_SESSION_TIMEOUT;
+            metadata.touch(now, touchInterval);
         }
     }
     
@@ -110,8 +248,33 @@ public class SessionManager {
      * Vérifie si une session a expiré
      */
     private static boolean isSessionExpired(String sessionId) {
+        return isSessionExpired(sessionId, System.currentTimeMillis());
+    }
+    
+    static boolean isSessionExpired(String sessionId, long now) {
         SessionMetadata metadata = sessionMetadata.get(sessionId);
-        return metadata == null || System.currentTimeMillis() > metadata.expiresAt;
+        return metadata == null || metadata.isExpired(now);
+    }
+    
+    /**
+     * Métadonnées d'une session, ou null si elle n'est pas (ou plus) enregistrée
+     */
+    static SessionMetadata metadata(String sessionId) {
+        return sessionMetadata.get(sessionId);
+    }
+    
+    /**
+     * Vrai si la session a encore sa map de données
+     */
+    static boolean hasData(String sessionId) {
+        return sessions.containsKey(sessionId);
+    }
+    
+    /**
+     * Durée de vie d'une session sans accès, en millisecondes
+     */
+    static long sessionTimeout() {
+        return DEFAULT_SESSION_TIMEOUT;
     }
     
     /**
@@ -122,6 +285,18 @@ public class SessionManager {
      * @return La valeur ou null si non trouvée
      */
     public static Object getSessionValue(String sessionId, String key) {
+        // Pendant une requête du framework, la lecture passe par la vue de la requête
+        RequestSession requestSession = RequestSession.currentFor(sessionId);
+        if (requestSession != null) {
+            return requestSession.get(key);
+        }
+        return readStoredValue(sessionId, key);
+    }
+    
+    /**
+     * Lit une valeur directement dans le stockage des sessions
+     */
+    static Object readStoredValue(String sessionId, String key) {
         Map<String, Object> sessionData = sessions.get(sessionId);
         return sessionData != null ? sessionData.get(key) : null;
     }
@@ -134,6 +309,12 @@ public class SessionManager {
      * @param value La valeur
      */
     public static void setSessionValue(String sessionId, String key, Object value) {
+        // Pendant une requête du framework, l'écriture est différée jusqu'au flush
+        RequestSession requestSession = RequestSession.currentFor(sessionId);
+        if (requestSession != null) {
+            requestSession.set(key, value);
+            return;
+        }
         Map<String, Object> sessionData = sessions.get(sessionId);
         if (sessionData != null) {
             sessionData.put(key, value);
@@ -148,18 +329,57 @@ public class SessionManager {
      * @param key La clé à supprimer
      */
     public static void removeSessionValue(String sessionId, String key) {
+        RequestSession requestSession = RequestSession.currentFor(sessionId);
+        if (requestSession != null) {
+            requestSession.remove(key);
+            return;
+        }
         Map<String, Object> sessionData = sessions.get(sessionId);
         if (sessionData != null) {
             sessionData.remove(key);
         }
     }
     
+    /**
+     * Applique en un seul lot les modifications d'une vue de requête
+     * Une valeur null signifie que la clé doit être supprimée
+     * 
+     * @param sessionId L'ID de session
+     * @param changes Les clés modifiées et leurs nouvelles valeurs
+     */
+    static void applyChanges(String sessionId, Map<String, Object> changes) {
+        Map<String, Object> sessionData = sessions.get(sessionId);
+        if (sessionData == null || changes.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<String, Object> entry : changes.entrySet()) {
+            if (entry.getValue() == null) {
+                sessionData.remove(entry.getKey());
+            } else {
+                sessionData.put(entry.getKey(), entry.getValue());
+            }
+        }
+        refreshSession(sessionId);
+    }
+    
     /**
      * Détruit complètement une session
      * 
      * @param sessionId L'ID de session
      */
     public static void destroySession(String sessionId) {
+        SessionMetadata metadata = sessionMetadata.get(sessionId);
+        if (metadata != null) {
+            metadata.kill();
+        }
+        RequestSession requestSession = RequestSession.currentFor(sessionId);
+        if (requestSession != null) {
+            requestSession.markDestroyed();
+            if (cookieCodec != null) {
+                // Mode cookie : la destruction consiste à faire expirer le cookie
+                requestSession.expireCookie();
+            }
+        }
         sessions.remove(sessionId);
         sessionMetadata.remove(sessionId);
         System.out.println("Session détruite: " + sessionId);
@@ -169,9 +389,13 @@ public class SessionManager {
      * Nettoie les sessions expirées (à appeler périodiquement)
      */
     public static void cleanupExpiredSessions() {
-        long now = System.currentTimeMillis();
+        cleanupExpiredSessions(System.currentTimeMillis());
+    }
+    
+    static void cleanupExpiredSessions(long now) {
         sessionMetadata.entrySet().removeIf(entry -> {
-            if (now > entry.getValue().expiresAt) {
+            // expire() échoue si une requête concurrente vient de rafraîchir la session
+            if (entry.getValue().expire(now)) {
                 sessions.remove(entry.getKey());
                 System.out.println("Session expirée nettoyée: " + entry.getKey());
                 return true;
@@ -187,6 +411,15 @@ public class SessionManager {
      * @return Map contenant toutes les données de session
      */
     public static Map<String, Object> getSessionData(String sessionId) {
+        // Les écritures en attente de la requête doivent être visibles
+        RequestSession requestSession = RequestSession.currentFor(sessionId);
+        if (requestSession != null) {
+            requestSession.markRead();
+            requestSession.flush();
+            if (cookieCodec != null) {
+                return requestSession.getCookieData();
+            }
+        }
         return sessions.get(sessionId);
     }
     
@@ -197,21 +430,88 @@ public class SessionManager {
      * @return true si la session existe et n'est pas expirée
      */
     public static boolean sessionExists(String sessionId) {
+        if (cookieCodec != null) {
+            return sessionId != null && RequestSession.currentFor(sessionId) != null;
+        }
         return sessionId != null && sessions.containsKey(sessionId) && !isSessionExpired(sessionId);
     }
     
     /**
      * Classe interne pour stocker les métadonnées de session
+     * 
+     * L'état mutable tient dans un seul long (lastAccessed) : l'expiration en est
+     * déduite (lastAccessed + timeout). Il est lu en acquire et modifié par CAS
+     * release via un VarHandle, ce qui rend les accès concurrents corrects sans verrou.
+     * La valeur DEAD marque une session détruite ou nettoyée.
      */
-    private static class SessionMetadata {
-        long createdAt;
-        long lastAccessed;
-        long expiresAt;
+    static final class SessionMetadata {
+        static final long DEAD = Long.MIN_VALUE;
+        private static final VarHandle LAST_ACCESSED;
+        
+        static {
+            try {
+                LAST_ACCESSED = MethodHandles.lookup()
+                    .findVarHandle(SessionMetadata.class, "lastAccessed", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+        
+        final long createdAt;
+        // Modifié uniquement via LAST_ACCESSED
+        private volatile long lastAccessed;
         
-        SessionMetadata(long createdAt, long expiresAt) {
+        SessionMetadata(long createdAt) {
             this.createdAt = createdAt;
             this.lastAccessed = createdAt;
-            this.expiresAt = expiresAt;
+        }
+        
+        long lastAccessed() {
+            return (long) LAST_ACCESSED.getAcquire(this);
+        }
+        
+        boolean isExpired(long now) {
+            long last = lastAccessed();
+            return last == DEAD || now > last + DEFAULT_SESSION_TIMEOUT;
+        }
+        
+        /**
+         * Avance lastAccessed jusqu'à now si au moins interval ms se sont écoulées
+         * Une valeur plus récente écrite par un autre thread n'est jamais écrasée, et une
+         * session déjà expirée à l'instant now (même pas encore nettoyée) n'est pas ranimée.
+         */
+        void touch(long now, long interval) {
+            long last = lastAccessed();
+            while (last != DEAD && now - last >= interval && now > last
+                    && now <= last + DEFAULT_SESSION_TIMEOUT) {
+                if (LAST_ACCESSED.weakCompareAndSetRelease(this, last, now)) {
+                    return;
+                }
+                last = lastAccessed();
+            }
+        }
+        
+        /**
+         * Marque la session comme morte si elle est expirée à l'instant now
+         * 
+         * @return true si la session est (désormais) morte
+         */
+        boolean expire(long now) {
+            long last = lastAccessed();
+            while (last == DEAD || now > last + DEFAULT_SESSION_TIMEOUT) {
+                if (last == DEAD || LAST_ACCESSED.weakCompareAndSetRelease(this, last, DEAD)) {
+                    return true;
+                }
+                last = lastAccessed();
+            }
+            return false;
+        }
+        
+        /**
+         * Marque la session comme morte sans condition
+         */
+        void kill() {
+            LAST_ACCESSED.setRelease(this, DEAD);
         }
     }
 }
@@ -0,0 +1,96 @@
+package com;
+
+import java.util.Enumeration;
+
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpSession;
+
+/**
+ * Requête d'une méthode @Cacheable : note si la réponse a lu des données de session
+ *
+ * La clé du cache ne contient pas la session, une réponse qui en dépend ne doit donc
+ * pas être mise en cache. Sont considérées comme lues :
+ * - une valeur de la session du framework (RequestSession)
+ * - un attribut non nul de la HttpSession du conteneur (ex: ${sessionScope.x} ou ${x}
+ *   résolu dans la session par une JSP), ou la liste de ses attributs
+ *
+ * Ouvrir la HttpSession ne suffit pas : les JSP le font par défaut (session="true").
+ */
+final class SessionTrackingRequest extends HttpServletRequestWrapper {
+
+    private boolean sessionRead;
+
+    SessionTrackingRequest(HttpServletRequest request) {
+        super(request);
+    }
+
+    /**
+     * Vrai si la réponse a lu des données de session pendant la requête
+     */
+    boolean wasSessionRead() {
+        if (sessionRead) return true;
+        RequestSession requestSession = RequestSession.current();
+        return requestSession != null && requestSession.wasRead();
+    }
+
+    @Override
+    public HttpSession getSession(boolean create) {
+        HttpSession session = super.getSession(create);
+        return session != null ? new TrackedSession(session) : null;
+    }
+
+    @Override
+    public HttpSession getSession() {
+        return getSession(true);
+    }
+
+    /**
+     * HttpSession qui signale ses lectures à la requête
+     */
+    private final class TrackedSession implements HttpSession {
+
+        private final HttpSession session;
+
+        TrackedSession(HttpSession session) {
+            this.session = session;
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            Object value = session.getAttribute(name);
+            if (value != null) sessionRead = true;
+            return value;
+        }
+
+        @Override
+        public Enumeration<String> getAttributeNames() {
+            sessionRead = true;
+            return session.getAttributeNames();
+        }
+
+        @Override
+        public long getCreationTime() { return session.getCreationTime(); }
+        @Override
+        public String getId() { return session.getId(); }
+        @Override
+        public long getLastAccessedTime() { return session.getLastAccessedTime(); }
+        @Override
+        public ServletContext getServletContext() { return session.getServletContext(); }
+        @Override
+        public void setMaxInactiveInterval(int interval) { session.setMaxInactiveInterval(interval); }
+        @Override
+        public int getMaxInactiveInterval() { return session.getMaxInactiveInterval(); }
+        @Override
+        public void setAttribute(String name, Object value) { session.setAttribute(name, value); }
+        @Override
+        public void removeAttribute(String name) { session.removeAttribute(name); }
+        @Override
+        public void invalidate() { session.invalidate(); }
+        @Override
+        public boolean isNew() { return session.isNew(); }
+        @Override
+        public Accessor getAccessor() { return session.getAccessor(); }
+    }
+}
@@ -0,0 +1,210 @@
+package com;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Encodage des sessions sans état dans un cookie signé (HMAC-SHA256)
+ * et optionnellement chiffré (AES-GCM)
+ *
+ * Format du cookie : base64url(corps) + "." + base64url(signature)
+ * Le corps contient l'ID de session, la date d'émission et la map des attributs
+ * (sérialisation Java). La signature est vérifiée avant toute désérialisation.
+ *
+ * La désérialisation n'accepte que les classes de java.lang, java.util, java.time et
+ * java.math, plus celles ajoutées par l'application (session.cookie.allowedClasses) :
+ * un secret divulgué ne suffit pas à faire instancier une classe arbitraire.
+ */
+public class SignedCookieSessionCodec {
+
+    // Taille maximale d'un cookie acceptée par les navigateurs (marge comprise)
+    public static final int MAX_COOKIE_LENGTH = 4000;
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String CIPHER_ALGORITHM = "AES/GCM/NoPadding";
+    private static final int GCM_IV_LENGTH = 12;
+    private static final int GCM_TAG_BITS = 128;
+
+    // Limites appliquées à la désérialisation d'un corps signé
+    private static final String INPUT_LIMITS = "maxdepth=16;maxrefs=4096;maxbytes=" + MAX_COOKIE_LENGTH;
+
+    // Classes acceptées par défaut dans les attributs (tout le reste est refusé)
+    private static final String DEFAULT_ALLOWED_CLASSES = "java.lang.*;java.util.*;java.time.*;java.math.*";
+
+    private final ObjectInputFilter inputFilter;
+
+    private final SecretKeySpec macKey;
+    private final SecretKeySpec cipherKey;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * @param secret Le secret partagé par tous les noeuds (au moins 32 caractères)
+     * @param encrypt true pour chiffrer le contenu du cookie en plus de le signer
+     */
+    public SignedCookieSessionCodec(String secret, boolean encrypt) {
+        this(secret, encrypt, null);
+    }
+
+    /**
+     * @param secret Le secret partagé par tous les noeuds (au moins 32 caractères)
+     * @param encrypt true pour chiffrer le contenu du cookie en plus de le signer
+     * @param allowedClasses Motifs de classes acceptées en plus de celles du JDK, séparés
+     *        par des points-virgules (syntaxe d'ObjectInputFilter, ex: "com.app.model.*") ; null = aucun
+     */
+    public SignedCookieSessionCodec(String secret, boolean encrypt, String allowedClasses) {
+        if (secret == null || secret.length() < 32) {
+            throw new IllegalArgumentException("Le secret des sessions cookie doit contenir au moins 32 caractères");
+        }
+        this.macKey = new SecretKeySpec(deriveKey("mac:", secret), HMAC_ALGORITHM);
+        this.cipherKey = encrypt ? new SecretKeySpec(deriveKey("enc:", secret), "AES") : null;
+        String extra = allowedClasses == null || allowedClasses.isBlank() ? "" : ";" + allowedClasses.trim();
+        this.inputFilter = ObjectInputFilter.Config.createFilter(
+            INPUT_LIMITS + ";" + DEFAULT_ALLOWED_CLASSES + extra + ";!*");
+    }
+
+    /**
+     * Contenu décodé d'un cookie de session
+     */
+    public static class DecodedSession {
+        private final String sessionId;
+        private final long issuedAt;
+        private final Map<String, Object> data;
+
+        DecodedSession(String sessionId, long issuedAt, Map<String, Object> data) {
+            this.sessionId = sessionId;
+            this.issuedAt = issuedAt;
+            this.data = data;
+        }
+
+        public String getSessionId() { return sessionId; }
+        public long getIssuedAt() { return issuedAt; }
+        public Map<String, Object> getData() { return data; }
+    }
+
+    /**
+     * Encode une session en valeur de cookie
+     *
+     * @throws IllegalArgumentException si une valeur n'est pas sérialisable
+     * @throws IllegalStateException si le cookie obtenu dépasse MAX_COOKIE_LENGTH
+     */
+    public String encode(String sessionId, long issuedAt, Map<String, Object> data) {
+        byte[] body;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeUTF(sessionId);
+                out.writeLong(issuedAt);
+                out.writeObject(new HashMap<>(data));
+            }
+            body = bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Valeur de session non sérialisable: " + e.getMessage(), e);
+        }
+
+        try {
+            if (cipherKey != null) {
+                body = encrypt(body);
+            }
+            Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+            String value = encoder.encodeToString(body) + "." + encoder.encodeToString(sign(body));
+            if (value.length() > MAX_COOKIE_LENGTH) {
+                throw new IllegalStateException(
+                    "Session trop volumineuse pour le mode cookie (" + value.length() + " caractères)");
+            }
+            return value;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Impossible de signer la session: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Décode et vérifie une valeur de cookie
+     *
+     * @return La session décodée, ou null si le cookie est absent, altéré ou illisible
+     */
+    @SuppressWarnings("unchecked")
+    public DecodedSession decode(String cookieValue) {
+        if (cookieValue == null || cookieValue.length() > MAX_COOKIE_LENGTH) return null;
+        int dot = cookieValue.indexOf('.');
+        if (dot <= 0) return null;
+
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            byte[] body = decoder.decode(cookieValue.substring(0, dot));
+            byte[] signature = decoder.decode(cookieValue.substring(dot + 1));
+
+            // Vérification en temps constant avant toute désérialisation
+            if (!MessageDigest.isEqual(sign(body), signature)) {
+                return null;
+            }
+            if (cipherKey != null) {
+                body = decrypt(body);
+            }
+
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(body))) {
+                in.setObjectInputFilter(inputFilter);
+                String sessionId = in.readUTF();
+                long issuedAt = in.readLong();
+                Map<String, Object> data = (Map<String, Object>) in.readObject();
+                return new DecodedSession(sessionId, issuedAt, data);
+            }
+        } catch (IllegalArgumentException | IOException | ClassNotFoundException
+                 | ClassCastException | GeneralSecurityException e) {
+            System.err.println("Cookie de session rejeté: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private byte[] sign(byte[] body) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+        mac.init(macKey);
+        return mac.doFinal(body);
+    }
+
+    private byte[] encrypt(byte[] plain) throws GeneralSecurityException {
+        byte[] iv = new byte[GCM_IV_LENGTH];
+        random.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance(CIPHER_ALGORITHM);
+        cipher.init(Cipher.ENCRYPT_MODE, cipherKey, new GCMParameterSpec(GCM_TAG_BITS, iv));
+        byte[] encrypted = cipher.doFinal(plain);
+
+        byte[] result = new byte[iv.length + encrypted.length];
+        System.arraycopy(iv, 0, result, 0, iv.length);
+        System.arraycopy(encrypted, 0, result, iv.length, encrypted.length);
+        return result;
+    }
+
+    private byte[] decrypt(byte[] body) throws GeneralSecurityException {
+        if (body.length <= GCM_IV_LENGTH) {
+            throw new GeneralSecurityException("Corps chiffré trop court");
+        }
+        Cipher cipher = Cipher.getInstance(CIPHER_ALGORITHM);
+        cipher.init(Cipher.DECRYPT_MODE, cipherKey, new GCMParameterSpec(GCM_TAG_BITS, body, 0, GCM_IV_LENGTH));
+        return cipher.doFinal(body, GCM_IV_LENGTH, body.length - GCM_IV_LENGTH);
+    }
+
+    private static byte[] deriveKey(String purpose, String secret) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return digest.digest((purpose + secret).getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
@@ -87,10 +87,14 @@ public class StandardMultipartFile implements MultipartFile {
             File parent = dest.getParentFile();
             if (parent != null) parent.mkdirs();
         }
-        // Utiliser un stream pour être sûr du comportement et écraser sécurité
-        try (InputStream in = getInputStream()) {
-            Files.copy(in, dest.toPath(), java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+        if (cachedBytes != null) {
+            // Contenu déjà en mémoire : écriture directe sans relire la Part
+            Files.write(dest.toPath(), cachedBytes);
+            return;
         }
+        // Part.write laisse le conteneur déplacer son fichier temporaire sans copie
+        // quand c'est possible (sinon il copie lui-même le contenu)
+        part.write(dest.getAbsolutePath());
     }
     
     @Override
@@ -127,7 +131,7 @@ public class StandardMultipartFile implements MultipartFile {
     /**
      * Remplace les caractères potentiellement dangereux par underscore
      */
-    private String sanitizeFilename(String filename) {
+    static String sanitizeFilename(String filename) {
         if (filename == null) return null;
         // enlève les répertoires et caractères non souhaités
         filename = filename.replaceAll("\\\\+", "/"); // unify
@@ -0,0 +1,214 @@
+package com;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Implémentation de MultipartFile pour les fichiers reçus par MultipartStream
+ *
+ * Le contenu de la partie est écrit une seule fois dans un fichier temporaire
+ * pendant l'analyse du corps (via le tampon du parseur, sans copie en mémoire),
+ * en calculant au passage SHA-256, CRC32 et taille (UploadSink).
+ * Aucune donnée n'est mise en cache sur le heap ; le fichier temporaire est
+ * supprimé à la fin de la requête, sauf s'il a été déplacé vers sa destination.
+ */
+public class StreamedMultipartFile implements MultipartFile {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+    private final String originalFilename;
+    private final String contentType;
+    private final long size;
+    private final String sha256;
+    private final long crc32;
+    // Emplacement actuel des données : fichier temporaire, puis destination après moveTo()
+    private File tempFile;
+    private boolean moved;
+
+    StreamedMultipartFile(String name, String originalFilename, String contentType, File tempFile,
+                          long size, String sha256, long crc32) {
+        this.name = name;
+        this.originalFilename = originalFilename;
+        this.contentType = contentType;
+        this.tempFile = tempFile;
+        this.size = size;
+        this.sha256 = sha256;
+        this.crc32 = crc32;
+    }
+
+    /**
+     * Écrit le contenu d'une partie dans un fichier temporaire
+     *
+     * @param part La partie fichier en cours de lecture
+     * @param tempDir Le répertoire des fichiers temporaires
+     * @param maxFileSize La taille maximale du fichier (rejet au premier octet en trop)
+     * @return Le fichier reçu
+     */
+    static StreamedMultipartFile spool(MultipartStream.StreamedPart part, File tempDir, long maxFileSize)
+            throws IOException {
+        File tempFile = File.createTempFile("upload-", ".part", tempDir);
+        UploadSink sink;
+        try (InputStream in = part.getInputStream()) {
+            sink = UploadSink.open(tempFile.toPath(), maxFileSize);
+            try (OutputStream out = sink) {
+                in.transferTo(out);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile.toPath());
+            throw e;
+        }
+
+        String filename = part.getSubmittedFileName();
+        if (filename != null && filename.contains("\\")) {
+            filename = filename.substring(filename.lastIndexOf("\\") + 1);
+        }
+        return new StreamedMultipartFile(part.getName(), StandardMultipartFile.sanitizeFilename(filename),
+                                         part.getContentType(), tempFile, sink.getSize(),
+                                         sink.getSha256(), sink.getCrc32());
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0 || originalFilename == null || originalFilename.isEmpty();
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        // Lecture à la demande, jamais mise en cache
+        return Files.readAllBytes(tempFile.toPath());
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return Files.newInputStream(tempFile.toPath());
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException, IllegalStateException {
+        if (!tempFile.exists()) throw new IllegalStateException("Fichier temporaire déjà supprimé");
+        File parent = dest.getParentFile();
+        if (parent != null) parent.mkdirs();
+        Files.copy(tempFile.toPath(), dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public void transferTo(String destPath) throws IOException, IllegalStateException {
+        transferTo(new File(destPath));
+    }
+
+    /**
+     * Retourne le fichier contenant les données reçues
+     */
+    public File getTempFile() {
+        return tempFile;
+    }
+
+    /**
+     * Empreinte SHA-256 (hexadécimal) calculée à la réception
+     */
+    public String getSha256() {
+        return sha256;
+    }
+
+    /**
+     * CRC32 calculé à la réception
+     */
+    public long getCrc32() {
+        return crc32;
+    }
+
+    /**
+     * Déplace le fichier reçu vers sa destination finale
+     * (copie intermédiaire à côté de la destination, voir moveTo(File, File))
+     */
+    synchronized void moveTo(File dest) throws IOException {
+        moveTo(dest, null);
+    }
+
+    /**
+     * Déplace le fichier reçu vers sa destination finale
+     * Renommage atomique si possible (même système de fichiers). Sinon le contenu est
+     * copié par FileChannel.transferTo dans un fichier temporaire de stagingDir, qui est
+     * ensuite renommé atomiquement : la destination n'existe jamais à moitié écrite,
+     * même après une erreur ou un arrêt pendant la copie.
+     *
+     * @param stagingDir Répertoire de la copie intermédiaire, sur le système de fichiers
+     *        de la destination (null = répertoire de la destination)
+     */
+    synchronized void moveTo(File dest, File stagingDir) throws IOException {
+        if (!tempFile.exists()) throw new IllegalStateException("Fichier temporaire déjà supprimé");
+        File parent = dest.getParentFile();
+        if (parent != null) parent.mkdirs();
+        try {
+            Files.move(tempFile.toPath(), dest.toPath(),
+                       StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            File staging = stagingDir != null ? stagingDir : parent;
+            if (staging != null) staging.mkdirs();
+            File copy = File.createTempFile("move-", ".part", staging);
+            try {
+                try (FileChannel source = FileChannel.open(tempFile.toPath(), StandardOpenOption.READ);
+                     FileChannel target = FileChannel.open(copy.toPath(), StandardOpenOption.WRITE,
+                         StandardOpenOption.TRUNCATE_EXISTING)) {
+                    long position = 0;
+                    while (position < size) {
+                        long transferred = source.transferTo(position, size - position, target);
+                        if (transferred <= 0) {
+                            // Fichier temporaire plus court que la taille reçue : ne pas boucler sans fin
+                            throw new IOException("Fichier temporaire tronqué: " + position + " octets sur " + size);
+                        }
+                        position += transferred;
+                    }
+                    target.force(true);
+                }
+                Files.move(copy.toPath(), dest.toPath(),
+                           StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(copy.toPath());
+            }
+            Files.deleteIfExists(tempFile.toPath());
+        }
+        tempFile = dest;
+        moved = true;
+    }
+
+    /**
+     * Supprime le fichier temporaire (appelé en fin de requête)
+     */
+    synchronized void delete() {
+        if (moved) return;
+        try {
+            Files.deleteIfExists(tempFile.toPath());
+        } catch (IOException e) {
+            System.err.println("Impossible de supprimer le fichier temporaire: " + tempFile);
+        }
+    }
+}
@@ -0,0 +1,512 @@
+package com;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Template .tpl compilé une fois en arbre de nœuds
+ *
+ * Syntaxe :
+ *   {{user.name}}                    valeur échappée pour le HTML
+ *   {{{html}}}                       valeur brute
+ *   {{#if user.admin}}...{{else}}...{{/if}}
+ *   {{#each users as u}}...{{/each}} (Iterable, tableau ou valeurs d'une Map)
+ *   {{#cache menu key=user.id ttl=300}}...{{/cache}}
+ *                                    fragment gardé ttl secondes (60 par défaut) dans le
+ *                                    FragmentCache, par template, nom et valeur(s) de key
+ *
+ * Un chemin "a.b.c" se lit dans les données de la View, puis par clé de Map,
+ * getter (getB / isB) ou champ public. Les parties statiques sont encodées en UTF-8
+ * à la compilation : le rendu les recopie telles quelles dans le tampon de la réponse.
+ * Un Template est immuable et partagé par toutes les requêtes.
+ */
+public final class Template {
+
+    private final String name;
+    private final Node[] nodes;
+
+    private Template(String name, Node[] nodes) {
+        this.name = name;
+        this.nodes = nodes;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Rend le template dans le tampon
+     *
+     * @param model Les variables de premier niveau (nom des données, données supplémentaires)
+     */
+    public void render(Map<String, Object> model, PooledByteOutput out) {
+        render(model, out, null);
+    }
+
+    /**
+     * Rend le template dans le tampon en réutilisant les fragments en cache
+     *
+     * @param fragments Le cache des fragments {{#cache}}, ou null pour tout rendre
+     */
+    public void render(Map<String, Object> model, PooledByteOutput out, FragmentCache fragments) {
+        renderNodes(nodes, new Scope(model, fragments), out);
+    }
+
+    private static void renderNodes(Node[] nodes, Scope scope, PooledByteOutput out) {
+        for (Node node : nodes) {
+            node.render(scope, out);
+        }
+    }
+
+    // =====================================================
+    // Compilation
+    // =====================================================
+
+    /**
+     * Compile un template
+     *
+     * @param name Nom du template (messages d'erreur)
+     * @param source Le texte du template
+     * @throws TemplateException si le template est mal formé
+     */
+    public static Template compile(String name, String source) {
+        Parser parser = new Parser(name, source);
+        Node[] nodes = parser.parseUntil(null);
+        return new Template(name, nodes);
+    }
+
+    private static final class Parser {
+        private final String name;
+        private final String source;
+        private int position;
+        // Dernière balise de fin lue par parseUntil ("else", "/if", "/each", "/cache")
+        private String closingTag;
+
+        Parser(String name, String source) {
+            this.name = name;
+            this.source = source;
+        }
+
+        /**
+         * Lit des nœuds jusqu'à l'une des balises attendues (null = fin du texte)
+         */
+        Node[] parseUntil(String[] expected) {
+            List<Node> nodes = new ArrayList<>();
+            while (position < source.length()) {
+                int open = source.indexOf("{{", position);
+                if (open < 0) {
+                    addStatic(nodes, source.substring(position));
+                    position = source.length();
+                    break;
+                }
+                addStatic(nodes, source.substring(position, open));
+
+                boolean raw = source.startsWith("{{{", open);
+                String close = raw ? "}}}" : "}}";
+                int end = source.indexOf(close, open + close.length());
+                if (end < 0) {
+                    throw error(open, "balise non fermée");
+                }
+                String tag = source.substring(open + close.length(), end).trim();
+                position = end + close.length();
+
+                if (raw) {
+                    nodes.add(new ValueNode(path(tag, open), false));
+                } else if (tag.startsWith("#if ")) {
+                    nodes.add(parseIf(tag.substring(4).trim(), open));
+                } else if (tag.startsWith("#each ")) {
+                    nodes.add(parseEach(tag.substring(6).trim(), open));
+                } else if (tag.startsWith("#cache ")) {
+                    nodes.add(parseCache(tag.substring(7).trim(), open));
+                } else if (tag.equals("else") || tag.startsWith("/")) {
+                    if (expected == null || !contains(expected, tag)) {
+                        throw error(open, "balise inattendue {{" + tag + "}}");
+                    }
+                    closingTag = tag;
+                    return nodes.toArray(new Node[0]);
+                } else {
+                    nodes.add(new ValueNode(path(tag, open), true));
+                }
+            }
+            if (expected != null) {
+                throw error(source.length(), "{{" + expected[expected.length - 1] + "}} manquant");
+            }
+            return nodes.toArray(new Node[0]);
+        }
+
+        private Node parseIf(String condition, int at) {
+            String[] condPath = path(condition, at);
+            Node[] then = parseUntil(new String[] { "else", "/if" });
+            Node[] otherwise = new Node[0];
+            if ("else".equals(closingTag)) {
+                otherwise = parseUntil(new String[] { "/if" });
+            }
+            return new IfNode(condPath, then, otherwise);
+        }
+
+        private Node parseEach(String expression, int at) {
+            int as = expression.indexOf(" as ");
+            if (as < 0) {
+                throw error(at, "syntaxe attendue : {{#each liste as element}}");
+            }
+            String[] listPath = path(expression.substring(0, as).trim(), at);
+            String variable = expression.substring(as + 4).trim();
+            if (variable.isEmpty() || variable.contains(".")) {
+                throw error(at, "nom de variable invalide: " + variable);
+            }
+            Node[] body = parseUntil(new String[] { "/each" });
+            return new EachNode(listPath, variable, body);
+        }
+
+        private Node parseCache(String expression, int at) {
+            String[] parts = expression.split("\\s+");
+            String fragmentName = parts[0];
+            String[][] keyPaths = new String[0][];
+            long ttlSeconds = 60;
+            for (int i = 1; i < parts.length; i++) {
+                if (parts[i].startsWith("key=")) {
+                    String[] keys = parts[i].substring(4).split(",");
+                    keyPaths = new String[keys.length][];
+                    for (int k = 0; k < keys.length; k++) {
+                        keyPaths[k] = path(keys[k].trim(), at);
+                    }
+                } else if (parts[i].startsWith("ttl=")) {
+                    try {
+                        ttlSeconds = Long.parseLong(parts[i].substring(4));
+                    } catch (NumberFormatException e) {
+                        throw error(at, "ttl invalide: " + parts[i]);
+                    }
+                } else {
+                    throw error(at, "option de {{#cache}} inconnue: " + parts[i]);
+                }
+            }
+            Node[] body = parseUntil(new String[] { "/cache" });
+            StringBuilder prefix = CacheNode.part(new StringBuilder(), name);
+            CacheNode.part(prefix, fragmentName);
+            return new CacheNode(prefix.toString(), keyPaths, ttlSeconds * 1000, body);
+        }
+
+        private void addStatic(List<Node> nodes, String text) {
+            if (!text.isEmpty()) {
+                nodes.add(new StaticNode(text.getBytes(StandardCharsets.UTF_8)));
+            }
+        }
+
+        private String[] path(String expression, int at) {
+            if (expression.isEmpty()) {
+                throw error(at, "expression vide");
+            }
+            return expression.split("\\.");
+        }
+
+        private TemplateException error(int at, String message) {
+            int line = 1;
+            for (int i = 0; i < at && i < source.length(); i++) {
+                if (source.charAt(i) == '\n') line++;
+            }
+            return new TemplateException("Template " + name + ", ligne " + line + ": " + message);
+        }
+
+        private static boolean contains(String[] values, String value) {
+            for (String v : values) {
+                if (v.equals(value)) return true;
+            }
+            return false;
+        }
+    }
+
+    // =====================================================
+    // Nœuds
+    // =====================================================
+
+    private interface Node {
+        void render(Scope scope, PooledByteOutput out);
+    }
+
+    private static final class StaticNode implements Node {
+        private final byte[] bytes;
+
+        StaticNode(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void render(Scope scope, PooledByteOutput out) {
+            out.write(bytes, 0, bytes.length);
+        }
+    }
+
+    private static final class ValueNode implements Node {
+        private final String[] path;
+        private final boolean escape;
+
+        ValueNode(String[] path, boolean escape) {
+            this.path = path;
+            this.escape = escape;
+        }
+
+        @Override
+        public void render(Scope scope, PooledByteOutput out) {
+            Object value = scope.resolve(path);
+            if (value == null) return;
+            String text = value.toString();
+            if (escape) {
+                writeEscaped(text, out);
+            } else {
+                out.writeUtf8(text);
+            }
+        }
+    }
+
+    private static final class IfNode implements Node {
+        private final String[] path;
+        private final Node[] then;
+        private final Node[] otherwise;
+
+        IfNode(String[] path, Node[] then, Node[] otherwise) {
+            this.path = path;
+            this.then = then;
+            this.otherwise = otherwise;
+        }
+
+        @Override
+        public void render(Scope scope, PooledByteOutput out) {
+            renderNodes(isTruthy(scope.resolve(path)) ? then : otherwise, scope, out);
+        }
+    }
+
+    private static final class EachNode implements Node {
+        private final String[] path;
+        private final String variable;
+        private final Node[] body;
+
+        EachNode(String[] path, String variable, Node[] body) {
+            this.path = path;
+            this.variable = variable;
+            this.body = body;
+        }
+
+        @Override
+        public void render(Scope scope, PooledByteOutput out) {
+            Object items = scope.resolve(path);
+            if (items == null) return;
+            // Une seule portée par boucle, dont la valeur change à chaque tour
+            Scope itemScope = new Scope(scope, variable);
+            if (items instanceof Map) {
+                items = ((Map<?, ?>) items).values();
+            }
+            if (items instanceof Iterable) {
+                for (Object item : (Iterable<?>) items) {
+                    itemScope.value = item;
+                    renderNodes(body, itemScope, out);
+                }
+            } else if (items.getClass().isArray()) {
+                int length = Array.getLength(items);
+                for (int i = 0; i < length; i++) {
+                    itemScope.value = Array.get(items, i);
+                    renderNodes(body, itemScope, out);
+                }
+            } else {
+                throw new TemplateException("{{#each}} sur une valeur non itérable: " + items.getClass().getName());
+            }
+        }
+    }
+
+    private static final class CacheNode implements Node {
+        private final String prefix;
+        private final String[][] keyPaths;
+        private final long ttlMillis;
+        private final Node[] body;
+
+        CacheNode(String prefix, String[][] keyPaths, long ttlMillis, Node[] body) {
+            this.prefix = prefix;
+            this.keyPaths = keyPaths;
+            this.ttlMillis = ttlMillis;
+            this.body = body;
+        }
+
+        @Override
+        public void render(Scope scope, PooledByteOutput out) {
+            FragmentCache fragments = scope.fragments;
+            if (fragments == null) {
+                renderNodes(body, scope, out);
+                return;
+            }
+
+            String key = key(scope);
+            byte[] cached = fragments.get(key);
+            if (cached != null) {
+                out.write(cached, 0, cached.length);
+                return;
+            }
+
+            // Rendu normal, puis copie des octets produits pour les requêtes suivantes
+            int start = out.size();
+            renderNodes(body, scope, out);
+            fragments.put(key, Arrays.copyOfRange(out.array(), start, out.size()), ttlMillis);
+        }
+
+        // Chaque partie est préfixée par sa longueur ("5:alice"), une valeur nulle s'écrit "-" :
+        // null ne se confond pas avec "null" et un séparateur dans une valeur ne décale rien
+        private String key(Scope scope) {
+            if (keyPaths.length == 0) return prefix;
+            StringBuilder key = new StringBuilder(prefix);
+            for (String[] keyPath : keyPaths) {
+                Object value = scope.resolve(keyPath);
+                if (value == null) {
+                    key.append('-');
+                } else {
+                    part(key, value.toString());
+                }
+            }
+            return key.toString();
+        }
+
+        static StringBuilder part(StringBuilder key, String value) {
+            return key.append(value.length()).append(':').append(value);
+        }
+    }
+
+    /**
+     * Variables visibles : une variable de boucle, puis les portées englobantes,
+     * puis le modèle de la View
+     */
+    private static final class Scope {
+        private final Scope parent;
+        private final String variable;
+        private final Map<String, Object> model;
+        private final FragmentCache fragments;
+        private Object value;
+
+        Scope(Map<String, Object> model, FragmentCache fragments) {
+            this.parent = null;
+            this.variable = null;
+            this.model = model;
+            this.fragments = fragments;
+        }
+
+        Scope(Scope parent, String variable) {
+            this.parent = parent;
+            this.variable = variable;
+            this.model = null;
+            this.fragments = parent.fragments;
+        }
+
+        Object resolve(String[] path) {
+            Object current = lookup(path[0]);
+            for (int i = 1; i < path.length && current != null; i++) {
+                current = property(current, path[i]);
+            }
+            return current;
+        }
+
+        private Object lookup(String name) {
+            for (Scope scope = this; scope != null; scope = scope.parent) {
+                if (scope.model != null) return scope.model.get(name);
+                if (scope.variable.equals(name)) return scope.value;
+            }
+            return null;
+        }
+    }
+
+    // =====================================================
+    // Accès aux propriétés (réflexion résolue une fois par classe et par nom)
+    // =====================================================
+
+    private static final ConcurrentHashMap<Class<?>, ConcurrentHashMap<String, Object>> ACCESSORS =
+        new ConcurrentHashMap<>();
+
+    // Marqueur « aucune propriété de ce nom »
+    private static final Object MISSING = new Object();
+
+    private static Object property(Object target, String name) {
+        if (target instanceof Map) {
+            return ((Map<?, ?>) target).get(name);
+        }
+        if ("length".equals(name) && target.getClass().isArray()) {
+            return Array.getLength(target);
+        }
+        if ("size".equals(name) && target instanceof Collection) {
+            return ((Collection<?>) target).size();
+        }
+        Object accessor = ACCESSORS
+            .computeIfAbsent(target.getClass(), c -> new ConcurrentHashMap<>())
+            .computeIfAbsent(name, n -> findAccessor(target.getClass(), n));
+        try {
+            if (accessor instanceof Method) return ((Method) accessor).invoke(target);
+            if (accessor instanceof Field) return ((Field) accessor).get(target);
+        } catch (ReflectiveOperationException e) {
+            throw new TemplateException("Lecture de " + name + " sur " + target.getClass().getName(), e);
+        }
+        return null;
+    }
+
+    private static Object findAccessor(Class<?> type, String name) {
+        String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (String prefix : new String[] { "get", "is" }) {
+            try {
+                Method getter = type.getMethod(prefix + suffix);
+                if (getter.getReturnType() != void.class) {
+                    // Classe non publique (ex: classe interne) : accès forcé si possible
+                    getter.trySetAccessible();
+                    return getter;
+                }
+            } catch (NoSuchMethodException | RuntimeException e) {
+                // essai suivant
+            }
+        }
+        try {
+            Field field = type.getField(name);
+            if (!Modifier.isStatic(field.getModifiers())) {
+                field.trySetAccessible();
+                return field;
+            }
+        } catch (NoSuchFieldException | RuntimeException e) {
+            // pas de champ public
+        }
+        return MISSING;
+    }
+
+    private static boolean isTruthy(Object value) {
+        if (value == null) return false;
+        if (value instanceof Boolean) return (Boolean) value;
+        if (value instanceof Number) return ((Number) value).doubleValue() != 0;
+        if (value instanceof CharSequence) return ((CharSequence) value).length() > 0;
+        if (value instanceof Collection) return !((Collection<?>) value).isEmpty();
+        if (value instanceof Map) return !((Map<?, ?>) value).isEmpty();
+        if (value.getClass().isArray()) return Array.getLength(value) > 0;
+        return true;
+    }
+
+    /**
+     * Écrit le texte en échappant & < > " ' ; les passages sans caractère spécial
+     * sont encodés d'un bloc
+     */
+    private static void writeEscaped(String text, PooledByteOutput out) {
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            String entity;
+            switch (text.charAt(i)) {
+                case '&': entity = "&amp;"; break;
+                case '<': entity = "&lt;"; break;
+                case '>': entity = "&gt;"; break;
+                case '"': entity = "&quot;"; break;
+                case '\'': entity = "&#39;"; break;
+                default: continue;
+            }
+            out.writeUtf8(text, start, i);
+            out.writeUtf8(entity);
+            start = i + 1;
+        }
+        out.writeUtf8(text, start, text.length());
+    }
+}
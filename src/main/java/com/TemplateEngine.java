@@ -0,0 +1,100 @@
+package com;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.servlet.ServletContext;
+
+/**
+ * Moteur des vues .tpl : alternative légère au forward JSP
+ *
+ * Une View dont le template se termine par ".tpl" est rendue par ce moteur :
+ * le fichier est lu et compilé une fois (Template), puis chaque rendu écrit
+ * directement dans le tampon de la réponse, sans RequestDispatcher ni attributs
+ * de requête. Les fragments {{#cache}} sont gardés dans un FragmentCache partagé.
+ * En mode développement, invalidate() oublie les templates modifiés et leurs fragments.
+ */
+public class TemplateEngine {
+
+    public static final String EXTENSION = ".tpl";
+
+    private final ServletContext servletContext;
+    private final ConcurrentHashMap<String, Template> templates = new ConcurrentHashMap<>();
+    private final FragmentCache fragments;
+
+    /**
+     * @param fragmentCacheSize Taille maximale du cache des fragments, en octets (0 = pas de cache)
+     */
+    public TemplateEngine(ServletContext servletContext, long fragmentCacheSize) {
+        this.servletContext = servletContext;
+        this.fragments = fragmentCacheSize > 0 ? new FragmentCache(fragmentCacheSize) : null;
+    }
+
+    /**
+     * Rend un template .tpl (fragments en cache réutilisés)
+     */
+    public void render(String viewName, Map<String, Object> model, PooledByteOutput out) throws IOException {
+        getTemplate(viewName).render(model, out, fragments);
+    }
+
+    /**
+     * Vrai si la vue nommée doit être rendue par ce moteur
+     */
+    public static boolean handles(String viewName) {
+        return viewName != null && viewName.endsWith(EXTENSION);
+    }
+
+    /**
+     * Donne le template compilé (lu et compilé au premier appel)
+     *
+     * @param viewName Le nom du template (ex: "users/list.tpl")
+     * @throws IOException si le fichier est introuvable
+     * @throws TemplateException si le template est mal formé
+     */
+    public Template getTemplate(String viewName) throws IOException {
+        Template template = templates.get(viewName);
+        if (template != null) return template;
+
+        template = load(viewName);
+        Template previous = templates.putIfAbsent(viewName, template);
+        return previous != null ? previous : template;
+    }
+
+    private Template load(String viewName) throws IOException {
+        String path = viewName.startsWith("/") ? viewName : "/" + viewName;
+        try (InputStream in = servletContext.getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IOException("Template introuvable: " + path);
+            }
+            return Template.compile(path, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Vide le cache des fragments (rechargement des routes en mode développement)
+     */
+    public void clearFragments() {
+        if (fragments != null) {
+            fragments.clear();
+        }
+    }
+
+    /**
+     * Oublie les templates après une modification de fichiers (mode développement)
+     */
+    public void invalidate(Set<Path> changedFiles) {
+        for (Path changed : changedFiles) {
+            String fileName = changed.getFileName() != null ? changed.getFileName().toString() : "";
+            if (fileName.endsWith(EXTENSION) || !fileName.contains(".")) {
+                templates.clear();
+                clearFragments();
+                return;
+            }
+        }
+    }
+}
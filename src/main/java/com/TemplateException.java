@@ -0,0 +1,20 @@
+package com;
+
+/**
+ * Erreur d'un template .tpl : syntaxe invalide à la compilation, ou donnée
+ * inutilisable au rendu (ex: {{#each}} sur une valeur non itérable)
+ *
+ * C'est une erreur de l'application, pas de la requête : elle aboutit à un 500.
+ */
+public class TemplateException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    public TemplateException(String message) {
+        super(message);
+    }
+
+    public TemplateException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,88 @@
+package com;
+
+import java.io.File;
+import java.util.concurrent.Semaphore;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Contrôle d'admission des uploads
+ *
+ * - nombre maximal d'uploads traités simultanément (les suivants reçoivent un 503
+ *   immédiatement au lieu de saturer le disque et la bande passante)
+ * - seuil d'espace disque libre sur le répertoire temporaire : un upload qui ferait
+ *   passer l'espace libre sous le seuil est refusé avant d'être lu
+ *
+ * Sans configuration, aucun contrôle n'est appliqué.
+ */
+public class UploadAdmission {
+
+    // Attribut de requête portant le jeton d'admission (libéré en fin de requête)
+    private static final String PERMIT_ATTRIBUTE = "framework.upload.permit";
+
+    private static volatile Semaphore permits;
+    private static volatile long minFreeDiskSpace;
+
+    /**
+     * Configure l'admission
+     *
+     * @param maxConcurrentUploads Nombre d'uploads simultanés (0 = illimité)
+     * @param minFreeBytes Espace libre minimal à conserver sur le disque temporaire (0 = pas de seuil)
+     */
+    public static void configure(int maxConcurrentUploads, long minFreeBytes) {
+        permits = maxConcurrentUploads > 0 ? new Semaphore(maxConcurrentUploads) : null;
+        minFreeDiskSpace = Math.max(0, minFreeBytes);
+    }
+
+    /**
+     * Admet l'upload de la requête ou le refuse (503)
+     * Le jeton est attaché à la requête et rendu par release() ; un second appel
+     * pour la même requête ne prend pas de nouveau jeton.
+     *
+     * @param request La requête multipart
+     * @param tempDir Le répertoire où les fichiers seront écrits
+     * @param limits Les limites de la requête (taille maximale si Content-Length est absent)
+     */
+    public static void admit(HttpServletRequest request, File tempDir, UploadLimits limits)
+            throws UploadRejectedException {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) != null) return;
+
+        long contentLength = request.getContentLengthLong();
+        checkDiskSpace(tempDir, contentLength >= 0 ? contentLength : limits.getMaxRequestSize());
+
+        Semaphore semaphore = permits;
+        if (semaphore != null) {
+            if (!semaphore.tryAcquire()) {
+                throw UploadRejectedException.unavailable("Trop d'uploads en cours, réessayez plus tard");
+            }
+            request.setAttribute(PERMIT_ATTRIBUTE, semaphore);
+        } else {
+            request.setAttribute(PERMIT_ATTRIBUTE, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Rend le jeton d'admission de la requête (sans effet si elle n'en a pas)
+     */
+    public static void release(HttpServletRequest request) {
+        Object permit = request.getAttribute(PERMIT_ATTRIBUTE);
+        if (permit == null) return;
+        request.removeAttribute(PERMIT_ATTRIBUTE);
+        if (permit instanceof Semaphore) {
+            ((Semaphore) permit).release();
+        }
+    }
+
+    /**
+     * Vérifie qu'écrire le nombre d'octets donné laisse l'espace libre au-dessus du seuil
+     */
+    static void checkDiskSpace(File directory, long bytesToWrite) throws UploadRejectedException {
+        long threshold = minFreeDiskSpace;
+        if (threshold <= 0) return;
+        long usable = directory.getUsableSpace();
+        // getUsableSpace() renvoie 0 si le chemin est inaccessible : pas de refus dans ce cas
+        if (usable > 0 && usable - bytesToWrite < threshold) {
+            throw UploadRejectedException.unavailable("Espace disque insuffisant pour recevoir l'upload");
+        }
+    }
+}
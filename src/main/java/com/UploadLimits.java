@@ -0,0 +1,175 @@
+package com;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import annotations.UploadLimit;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Limites d'upload applicables à une requête
+ *
+ * Les limites globales (init-param upload.maxFileSize / upload.maxRequestSize)
+ * peuvent être remplacées méthode par méthode avec @UploadLimit.
+ * Elles sont appliquées pendant la lecture du corps : la requête est rejetée
+ * au premier octet qui dépasse, sans lire la suite.
+ *
+ * Avec le parseur du conteneur (multipart.parser=container), le corps est lu par le
+ * conteneur avant que le framework ne voie les parties : la taille de la requête est
+ * vérifiée sur Content-Length avant getParts() (un corps sans Content-Length est refusé),
+ * la taille de chaque fichier seulement après sa mise en tampon par le conteneur.
+ * Le conteneur applique aussi son propre plafond (CONTAINER_MAX_FILE_SIZE /
+ * CONTAINER_MAX_REQUEST_SIZE, déclarés dans @MultipartConfig) : des limites plus larges
+ * y sont ramenées.
+ */
+public class UploadLimits {
+
+    // Plafond de @MultipartConfig : borne toute analyse faite par le conteneur
+    // (getParameter, getParts, ${param} des JSP, filtres), quelle que soit la route
+    public static final long CONTAINER_MAX_FILE_SIZE = 256L * 1024 * 1024;
+    public static final long CONTAINER_MAX_REQUEST_SIZE = 512L * 1024 * 1024;
+
+    // Valeurs par défaut (10 Mo par fichier, 50 Mo par requête)
+    private static volatile UploadLimits defaults = new UploadLimits(1024 * 1024 * 10, 1024 * 1024 * 50);
+
+    // Limites résolues par méthode de contrôleur
+    private static final Map<Method, UploadLimits> methodLimits = new ConcurrentHashMap<>();
+
+    private final long maxFileSize;
+    private final long maxRequestSize;
+
+    public UploadLimits(long maxFileSize, long maxRequestSize) {
+        if (maxFileSize <= 0 || maxRequestSize <= 0) {
+            throw new IllegalArgumentException("Les limites d'upload doivent être positives");
+        }
+        this.maxFileSize = maxFileSize;
+        this.maxRequestSize = maxRequestSize;
+    }
+
+    /**
+     * Remplace les limites globales
+     */
+    public static void setDefaults(UploadLimits limits) {
+        defaults = limits;
+        methodLimits.clear();
+    }
+
+    public static UploadLimits defaults() {
+        return defaults;
+    }
+
+    /**
+     * Limites d'une méthode de contrôleur : @UploadLimit complété par les limites globales
+     */
+    public static UploadLimits forMethod(Method method) {
+        return methodLimits.computeIfAbsent(method, m -> {
+            UploadLimit annotation = m.getAnnotation(UploadLimit.class);
+            UploadLimits global = defaults;
+            if (annotation == null) return global;
+            return new UploadLimits(
+                annotation.maxFileSize() > 0 ? annotation.maxFileSize() : global.maxFileSize,
+                annotation.maxRequestSize() > 0 ? annotation.maxRequestSize() : global.maxRequestSize);
+        });
+    }
+
+    public long getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    public long getMaxRequestSize() {
+        return maxRequestSize;
+    }
+
+    /**
+     * Indique si ces limites dépassent le plafond du conteneur
+     */
+    public boolean exceedsContainer() {
+        return maxFileSize > CONTAINER_MAX_FILE_SIZE || maxRequestSize > CONTAINER_MAX_REQUEST_SIZE;
+    }
+
+    /**
+     * Limites effectives avec le parseur du conteneur : ramenées à son plafond
+     */
+    public UploadLimits cappedToContainer() {
+        if (!exceedsContainer()) return this;
+        return new UploadLimits(Math.min(maxFileSize, CONTAINER_MAX_FILE_SIZE),
+            Math.min(maxRequestSize, CONTAINER_MAX_REQUEST_SIZE));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof UploadLimits)) return false;
+        UploadLimits other = (UploadLimits) o;
+        return maxFileSize == other.maxFileSize && maxRequestSize == other.maxRequestSize;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(maxFileSize) * 31 + Long.hashCode(maxRequestSize);
+    }
+
+    /**
+     * Rejette immédiatement une requête dont le Content-Length annoncé dépasse la limite
+     */
+    public void checkContentLength(HttpServletRequest request) throws UploadRejectedException {
+        long contentLength = request.getContentLengthLong();
+        if (contentLength > maxRequestSize) {
+            throw requestTooLarge();
+        }
+    }
+
+    /**
+     * Rejette un fichier qui dépasse la limite (parseur du conteneur, taille déjà connue)
+     */
+    public void checkFileSize(long size) throws UploadRejectedException {
+        if (size > maxFileSize) {
+            throw fileTooLarge();
+        }
+    }
+
+    /**
+     * Enveloppe le corps de la requête : la lecture échoue dès que la limite est dépassée
+     * (utile aussi pour les corps chunked, sans Content-Length)
+     */
+    public InputStream limitRequestBody(InputStream in) {
+        return new FilterInputStream(in) {
+            private long count;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1) count(1);
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int read = super.read(b, off, len);
+                if (read > 0) count(read);
+                return read;
+            }
+
+            private void count(int read) throws UploadRejectedException {
+                count += read;
+                if (count > maxRequestSize) {
+                    throw requestTooLarge();
+                }
+            }
+        };
+    }
+
+    UploadRejectedException fileTooLarge() {
+        return UploadRejectedException.tooLarge(
+            "Fichier trop volumineux : taille maximale " + maxFileSize + " octets");
+    }
+
+    private UploadRejectedException requestTooLarge() {
+        return UploadRejectedException.tooLarge(
+            "Requête trop volumineuse : taille maximale " + maxRequestSize + " octets");
+    }
+}
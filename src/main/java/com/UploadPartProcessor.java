@@ -0,0 +1,22 @@
+package com;
+
+import java.io.IOException;
+
+/**
+ * Traitement appliqué à chaque fichier reçu avant l'appel du contrôleur
+ * (ex: persistance, calcul d'empreinte, validation du contenu)
+ *
+ * Les traitements peuvent être exécutés en parallèle sur plusieurs fichiers
+ * par UploadProcessingPool : une implémentation doit donc être thread-safe.
+ */
+@FunctionalInterface
+public interface UploadPartProcessor {
+
+    /**
+     * Traite un fichier reçu
+     *
+     * @param file Le fichier uploadé
+     * @throws IOException pour rejeter la requête (erreur d'upload)
+     */
+    void process(MultipartFile file) throws IOException;
+}
@@ -0,0 +1,178 @@
+package com;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool borné pour exécuter en parallèle les UploadPartProcessor enregistrés
+ *
+ * Chaque fichier est confié au pool dès sa réception, ce qui permet de traiter
+ * le fichier n pendant que le fichier n+1 est encore lu sur le réseau.
+ * La requête attend la fin de tous les traitements (awaitAll) avant d'appeler
+ * le contrôleur.
+ *
+ * Seuls les traitements enregistrés par register() passent par le pool. Le travail
+ * du framework lui-même (écriture sur disque, SHA-256 et CRC32 calculés pendant
+ * l'écriture, contrôle des limites) se fait au fil de la lecture du corps, sur le
+ * thread de la requête. Sans traitement enregistré, upload.parallelism n'a donc
+ * aucun effet.
+ *
+ * Le pool a un nombre fixe de threads et une file bornée : quand elle est pleine,
+ * le thread de la requête exécute lui-même le traitement (contre-pression).
+ * Sans pool configuré, les traitements s'exécutent séquentiellement.
+ */
+public class UploadProcessingPool {
+
+    // Traitements appliqués à chaque fichier, dans l'ordre d'enregistrement
+    private static final List<UploadPartProcessor> processors = new CopyOnWriteArrayList<>();
+
+    private static volatile ThreadPoolExecutor executor;
+
+    /**
+     * Configure le pool
+     *
+     * @param threads Nombre de threads (0 = traitement séquentiel sur le thread de la requête)
+     * @param queueCapacity Taille de la file d'attente
+     */
+    public static synchronized void configure(int threads, int queueCapacity) {
+        shutdown();
+        if (threads <= 0) return;
+
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+            threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+            runnable -> {
+                Thread thread = new Thread(runnable, "framework-upload-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        executor = pool;
+    }
+
+    /**
+     * Arrête le pool (appelé à la destruction du servlet)
+     */
+    public static synchronized void shutdown() {
+        ThreadPoolExecutor pool = executor;
+        executor = null;
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Ajoute un traitement appliqué à chaque fichier reçu
+     */
+    public static void register(UploadPartProcessor processor) {
+        processors.add(processor);
+    }
+
+    /**
+     * Indique si des traitements sont enregistrés
+     */
+    public static boolean hasProcessors() {
+        return !processors.isEmpty();
+    }
+
+    /**
+     * Lance les traitements d'un fichier
+     *
+     * @return Un Future terminé quand tous les traitements du fichier sont faits
+     */
+    public static Future<Void> submit(MultipartFile file) {
+        ThreadPoolExecutor pool = executor;
+        if (pool == null) {
+            // Pas de pool : exécution immédiate sur le thread de la requête
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            try {
+                runProcessors(file);
+                done.complete(null);
+            } catch (Exception e) {
+                done.completeExceptionally(e);
+            }
+            return done;
+        }
+        return pool.submit(() -> {
+            runProcessors(file);
+            return null;
+        });
+    }
+
+    /**
+     * Indique si un pool parallèle est configuré
+     */
+    public static boolean isParallel() {
+        return executor != null;
+    }
+
+    /**
+     * Attend la fin de tous les traitements lancés pour la requête
+     * Toutes les tâches sont attendues ; la première erreur est ensuite relancée.
+     *
+     * @throws IOException si un traitement a échoué
+     */
+    public static void awaitAll(List<? extends Future<?>> futures) throws IOException {
+        Throwable failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (failure == null) failure = e.getCause();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (failure == null) failure = e;
+            }
+        }
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure != null) {
+            throw new IOException("Erreur lors du traitement des fichiers: " + failure.getMessage(), failure);
+        }
+    }
+
+    /**
+     * Attend la fin des traitements sans relancer leurs erreurs
+     * À appeler quand la requête échoue avant awaitAll : les fichiers ne doivent pas
+     * être supprimés tant qu'un traitement les lit encore.
+     */
+    public static void awaitQuietly(List<? extends Future<?>> futures) {
+        boolean interrupted = false;
+        for (Future<?> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (ExecutionException | CancellationException e) {
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void runProcessors(MultipartFile file) throws IOException {
+        for (UploadPartProcessor processor : processors) {
+            processor.process(file);
+        }
+    }
+}
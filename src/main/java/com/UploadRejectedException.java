@@ -0,0 +1,44 @@
+package com;
+
+import java.io.IOException;
+
+/**
+ * Upload refusé par le framework, avec le code HTTP à renvoyer au client
+ * - 413 : fichier ou requête au-delà des limites
+ * - 503 : trop d'uploads simultanés ou espace disque insuffisant
+ * - 400 : corps multipart invalide
+ */
+public class UploadRejectedException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+
+    public UploadRejectedException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public UploadRejectedException(int statusCode, String message, Throwable cause) {
+        super(message, cause);
+        this.statusCode = statusCode;
+    }
+
+    /**
+     * Fichier ou requête trop volumineux (413)
+     */
+    public static UploadRejectedException tooLarge(String message) {
+        return new UploadRejectedException(413, message);
+    }
+
+    /**
+     * Capacité du serveur atteinte, le client peut réessayer plus tard (503)
+     */
+    public static UploadRejectedException unavailable(String message) {
+        return new UploadRejectedException(503, message);
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -0,0 +1,33 @@
+package com;
+
+import java.io.File;
+
+/**
+ * Résultat de l'enregistrement d'un fichier uploadé
+ * Contient le fichier final et les informations calculées pendant l'écriture
+ */
+public class UploadResult {
+    private final File file;
+    private final long size;
+    private final String sha256;
+    private final long crc32;
+
+    public UploadResult(File file, long size, String sha256, long crc32) {
+        this.file = file;
+        this.size = size;
+        this.sha256 = sha256;
+        this.crc32 = crc32;
+    }
+
+    // Getters
+    public File getFile() { return file; }
+    public long getSize() { return size; }
+    public String getSha256() { return sha256; }
+    public long getCrc32() { return crc32; }
+
+    @Override
+    public String toString() {
+        return String.format("UploadResult{file='%s', size=%d, sha256=%s, crc32=%08x}",
+            file, size, sha256, crc32);
+    }
+}
@@ -0,0 +1,108 @@
+package com;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32;
+
+/**
+ * Destination d'écriture d'un fichier uploadé
+ *
+ * Écrit les octets dans un FileChannel et calcule dans le même passage :
+ * - l'empreinte SHA-256
+ * - le CRC32
+ * - la taille, avec rejet dès le premier octet qui dépasse la limite
+ *
+ * Chaque octet reçu n'est ainsi lu qu'une seule fois.
+ */
+public class UploadSink extends OutputStream {
+
+    private final FileChannel channel;
+    private final MessageDigest sha256;
+    private final CRC32 crc32 = new CRC32();
+    private final long maxSize;
+    private long size;
+    private String sha256Hex;
+
+    private UploadSink(FileChannel channel, long maxSize) {
+        this.channel = channel;
+        this.maxSize = maxSize;
+        try {
+            this.sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    /**
+     * Ouvre (ou remplace) le fichier cible
+     *
+     * @param target Le fichier à écrire
+     * @param maxSize La taille maximale acceptée en octets
+     */
+    public static UploadSink open(Path target, long maxSize) throws IOException {
+        FileChannel channel = FileChannel.open(target,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return new UploadSink(channel, maxSize);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return;
+        if (size + len > maxSize) {
+            throw UploadRejectedException.tooLarge("Fichier trop volumineux : taille maximale " + maxSize + " octets");
+        }
+        sha256.update(b, off, len);
+        crc32.update(b, off, len);
+        ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        size += len;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Empreinte SHA-256 en hexadécimal (à appeler après la dernière écriture)
+     */
+    public String getSha256() {
+        if (sha256Hex == null) {
+            sha256Hex = toHex(sha256.digest());
+        }
+        return sha256Hex;
+    }
+
+    /**
+     * Convertit une empreinte en hexadécimal minuscule
+     */
+    static String toHex(byte[] hash) {
+        StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (byte value : hash) {
+            hex.append(Character.forDigit((value >> 4) & 0xF, 16))
+               .append(Character.forDigit(value & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    public long getCrc32() {
+        return crc32.getValue();
+    }
+}
@@ -0,0 +1,141 @@
+package com;
+
+import java.net.MalformedURLException;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.servlet.RequestDispatcher;
+import jakarta.servlet.ServletContext;
+
+/**
+ * Résolution des vues JSP, mise en cache
+ *
+ * Le nom de vue (template ou nom des données) est transformé une seule fois en
+ * chemin "/xxx.jsp", son existence vérifiée une seule fois et son RequestDispatcher
+ * gardé : le rendu ne touche plus au système de fichiers.
+ *
+ * Au démarrage, toutes les JSP de l'application sont résolues (warmUp) ; les noms
+ * inconnus sont ensuite ajoutés au fil de l'eau, y compris le verdict « introuvable ».
+ * En mode développement, DevWatcher appelle invalidate() quand une JSP change.
+ */
+public class ViewResolver {
+
+    // Au-delà, les noms introuvables ne sont plus mémorisés (noms construits à partir de la requête)
+    private static final int MAX_MISSING = 1024;
+
+    private final ServletContext servletContext;
+    private final ConcurrentHashMap<String, ResolvedView> views = new ConcurrentHashMap<>();
+
+    /**
+     * Vue résolue : chemin de la JSP et dispatcher, ou verdict « introuvable »
+     */
+    public static final class ResolvedView {
+        private final String path;
+        private final RequestDispatcher dispatcher;
+
+        private ResolvedView(String path, RequestDispatcher dispatcher) {
+            this.path = path;
+            this.dispatcher = dispatcher;
+        }
+
+        public String getPath() { return path; }
+        /** Le dispatcher, ou null si la JSP n'existe pas */
+        public RequestDispatcher getDispatcher() { return dispatcher; }
+        public boolean exists() { return dispatcher != null; }
+    }
+
+    public ViewResolver(ServletContext servletContext) {
+        this.servletContext = servletContext;
+    }
+
+    /**
+     * Résout une vue
+     *
+     * @param viewName Le template de la View, ou à défaut le nom de ses données
+     * @return La vue résolue (jamais null ; voir ResolvedView.exists())
+     */
+    public ResolvedView resolve(String viewName) {
+        ResolvedView view = views.get(viewName);
+        if (view != null) return view;
+
+        view = load(viewName);
+        if (view.exists() || views.size() < MAX_MISSING) {
+            ResolvedView previous = views.putIfAbsent(viewName, view);
+            if (previous != null) return previous;
+        }
+        return view;
+    }
+
+    private ResolvedView load(String viewName) {
+        String viewPath = toPath(viewName);
+        try {
+            if (servletContext.getResource(viewPath) == null) {
+                return new ResolvedView(viewPath, null);
+            }
+        } catch (MalformedURLException e) {
+            return new ResolvedView(viewPath, null);
+        }
+        return new ResolvedView(viewPath, servletContext.getRequestDispatcher(viewPath));
+    }
+
+    /**
+     * Construction du chemin vers la JSP : "users/list" -> "/users/list.jsp"
+     */
+    static String toPath(String viewName) {
+        String viewPath = viewName;
+        if (!viewPath.startsWith("/")) {
+            viewPath = "/" + viewPath;
+        }
+        if (!viewPath.endsWith(".jsp")) {
+            viewPath = viewPath + ".jsp";
+        }
+        return viewPath;
+    }
+
+    /**
+     * Résout à l'avance toutes les JSP de l'application (hors WEB-INF)
+     *
+     * @return Le nombre de vues résolues
+     */
+    public int warmUp() {
+        int before = views.size();
+        warmUp("/");
+        return views.size() - before;
+    }
+
+    private void warmUp(String directory) {
+        Set<String> paths = servletContext.getResourcePaths(directory);
+        if (paths == null) return;
+        for (String path : paths) {
+            if (path.endsWith("/")) {
+                if (!path.startsWith("/WEB-INF/") && !path.startsWith("/META-INF/")) {
+                    warmUp(path);
+                }
+            } else if (path.endsWith(".jsp")) {
+                ResolvedView view = new ResolvedView(path, servletContext.getRequestDispatcher(path));
+                // Les deux formes sous lesquelles une View peut nommer cette JSP
+                views.put(path, view);
+                views.put(path.substring(1, path.length() - ".jsp".length()), view);
+            }
+        }
+    }
+
+    /**
+     * Oublie les vues après une modification de fichiers (mode développement)
+     * Toute la table est vidée : une JSP ajoutée peut répondre à un nom jusque-là introuvable.
+     */
+    public void invalidate(Set<Path> changedFiles) {
+        for (Path changed : changedFiles) {
+            String fileName = changed.getFileName() != null ? changed.getFileName().toString() : "";
+            if (fileName.endsWith(".jsp") || !fileName.contains(".")) {
+                views.clear();
+                return;
+            }
+        }
+    }
+
+    public int size() {
+        return views.size();
+    }
+}
@@ -47,7 +47,8 @@ public class ExampleController {
         System.out.println("Création utilisateur: " + name + " - " + email);
         
         // Redirection vers la liste des utilisateurs après création
-        return View.redirect("users");
+        // 303 : le navigateur suit la redirection en GET, même après un POST
+        return View.redirect("users", 303);
     }
     
     /**
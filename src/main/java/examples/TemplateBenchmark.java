@@ -0,0 +1,160 @@
+package examples;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.PooledByteOutput;
+import com.Template;
+
+/**
+ * Mesure du moteur .tpl face à un rendu de type JSP
+ *
+ * Le forward JSP complet a besoin d'un conteneur ; on compare donc le moteur au
+ * code qu'une JSP compilée exécute pour la même page : écriture de chaînes dans
+ * un Writer tamponné, encodage UTF-8 par le Writer, échappement des valeurs.
+ * Le surcoût du RequestDispatcher et de la copie des attributs s'y ajoute côté JSP.
+ *
+ * Lancement : java -cp target/classes examples.TemplateBenchmark [lignes] [itérations]
+ */
+public class TemplateBenchmark {
+
+    private static final String TEMPLATE =
+        "<!DOCTYPE html><html><head><title>Utilisateurs</title></head><body>\n"
+        + "<h1>{{title}}</h1>\n"
+        + "{{#if users}}<table>\n"
+        + "{{#each users as u}}<tr><td>{{u.id}}</td><td>{{u.name}}</td><td>{{u.email}}</td>"
+        + "<td>{{#if u.active}}actif{{else}}inactif{{/if}}</td></tr>\n{{/each}}"
+        + "</table>{{else}}<p>Aucun utilisateur</p>{{/if}}\n"
+        + "</body></html>\n";
+
+    public static class User {
+        private final int id;
+        private final String name;
+        private final String email;
+        private final boolean active;
+
+        User(int id, String name, String email, boolean active) {
+            this.id = id;
+            this.name = name;
+            this.email = email;
+            this.active = active;
+        }
+
+        public int getId() { return id; }
+        public String getName() { return name; }
+        public String getEmail() { return email; }
+        public boolean isActive() { return active; }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            users.add(new User(i, "Utilisateur <" + i + ">", "user" + i + "@exemple.fr", i % 3 != 0));
+        }
+        Map<String, Object> model = new HashMap<>();
+        model.put("title", "Liste des utilisateurs (été)");
+        model.put("users", users);
+
+        Template template = Template.compile("benchmark.tpl", TEMPLATE);
+
+        // Les deux rendus doivent produire le même HTML
+        byte[] expected = renderJspStyle(users, "Liste des utilisateurs (été)");
+        PooledByteOutput check = new PooledByteOutput();
+        template.render(model, check);
+        if (!java.util.Arrays.equals(expected, check.toByteArray())) {
+            throw new IllegalStateException("Les deux rendus diffèrent");
+        }
+        check.release();
+
+        System.out.println("Page de " + expected.length + " octets, " + rows + " lignes, "
+            + iterations + " rendus");
+        for (int round = 1; round <= 3; round++) {
+            long templateNanos = timeTemplate(template, model, iterations);
+            long jspNanos = timeJspStyle(users, iterations);
+            System.out.printf("Tour %d : .tpl %,d ns/rendu, style JSP %,d ns/rendu%n",
+                round, templateNanos / iterations, jspNanos / iterations);
+        }
+    }
+
+    private static long timeTemplate(Template template, Map<String, Object> model, int iterations) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            PooledByteOutput out = new PooledByteOutput();
+            template.render(model, out);
+            sink += out.size();
+            out.release();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink == 42) System.out.println();
+        return elapsed;
+    }
+
+    private static long timeJspStyle(List<User> users, int iterations) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += renderJspStyle(users, "Liste des utilisateurs (été)").length;
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink == 42) System.out.println();
+        return elapsed;
+    }
+
+    /**
+     * Ce que fait la servlet générée par Jasper pour la même page
+     */
+    private static byte[] renderJspStyle(List<User> users, String title) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(bytes, StandardCharsets.UTF_8));
+        out.write("<!DOCTYPE html><html><head><title>Utilisateurs</title></head><body>\n");
+        out.write("<h1>");
+        out.write(escape(title));
+        out.write("</h1>\n");
+        if (!users.isEmpty()) {
+            out.write("<table>\n");
+            for (User u : users) {
+                out.write("<tr><td>");
+                out.write(escape(String.valueOf(u.getId())));
+                out.write("</td><td>");
+                out.write(escape(u.getName()));
+                out.write("</td><td>");
+                out.write(escape(u.getEmail()));
+                out.write("</td><td>");
+                out.write(u.isActive() ? "actif" : "inactif");
+                out.write("</td></tr>\n");
+            }
+            out.write("</table>");
+        } else {
+            out.write("<p>Aucun utilisateur</p>");
+        }
+        out.write("\n</body></html>\n");
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static String escape(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 16);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&': escaped.append("&amp;"); break;
+                case '<': escaped.append("&lt;"); break;
+                case '>': escaped.append("&gt;"); break;
+                case '"': escaped.append("&quot;"); break;
+                case '\'': escaped.append("&#39;"); break;
+                default: escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
@@ -2,6 +2,7 @@ package lookup;
 
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -58,6 +59,20 @@ public class AnnotationAnalyzer {
         return new AnnotationAnalysisResult(annotatedClasses, nonAnnotatedClasses, annotationClass);
     }
     
+    /**
+     * Construit le résultat d'analyse à partir d'un scan par bytecode
+     * Les classes non annotées n'ont pas été chargées : seul leur nombre est connu
+     * 
+     * @param scanResult résultat du ClassScanner
+     * @param annotationClass type d'annotation recherché lors du scan
+     * @return résultat contenant les classes annotées
+     */
+    public AnnotationAnalysisResult analyzeScan(ClassScanner.ScanResult scanResult,
+                                                Class<? extends Annotation> annotationClass) {
+        return new AnnotationAnalysisResult(scanResult.getAnnotatedClasses(annotationClass),
+                                            scanResult.getScannedCount(), annotationClass);
+    }
+    
     /**
      * Récupère les valeurs d'une annotation spécifique pour une classe
      * 
@@ -87,6 +102,7 @@ public class AnnotationAnalyzer {
         private final List<Class<?>> annotatedClasses;
         private final List<Class<?>> nonAnnotatedClasses;
         private final Class<? extends Annotation> annotationClass;
+        private final int totalClasses;
         
         public AnnotationAnalysisResult(List<Class<?>> annotatedClasses, 
                                       List<Class<?>> nonAnnotatedClasses, 
@@ -94,6 +110,19 @@ public class AnnotationAnalyzer {
             this.annotatedClasses = annotatedClasses;
             this.nonAnnotatedClasses = nonAnnotatedClasses;
             this.annotationClass = annotationClass;
+            this.totalClasses = annotatedClasses.size() + nonAnnotatedClasses.size();
+        }
+        
+        /**
+         * Résultat sans liste des classes non annotées (classes non chargées)
+         */
+        public AnnotationAnalysisResult(List<Class<?>> annotatedClasses, 
+                                      int totalClasses, 
+                                      Class<? extends Annotation> annotationClass) {
+            this.annotatedClasses = annotatedClasses;
+            this.nonAnnotatedClasses = Collections.emptyList();
+            this.annotationClass = annotationClass;
+            this.totalClasses = totalClasses;
         }
         
         // Getters
@@ -103,7 +132,7 @@ public class AnnotationAnalyzer {
         
         // Méthodes utilitaires
         public int getTotalClasses() { 
-            return annotatedClasses.size() + nonAnnotatedClasses.size(); 
+            return totalClasses; 
         }
         
         public int getAnnotatedCount() { 
@@ -111,7 +140,7 @@ public class AnnotationAnalyzer {
         }
         
         public int getNonAnnotatedCount() { 
-            return nonAnnotatedClasses.size(); 
+            return totalClasses - annotatedClasses.size(); 
         }
         
         public double getAnnotationRatio() {
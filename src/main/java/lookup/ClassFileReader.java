@@ -0,0 +1,206 @@
+package lookup;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Lecture des métadonnées d'un fichier .class sans charger la classe
+ *
+ * Seuls le pool de constantes, le nom de la classe et l'attribut
+ * RuntimeVisibleAnnotations de la classe sont lus : aucun initialiseur
+ * statique n'est exécuté et aucune classe n'est définie dans la JVM.
+ */
+public class ClassFileReader {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    // Tags du pool de constantes (JVMS §4.4)
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    /**
+     * Métadonnées lues dans un fichier .class
+     */
+    public static class ClassFileInfo {
+        private final String className;
+        private final List<String> annotations;
+
+        public ClassFileInfo(String className, List<String> annotations) {
+            this.className = className;
+            this.annotations = annotations;
+        }
+
+        /** Nom binaire de la classe (ex: com.app.UserController) */
+        public String getClassName() { return className; }
+
+        /** Noms des annotations visibles à l'exécution posées sur la classe */
+        public List<String> getAnnotations() { return annotations; }
+
+        public boolean hasAnnotation(String annotationName) {
+            return annotations.contains(annotationName);
+        }
+    }
+
+    /**
+     * Lit le nom et les annotations de classe d'un fichier .class
+     *
+     * @param in Le contenu du fichier .class
+     * @return Les métadonnées de la classe
+     * @throws IOException si le fichier n'est pas un .class valide
+     */
+    public static ClassFileInfo read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Fichier .class invalide");
+        }
+        data.readUnsignedShort(); // version mineure
+        data.readUnsignedShort(); // version majeure
+
+        // Pool de constantes : seules les chaînes UTF-8 et les références de classe sont conservées
+        int poolCount = data.readUnsignedShort();
+        String[] utf8 = new String[poolCount];
+        int[] classNameIndex = new int[poolCount];
+        for (int i = 1; i < poolCount; i++) {
+            int tag = data.readUnsignedByte();
+            switch (tag) {
+                case CONSTANT_UTF8:
+                    utf8[i] = data.readUTF();
+                    break;
+                case CONSTANT_CLASS:
+                    classNameIndex[i] = data.readUnsignedShort();
+                    break;
+                case CONSTANT_STRING:
+                case CONSTANT_METHOD_TYPE:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    data.skipBytes(2);
+                    break;
+                case CONSTANT_METHOD_HANDLE:
+                    data.skipBytes(3);
+                    break;
+                case CONSTANT_INTEGER:
+                case CONSTANT_FLOAT:
+                case CONSTANT_FIELDREF:
+                case CONSTANT_METHODREF:
+                case CONSTANT_INTERFACE_METHODREF:
+                case CONSTANT_NAME_AND_TYPE:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKE_DYNAMIC:
+                    data.skipBytes(4);
+                    break;
+                case CONSTANT_LONG:
+                case CONSTANT_DOUBLE:
+                    // Occupe deux entrées du pool
+                    data.skipBytes(8);
+                    i++;
+                    break;
+                default:
+                    throw new IOException("Tag de constante inconnu: " + tag);
+            }
+        }
+
+        data.readUnsignedShort(); // access_flags
+        int thisClass = data.readUnsignedShort();
+        String className = utf8[classNameIndex[thisClass]].replace('/', '.');
+        data.readUnsignedShort(); // super_class
+        data.skipBytes(2 * data.readUnsignedShort()); // interfaces
+
+        skipMembers(data); // champs
+        skipMembers(data); // méthodes
+
+        // Attributs de la classe
+        List<String> annotations = Collections.emptyList();
+        int attributeCount = data.readUnsignedShort();
+        for (int i = 0; i < attributeCount; i++) {
+            String attributeName = utf8[data.readUnsignedShort()];
+            int length = data.readInt();
+            if ("RuntimeVisibleAnnotations".equals(attributeName)) {
+                annotations = readAnnotationTypes(data, utf8);
+            } else {
+                data.skipBytes(length);
+            }
+        }
+        return new ClassFileInfo(className, annotations);
+    }
+
+    private static void skipMembers(DataInputStream data) throws IOException {
+        int count = data.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            data.skipBytes(6); // access_flags, name_index, descriptor_index
+            int attributeCount = data.readUnsignedShort();
+            for (int j = 0; j < attributeCount; j++) {
+                data.skipBytes(2);
+                data.skipBytes(data.readInt());
+            }
+        }
+    }
+
+    /**
+     * Lit les types des annotations (descripteurs "Lpkg/Nom;" convertis en "pkg.Nom")
+     */
+    private static List<String> readAnnotationTypes(DataInputStream data, String[] utf8) throws IOException {
+        int count = data.readUnsignedShort();
+        List<String> types = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            types.add(descriptorToName(utf8[data.readUnsignedShort()]));
+            skipElementValuePairs(data);
+        }
+        return types;
+    }
+
+    private static void skipElementValuePairs(DataInputStream data) throws IOException {
+        int pairs = data.readUnsignedShort();
+        for (int i = 0; i < pairs; i++) {
+            data.skipBytes(2); // element_name_index
+            skipElementValue(data);
+        }
+    }
+
+    private static void skipElementValue(DataInputStream data) throws IOException {
+        int tag = data.readUnsignedByte();
+        switch (tag) {
+            case 'e':
+                data.skipBytes(4); // type_name_index, const_name_index
+                break;
+            case '@':
+                data.skipBytes(2);
+                skipElementValuePairs(data);
+                break;
+            case '[':
+                int values = data.readUnsignedShort();
+                for (int i = 0; i < values; i++) {
+                    skipElementValue(data);
+                }
+                break;
+            default:
+                // Constantes (B C D F I J S Z s) et classes (c) : un index du pool
+                data.skipBytes(2);
+        }
+    }
+
+    private static String descriptorToName(String descriptor) {
+        if (descriptor.startsWith("L") && descriptor.endsWith(";")) {
+            descriptor = descriptor.substring(1, descriptor.length() - 1);
+        }
+        return descriptor.replace('/', '.');
+    }
+}
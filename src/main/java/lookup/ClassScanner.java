@@ -1,16 +1,396 @@
 package lookup;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.net.JarURLConnection;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import lookup.ClassFileReader.ClassFileInfo;
 
 /**
  * Service de scan de classes dans un package
  * Fournit des méthodes pour découvrir et charger des classes Java
  */
 public class ClassScanner {
+
+    // Index persistant du scan (null = pas d'index, tout est relu à chaque démarrage)
+    private File indexFile;
+
+    // Préfixes de packages à scanner, en chemins (ex: "com/app/") ; vide = tout scanner
+    private List<String> packagePaths = Collections.emptyList();
+
+    // Répertoires et jars déjà décrits par un RouteIndex : non parcourus
+    private Set<Path> skippedLocations = Collections.emptySet();
+
+    /**
+     * Active l'index persistant du scan
+     * Les fichiers .class inchangés (même date et même taille) ne sont pas relus
+     * au démarrage suivant : seules leurs métadonnées sont reprises de l'index.
+     *
+     * @param indexFile Le fichier d'index (ex: dans le répertoire temporaire du conteneur)
+     */
+    public void setIndexFile(File indexFile) {
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Exclut du scan des répertoires ou jars (ceux qui ont déjà un RouteIndex)
+     *
+     * @param skippedLocations Chemins absolus normalisés (voir RouteIndex.getLocations())
+     */
+    public void setSkippedLocations(Set<Path> skippedLocations) {
+        this.skippedLocations = skippedLocations;
+    }
+
+    /**
+     * Limite le scan à certains packages (et leurs sous-packages)
+     * Les répertoires et entrées de jar hors de ces packages ne sont pas lus.
+     *
+     * @param packagePrefixes Les packages à scanner (ex: "com.app", "org.module") ; vide = tout scanner
+     */
+    public void setPackagePrefixes(List<String> packagePrefixes) {
+        List<String> paths = new ArrayList<>();
+        for (String prefix : packagePrefixes) {
+            String trimmed = prefix.trim();
+            if (!trimmed.isEmpty()) {
+                paths.add(trimmed.replace('.', '/') + "/");
+            }
+        }
+        this.packagePaths = paths;
+    }
+
+    /**
+     * Scanne WEB-INF/classes et les jars de WEB-INF/lib en lisant le bytecode,
+     * sans charger les classes
+     * Seules les classes portant une des annotations demandées sont chargées,
+     * avec Class.forName(nom, false, loader) : leurs initialiseurs statiques ne
+     * sont pas exécutés pendant le scan.
+     * Les fichiers du répertoire sont lus en parallèle, les jars aussi (un jar par tâche).
+     *
+     * @param annotationTypes Les annotations recherchées (ex: Controller, Entity)
+     * @return Les classes annotées, par annotation
+     * @throws Exception si une erreur survient lors du scan
+     */
+    @SafeVarargs
+    public final ScanResult scanWebInfClasses(Class<? extends Annotation>... annotationTypes) throws Exception {
+        // Copie en liste : le tableau varargs ne sort pas de la méthode
+        List<Class<? extends Annotation>> types = new ArrayList<>(annotationTypes.length);
+        for (Class<? extends Annotation> annotationType : annotationTypes) {
+            types.add(annotationType);
+        }
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        URL resource = classLoader.getResource("");
+
+        if (resource == null || !"file".equals(resource.getProtocol())) {
+            System.err.println("Impossible de trouver le répertoire des classes");
+            return loadAnnotatedClasses(Collections.emptyList(), types, classLoader);
+        }
+
+        Path classesDir = Paths.get(resource.toURI());
+        List<ClassFileInfo> infos = readClasses(classesDir, findLibDirectory(classesDir));
+        return loadAnnotatedClasses(infos, types, classLoader);
+    }
+
+    /**
+     * Répertoire WEB-INF/lib voisin de WEB-INF/classes (null hors d'une application web)
+     */
+    private static Path findLibDirectory(Path classesDir) {
+        Path webInf = classesDir.getParent();
+        if (webInf == null || !"classes".equals(String.valueOf(classesDir.getFileName()))
+                || !"WEB-INF".equals(String.valueOf(webInf.getFileName()))) {
+            return null;
+        }
+        Path lib = webInf.resolve("lib");
+        return Files.isDirectory(lib) ? lib : null;
+    }
+
+    /**
+     * Résultat d'un scan par lecture du bytecode
+     */
+    public static class ScanResult {
+        private final Map<Class<? extends Annotation>, List<Class<?>>> classesByAnnotation;
+        private final int scannedCount;
+
+        public ScanResult(Map<Class<? extends Annotation>, List<Class<?>>> classesByAnnotation, int scannedCount) {
+            this.classesByAnnotation = classesByAnnotation;
+            this.scannedCount = scannedCount;
+        }
+
+        /** Classes chargées portant l'annotation donnée */
+        public List<Class<?>> getAnnotatedClasses(Class<? extends Annotation> annotationType) {
+            return classesByAnnotation.getOrDefault(annotationType, Collections.emptyList());
+        }
+
+        /** Nombre de fichiers .class examinés */
+        public int getScannedCount() {
+            return scannedCount;
+        }
+    }
+
+    /**
+     * Charge (sans les initialiser) les classes qui portent une des annotations demandées
+     */
+    private ScanResult loadAnnotatedClasses(List<ClassFileInfo> infos,
+                                            List<Class<? extends Annotation>> annotationTypes,
+                                            ClassLoader classLoader) {
+        Map<Class<? extends Annotation>, List<Class<?>>> result = new LinkedHashMap<>();
+        for (Class<? extends Annotation> annotationType : annotationTypes) {
+            List<Class<?>> classes = new ArrayList<>();
+            for (ClassFileInfo info : infos) {
+                if (!info.hasAnnotation(annotationType.getName())) continue;
+                try {
+                    classes.add(Class.forName(info.getClassName(), false, classLoader));
+                } catch (ClassNotFoundException | LinkageError e) {
+                    System.err.println("Erreur lors du chargement de: " + info.getClassName());
+                }
+            }
+            result.put(annotationType, classes);
+        }
+        return new ScanResult(result, infos.size());
+    }
+
+    /**
+     * Lit en parallèle les métadonnées de tous les .class d'un répertoire et des jars d'un répertoire lib
+     * Les entrées de l'index persistant sont réutilisées pour les fichiers et jars inchangés.
+     */
+    private List<ClassFileInfo> readClasses(Path root, Path libDir) throws IOException {
+        Map<String, IndexEntry> loaded = loadIndex();
+        Map<String, IndexEntry> previous = loaded != null ? loaded : Collections.emptyMap();
+
+        // Seuls les répertoires des packages demandés sont parcourus
+        List<Path> classFiles = new ArrayList<>();
+        List<Path> startDirs = new ArrayList<>();
+        if (isSkipped(root)) {
+            // Classes déjà indexées à la compilation
+        } else if (packagePaths.isEmpty()) {
+            startDirs.add(root);
+        } else {
+            for (String packagePath : packagePaths) {
+                startDirs.add(root.resolve(packagePath));
+            }
+        }
+        for (Path startDir : startDirs) {
+            if (!Files.isDirectory(startDir)) continue;
+            try (Stream<Path> walk = Files.walk(startDir)) {
+                walk.filter(p -> p.getFileName().toString().endsWith(".class")).forEach(classFiles::add);
+            }
+        }
+
+        List<IndexEntry> entries = classFiles.parallelStream()
+            .distinct()
+            .map(file -> readEntry(root, file, previous))
+            .filter(entry -> entry != null)
+            .collect(Collectors.toCollection(ArrayList::new));
+
+        if (libDir != null) {
+            List<Path> jars;
+            try (Stream<Path> list = Files.list(libDir)) {
+                jars = list.filter(p -> p.getFileName().toString().endsWith(".jar") && !isSkipped(p))
+                    .collect(Collectors.toList());
+            }
+            jars.parallelStream()
+                .map(jar -> readJar(jar, previous))
+                .collect(Collectors.toList())
+                .forEach(entries::addAll);
+        }
+        entries.sort(Comparator.comparing(entry -> entry.path));
+
+        saveIndex(entries, loaded);
+
+        List<ClassFileInfo> infos = new ArrayList<>(entries.size());
+        for (IndexEntry entry : entries) {
+            infos.add(entry.info);
+        }
+        return infos;
+    }
+
+    private IndexEntry readEntry(Path root, Path file, Map<String, IndexEntry> previous) {
+        String path = root.relativize(file).toString().replace(File.separatorChar, '/');
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            long size = attributes.size();
+
+            IndexEntry known = previous.get(path);
+            if (known != null && known.lastModified == lastModified && known.size == size) {
+                return known;
+            }
+            try (InputStream in = Files.newInputStream(file)) {
+                return new IndexEntry(path, lastModified, size, ClassFileReader.read(in));
+            }
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la lecture de: " + path + " (" + e.getMessage() + ")");
+            return null;
+        }
+    }
+
+    /**
+     * Lit les .class d'un jar à partir de son répertoire central (ZipFile),
+     * en n'ouvrant que les entrées des packages demandés
+     * Si le jar n'a pas changé depuis le dernier scan, ses entrées d'index sont reprises telles quelles.
+     */
+    private List<IndexEntry> readJar(Path jar, Map<String, IndexEntry> previous) {
+        String jarPrefix = "lib/" + jar.getFileName() + "!/";
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(jar, BasicFileAttributes.class);
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            long size = attributes.size();
+
+            List<IndexEntry> known = new ArrayList<>();
+            boolean unchanged = true;
+            for (IndexEntry entry : previous.values()) {
+                if (!entry.path.startsWith(jarPrefix)) continue;
+                known.add(entry);
+                unchanged &= entry.lastModified == lastModified && entry.size == size;
+            }
+            if (unchanged && !known.isEmpty()) {
+                return known;
+            }
+
+            List<IndexEntry> entries = new ArrayList<>();
+            try (ZipFile zip = new ZipFile(jar.toFile())) {
+                Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+                while (zipEntries.hasMoreElements()) {
+                    ZipEntry zipEntry = zipEntries.nextElement();
+                    String name = zipEntry.getName();
+                    if (zipEntry.isDirectory() || !name.endsWith(".class")
+                            || name.startsWith("META-INF/") || !isInScannedPackage(name)) {
+                        continue;
+                    }
+                    try (InputStream in = zip.getInputStream(zipEntry)) {
+                        entries.add(new IndexEntry(jarPrefix + name, lastModified, size, ClassFileReader.read(in)));
+                    } catch (IOException e) {
+                        System.err.println("Erreur lors de la lecture de: " + jarPrefix + name);
+                    }
+                }
+            }
+            return entries;
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la lecture du jar: " + jar + " (" + e.getMessage() + ")");
+            return Collections.emptyList();
+        }
+    }
+
+    private boolean isSkipped(Path location) {
+        return !skippedLocations.isEmpty() && skippedLocations.contains(location.toAbsolutePath().normalize());
+    }
+
+    private boolean isInScannedPackage(String entryName) {
+        if (packagePaths.isEmpty()) return true;
+        for (String packagePath : packagePaths) {
+            if (entryName.startsWith(packagePath)) return true;
+        }
+        return false;
+    }
+
+    // =====================================================
+    // INDEX PERSISTANT
+    // Une ligne par fichier : chemin, date, taille, classe, annotations
+    // =====================================================
+
+    private static final class IndexEntry {
+        final String path;
+        final long lastModified;
+        final long size;
+        final ClassFileInfo info;
+
+        IndexEntry(String path, long lastModified, long size, ClassFileInfo info) {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.size = size;
+            this.info = info;
+        }
+    }
+
+    /**
+     * @return Les entrées de l'index, ou null si l'index est absent, illisible ou construit
+     *         avec d'autres préfixes de packages
+     */
+    private Map<String, IndexEntry> loadIndex() {
+        Map<String, IndexEntry> entries = new HashMap<>();
+        if (indexFile == null || !indexFile.isFile()) return null;
+
+        try (BufferedReader reader = Files.newBufferedReader(indexFile.toPath(), StandardCharsets.UTF_8)) {
+            // Index construit avec d'autres préfixes de packages : inutilisable
+            if (!indexHeader().equals(reader.readLine())) return null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", -1);
+                if (fields.length != 5) continue;
+                List<String> annotations = fields[4].isEmpty()
+                    ? Collections.emptyList()
+                    : Arrays.asList(fields[4].split(","));
+                entries.put(fields[0], new IndexEntry(fields[0], Long.parseLong(fields[1]),
+                    Long.parseLong(fields[2]), new ClassFileInfo(fields[3], annotations)));
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Index illisible : scan complet
+            System.err.println("Index de scan ignoré: " + e.getMessage());
+            return null;
+        }
+        return entries;
+    }
+
+    private String indexHeader() {
+        return "# scan " + String.join(",", packagePaths);
+    }
+
+    private void saveIndex(List<IndexEntry> entries, Map<String, IndexEntry> previous) {
+        if (indexFile == null) return;
+        boolean unchanged = previous != null && entries.size() == previous.size()
+            && entries.stream().allMatch(entry -> previous.get(entry.path) == entry);
+        if (unchanged) return;
+
+        Path target = indexFile.toPath();
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(target.toAbsolutePath().getParent());
+            try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                writer.write(indexHeader());
+                writer.newLine();
+                for (IndexEntry entry : entries) {
+                    writer.write(entry.path + "\t" + entry.lastModified + "\t" + entry.size + "\t"
+                        + entry.info.getClassName() + "\t" + String.join(",", entry.info.getAnnotations()));
+                    writer.newLine();
+                }
+            }
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.err.println("Impossible d'écrire l'index de scan: " + e.getMessage());
+        }
+    }
+
     /**
      * Scanne toutes les classes présentes dans WEB-INF/classes
      * Utilisé pour scanner les classes d'une application web déployée
@@ -111,12 +491,13 @@ public class ClassScanner {
         while (resources.hasMoreElements()) {
             URL resource = resources.nextElement();
             
-            // Ne traite que les ressources de type fichier (ignore les JARs, etc.)
             if (resource.getProtocol().equals("file")) {
                 // Ajoute toutes les classes trouvées dans le répertoire
                 classes.addAll(findClasses(new File(resource.getFile()), packageName));
+            } else if (resource.getProtocol().equals("jar")) {
+                // Ajoute toutes les classes du package présentes dans le jar
+                classes.addAll(findClassesInJar(resource, path));
             }
-            // Note: Pour scanner les JARs, il faudrait ajouter un traitement supplémentaire ici
         }
         
         return classes;
@@ -168,6 +549,38 @@ public class ClassScanner {
         return classes;
     }
     
+    /**
+     * Charge les classes d'un package contenu dans un jar (URL jar:file:...!/chemin)
+     * Les entrées sont lues depuis le répertoire central du jar, sans le décompresser.
+     * 
+     * @param resource l'URL du package dans le jar
+     * @param path le chemin du package (ex: "com/monapp")
+     * @return liste des classes chargées depuis le jar
+     */
+    private List<Class<?>> findClassesInJar(URL resource, String path) throws IOException {
+        List<Class<?>> classes = new ArrayList<>();
+        String prefix = path.isEmpty() ? "" : path + "/";
+        
+        JarURLConnection connection = (JarURLConnection) resource.openConnection();
+        connection.setUseCaches(false);
+        try (JarFile jar = connection.getJarFile()) {
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (!name.startsWith(prefix) || !name.endsWith(".class")
+                        || name.endsWith("module-info.class") || name.endsWith("package-info.class")) continue;
+                
+                String className = name.substring(0, name.length() - 6).replace('/', '.');
+                try {
+                    classes.add(Class.forName(className));
+                } catch (Exception | LinkageError e) {
+                    System.err.println("Impossible de charger la classe: " + className);
+                }
+            }
+        }
+        return classes;
+    }
+    
     /**
      * Récupère toutes les classes d'un package et les filtre par un critère
      * 
@@ -0,0 +1,177 @@
+package lookup;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.Type;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import annotations.Cacheable;
+import annotations.Compress;
+import annotations.ConditionalGet;
+import annotations.JsonMapping;
+import annotations.RequestParam;
+import annotations.SessionParam;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Plan d'appel d'une méthode de contrôleur, compilé une seule fois par route
+ *
+ * Regroupe tout ce que la réflexion calculerait à chaque requête :
+ * - le constructeur du contrôleur et la méthode (rendus accessibles)
+ * - les types, types génériques et annotations de chaque paramètre
+ * - le type de réponse (@JsonMapping), la mise en cache (@Cacheable) et la compression (@Compress)
+ * - la méthode de version déclarée par @ConditionalGet
+ *
+ * Le plan est immuable : une fois publié par MappedMethod, il est partagé
+ * sans synchronisation par tous les threads de requête.
+ */
+public final class HandlerPlan {
+
+    private final Method method;
+    private final Constructor<?> constructor;
+    private final Class<?>[] parameterTypes;
+    private final Parameter[] parameters;
+    private final Type[] genericTypes;
+    private final RequestParam[] requestParams;
+    private final SessionParam[] sessionParams;
+    private final boolean jsonMapping;
+    private final Cacheable cacheable;
+    private final int compressionLevel;
+    private final Method versionMethod;
+
+    private HandlerPlan(Method method, Constructor<?> constructor, Method versionMethod) {
+        this.method = method;
+        this.versionMethod = versionMethod;
+        this.constructor = constructor;
+        this.parameterTypes = method.getParameterTypes();
+        this.parameters = method.getParameters();
+        this.genericTypes = new Type[parameters.length];
+        this.requestParams = new RequestParam[parameters.length];
+        this.sessionParams = new SessionParam[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            genericTypes[i] = parameters[i].getParameterizedType();
+            requestParams[i] = parameters[i].getAnnotation(RequestParam.class);
+            sessionParams[i] = parameters[i].getAnnotation(SessionParam.class);
+        }
+        this.jsonMapping = method.isAnnotationPresent(JsonMapping.class);
+        this.cacheable = method.getAnnotation(Cacheable.class);
+        Compress compress = method.getAnnotation(Compress.class);
+        this.compressionLevel = compress != null ? compress.level() : -1;
+    }
+
+    /**
+     * Compile le plan d'une méthode de contrôleur
+     *
+     * @throws IllegalStateException si le contrôleur n'a pas de constructeur sans argument,
+     *         si la méthode de @ConditionalGet est introuvable ou si une méthode @Cacheable
+     *         dépend de la session
+     */
+    public static HandlerPlan compile(Method method) {
+        checkCacheable(method);
+        try {
+            Constructor<?> constructor = method.getDeclaringClass().getDeclaredConstructor();
+            constructor.setAccessible(true);
+            method.setAccessible(true);
+            return new HandlerPlan(method, constructor, findVersionMethod(method));
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Le contrôleur " + method.getDeclaringClass().getName()
+                + " doit avoir un constructeur sans argument", e);
+        }
+    }
+
+    /**
+     * Une réponse @Cacheable est servie à tous les clients de la même URL : la méthode ne
+     * doit pas recevoir la session (@SessionParam) ni la requête ou la réponse, par lesquelles
+     * elle pourrait la lire
+     */
+    private static void checkCacheable(Method method) {
+        if (!method.isAnnotationPresent(Cacheable.class)) return;
+        for (Parameter parameter : method.getParameters()) {
+            Class<?> type = parameter.getType();
+            if (parameter.isAnnotationPresent(SessionParam.class)
+                    || type == HttpServletRequest.class || type == HttpServletResponse.class) {
+                throw new IllegalStateException("@Cacheable incompatible avec le paramètre " + parameter.getName()
+                    + " (session, requête ou réponse) de " + method.getDeclaringClass().getName()
+                    + "." + method.getName());
+            }
+        }
+    }
+
+    /**
+     * Méthode de version de @ConditionalGet : même classe, sans paramètre
+     * ou avec la Map des variables de chemin
+     */
+    private static Method findVersionMethod(Method method) {
+        ConditionalGet conditionalGet = method.getAnnotation(ConditionalGet.class);
+        if (conditionalGet == null) return null;
+        for (Method candidate : method.getDeclaringClass().getDeclaredMethods()) {
+            if (!candidate.getName().equals(conditionalGet.value())) continue;
+            Class<?>[] types = candidate.getParameterTypes();
+            if (types.length == 0 || (types.length == 1 && types[0] == Map.class)) {
+                candidate.setAccessible(true);
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("Méthode de version introuvable pour @ConditionalGet: "
+            + method.getDeclaringClass().getName() + "." + conditionalGet.value() + "()");
+    }
+
+    /**
+     * Crée une instance du contrôleur (une par requête)
+     */
+    public Object newController() throws ReflectiveOperationException {
+        return constructor.newInstance();
+    }
+
+    /**
+     * Appelle la méthode sur le contrôleur
+     */
+    public Object invoke(Object controller, Object[] arguments)
+            throws IllegalAccessException, InvocationTargetException {
+        return method.invoke(controller, arguments);
+    }
+
+    /**
+     * Appelle la méthode de version de @ConditionalGet
+     *
+     * @return La version (date ou clé), ou null si la route n'a pas de @ConditionalGet
+     */
+    public Object invokeVersion(Object controller, Map<String, String> pathVariables)
+            throws IllegalAccessException, InvocationTargetException {
+        if (versionMethod == null) return null;
+        return versionMethod.getParameterCount() == 0
+            ? versionMethod.invoke(controller)
+            // Copie : la map reçue peut appartenir au contexte réutilisé de la requête
+            : versionMethod.invoke(controller, new LinkedHashMap<>(pathVariables));
+    }
+
+    public Method getMethod() { return method; }
+    public int getParameterCount() { return parameters.length; }
+    public Class<?>[] getParameterTypes() { return parameterTypes; }
+    public Parameter getParameter(int index) { return parameters[index]; }
+    public Type getGenericType(int index) { return genericTypes[index]; }
+    /** @RequestParam du paramètre, ou null */
+    public RequestParam getRequestParam(int index) { return requestParams[index]; }
+    /** @SessionParam du paramètre, ou null */
+    public SessionParam getSessionParam(int index) { return sessionParams[index]; }
+    public boolean isJsonMapping() { return jsonMapping; }
+    /** @Cacheable de la méthode, ou null */
+    public Cacheable getCacheable() { return cacheable; }
+    public boolean hasVersionMethod() { return versionMethod != null; }
+    /** Niveau de @Compress, ou -1 sans annotation */
+    public int getCompressionLevel() { return compressionLevel; }
+
+    /**
+     * Vérifie si la méthode attend un paramètre du type donné
+     */
+    public boolean hasParameterOfType(Class<?> type) {
+        for (Class<?> parameterType : parameterTypes) {
+            if (parameterType == type) return true;
+        }
+        return false;
+    }
+}
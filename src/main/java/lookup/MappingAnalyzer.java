@@ -43,6 +43,71 @@ public class MappingAnalyzer {
         return methodMappings;
     }
     
+    /**
+     * Construit les méthodes mappées à partir de l'index généré à la compilation
+     * Les classes sont chargées sans être initialisées ; les routes dont la méthode
+     * n'existe plus (index périmé) sont ignorées avec un avertissement.
+     * 
+     * @param routeIndex l'index des routes
+     * @param classLoader le ClassLoader de l'application
+     * @return map des méthodes annotées organisées par classe
+     */
+    public Map<Class<?>, List<MappedMethod>> analyzeRouteIndex(RouteIndex routeIndex, ClassLoader classLoader) {
+        Map<Class<?>, List<MappedMethod>> methodMappings = new HashMap<>();
+        Map<String, Class<?>> classes = new HashMap<>();
+        for (Class<?> clazz : RouteIndex.loadClasses(routeIndex.getControllers(), classLoader)) {
+            classes.put(clazz.getName(), clazz);
+        }
+        
+        for (RouteIndex.Route route : routeIndex.getRoutes()) {
+            Class<?> clazz = classes.get(route.getClassName());
+            Method method = clazz != null ? findIndexedMethod(clazz, route) : null;
+            if (method == null) {
+                System.err.println("Route de l'index introuvable: " + route.getClassName() + "." 
+                    + route.getMethodName() + " (" + route.getUrl() + ")");
+                continue;
+            }
+            methodMappings.computeIfAbsent(clazz, k -> new ArrayList<>()).add(new MappedMethod(
+                method, route.getUrl(), route.getHttpMethod(), route.getAuteur(), route.getVersion()));
+        }
+        
+        return methodMappings;
+    }
+    
+    /**
+     * Enregistre les routes de l'index sans charger aucune classe (mode paresseux)
+     * La classe du contrôleur est chargée et le plan d'appel compilé à la première
+     * requête sur chaque route (voir MappedMethod.getPlan()).
+     * 
+     * @param routeIndex l'index des routes
+     * @param classLoader le ClassLoader utilisé au premier appel
+     * @return les méthodes mappées, non résolues
+     */
+    public List<MappedMethod> registerRouteIndex(RouteIndex routeIndex, ClassLoader classLoader) {
+        List<MappedMethod> mappedMethods = new ArrayList<>(routeIndex.getRoutes().size());
+        for (RouteIndex.Route route : routeIndex.getRoutes()) {
+            mappedMethods.add(new MappedMethod(route, classLoader));
+        }
+        return mappedMethods;
+    }
+    
+    /**
+     * Retrouve une méthode par son nom et les noms canoniques de ses paramètres
+     */
+    static Method findIndexedMethod(Class<?> clazz, RouteIndex.Route route) {
+        for (Method method : clazz.getDeclaredMethods()) {
+            if (!method.getName().equals(route.getMethodName())) continue;
+            Class<?>[] types = method.getParameterTypes();
+            if (types.length != route.getParameterTypes().size()) continue;
+            boolean matches = true;
+            for (int i = 0; i < types.length && matches; i++) {
+                matches = route.getParameterTypes().get(i).equals(types[i].getCanonicalName());
+            }
+            if (matches) return method;
+        }
+        return null;
+    }
+    
     /**
      * Analyse les méthodes d'une classe spécifique pour trouver les annotations
      * @Mapping, @GetMapping et @PostMapping
@@ -98,27 +163,147 @@ public class MappingAnalyzer {
     
     /**
      * Classe représentant une méthode mappée avec ses informations
+     * 
+     * Une méthode mappée peut être créée depuis l'index des routes sans charger
+     * sa classe : la classe est alors chargée au premier appel de getMethod(),
+     * et le plan d'appel est compilé au premier appel de getPlan().
+     * Chaque résolution n'a lieu qu'une fois (verrouillage à double vérification
+     * sur des champs volatile), même si plusieurs requêtes arrivent en même temps.
      */
     public static class MappedMethod {
-        private final Method method;
+        private final String className;
+        private final String methodName;
         private final String url;
         private final String httpMethod;
         private final String auteur;
         private final int version;
-        /* 
-         * TODO: ajouter de quoi stocker les paramètres attendus par la méthode 
-         * => Les méthodes seront annotées 
-         */       
+        
+        // Route de l'index et ClassLoader, pour la résolution paresseuse (null si déjà résolue)
+        private final RouteIndex.Route route;
+        private final ClassLoader classLoader;
+        
+        private volatile Method method;
+        private volatile HandlerPlan plan;
+        // Échec de résolution ou de compilation, renvoyé tel quel aux appels suivants
+        private volatile RuntimeException failure;
+        
         public MappedMethod(Method method, String url, String httpMethod, String auteur, int version) {
             this.method = method;
+            this.className = method.getDeclaringClass().getName();
+            this.methodName = method.getName();
             this.url = url;
             this.httpMethod = httpMethod;
             this.auteur = auteur;
             this.version = version;
+            this.route = null;
+            this.classLoader = null;
+        }
+        
+        /**
+         * Méthode mappée non résolue, créée depuis l'index des routes
+         */
+        public MappedMethod(RouteIndex.Route route, ClassLoader classLoader) {
+            this.className = route.getClassName();
+            this.methodName = route.getMethodName();
+            this.url = route.getUrl();
+            this.httpMethod = route.getHttpMethod();
+            this.auteur = route.getAuteur();
+            this.version = route.getVersion();
+            this.route = route;
+            this.classLoader = classLoader;
+        }
+        
+        /**
+         * Méthode Java de la route (charge la classe du contrôleur au premier appel)
+         * 
+         * @throws IllegalStateException si la classe ou la méthode de l'index n'existe plus
+         */
+        public Method getMethod() {
+            Method resolved = method;
+            if (resolved == null) {
+                synchronized (this) {
+                    resolved = method;
+                    if (resolved == null) {
+                        if (failure != null) throw failure;
+                        try {
+                            resolved = resolve();
+                        } catch (RuntimeException e) {
+                            failure = e;
+                            throw e;
+                        }
+                        method = resolved;
+                    }
+                }
+            }
+            return resolved;
+        }
+        
+        /**
+         * Plan d'appel de la route (compilé au premier appel)
+         * Un échec est mémorisé : les requêtes suivantes reçoivent la même exception
+         * sans recharger la classe ni recompiler le plan.
+         */
+        public HandlerPlan getPlan() {
+            HandlerPlan compiled = plan;
+            if (compiled == null) {
+                RuntimeException failed = failure;
+                if (failed != null) throw failed;
+                synchronized (this) {
+                    compiled = plan;
+                    if (compiled == null) {
+                        if (failure != null) throw failure;
+                        try {
+                            compiled = HandlerPlan.compile(getMethod());
+                        } catch (RuntimeException e) {
+                            failure = e;
+                            throw e;
+                        }
+                        plan = compiled;
+                    }
+                }
+            }
+            return compiled;
+        }
+        
+        /**
+         * Copie non résolue de la route, liée à un autre ClassLoader
+         * (la classe sera rechargée depuis ce ClassLoader à la première requête)
+         */
+        public MappedMethod withClassLoader(ClassLoader otherClassLoader) {
+            List<String> parameterTypes;
+            if (route != null) {
+                parameterTypes = route.getParameterTypes();
+            } else {
+                parameterTypes = new ArrayList<>();
+                for (Class<?> type : method.getParameterTypes()) {
+                    parameterTypes.add(type.getCanonicalName());
+                }
+            }
+            return new MappedMethod(new RouteIndex.Route(className, methodName, parameterTypes,
+                url, httpMethod, auteur, version), otherClassLoader);
+        }
+        
+        /**
+         * Indique si la classe du contrôleur a déjà été chargée
+         */
+        public boolean isResolved() {
+            return method != null;
+        }
+        
+        private Method resolve() {
+            try {
+                Class<?> clazz = Class.forName(className, true, classLoader);
+                Method found = findIndexedMethod(clazz, route);
+                if (found != null) return found;
+            } catch (ClassNotFoundException | LinkageError e) {
+                throw new IllegalStateException("Classe de la route introuvable: " + className, e);
+            }
+            throw new IllegalStateException("Méthode de la route introuvable: " + className + "." + methodName);
         }
         
         // Getters
-        public Method getMethod() { return method; }
+        public String getClassName() { return className; }
+        public String getMethodName() { return methodName; }
         public String getUrl() { return url; }
         public String getHttpMethod() { return httpMethod; }
         public String getAuteur() { return auteur; }
@@ -127,7 +312,7 @@ public class MappingAnalyzer {
         @Override
         public String toString() {
             return String.format("MappedMethod{url='%s', httpMethod='%s', javaMethod=%s, auteur='%s', version=%d}", 
-                url, httpMethod, method.getName(), auteur, version);
+                url, httpMethod, methodName, auteur, version);
         }
     }
 }
\ No newline at end of file
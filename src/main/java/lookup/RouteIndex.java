@@ -0,0 +1,226 @@
+package lookup;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Index des routes et entités généré à la compilation par RouteIndexProcessor
+ *
+ * Le fichier META-INF/framework-routes.idx contient une ligne par élément,
+ * champs séparés par des tabulations :
+ *   controller  nomDeClasse
+ *   entity      nomDeClasse
+ *   route       nomDeClasse  méthode  typesDesParamètres  url  méthodeHttp  auteur  version
+ *
+ * Chaque emplacement du classpath (WEB-INF/classes, chaque jar de WEB-INF/lib) peut
+ * avoir le sien : load() les fusionne tous. RedirectionServlet construit ses mappings
+ * à partir de l'index et ne parcourt que les emplacements qui n'en ont pas.
+ */
+public class RouteIndex {
+
+    // Emplacement de l'index dans les classes compilées
+    public static final String RESOURCE = "META-INF/framework-routes.idx";
+
+    // Première ligne du fichier (version du format)
+    static final String HEADER = "# framework-routes 1";
+
+    private final List<String> controllers = new ArrayList<>();
+    private final List<String> entities = new ArrayList<>();
+    private final List<Route> routes = new ArrayList<>();
+    // Répertoires et jars couverts par un index
+    private final Set<Path> locations = new HashSet<>();
+
+    /**
+     * Route déclarée par @Mapping, @GetMapping ou @PostMapping
+     */
+    public static class Route {
+        private final String className;
+        private final String methodName;
+        private final List<String> parameterTypes;
+        private final String url;
+        private final String httpMethod;
+        private final String auteur;
+        private final int version;
+
+        public Route(String className, String methodName, List<String> parameterTypes,
+                     String url, String httpMethod, String auteur, int version) {
+            this.className = className;
+            this.methodName = methodName;
+            this.parameterTypes = parameterTypes;
+            this.url = url;
+            this.httpMethod = httpMethod;
+            this.auteur = auteur;
+            this.version = version;
+        }
+
+        public String getClassName() { return className; }
+        public String getMethodName() { return methodName; }
+        /** Types des paramètres (noms canoniques après effacement, ex: java.lang.String[]) */
+        public List<String> getParameterTypes() { return parameterTypes; }
+        public String getUrl() { return url; }
+        public String getHttpMethod() { return httpMethod; }
+        public String getAuteur() { return auteur; }
+        public int getVersion() { return version; }
+    }
+
+    /**
+     * Charge et fusionne tous les index visibles par le class loader (répertoires et jars)
+     *
+     * @return L'index fusionné, ou null s'il n'y en a aucun (l'application doit alors être scannée)
+     */
+    public static RouteIndex load(ClassLoader classLoader) throws IOException {
+        RouteIndex merged = null;
+        Enumeration<URL> resources = classLoader.getResources(RESOURCE);
+        while (resources.hasMoreElements()) {
+            URL resource = resources.nextElement();
+            URLConnection connection = resource.openConnection();
+            // Pas de JarFile mis en cache : le jar resterait verrouillé après le démarrage
+            connection.setUseCaches(false);
+            RouteIndex index;
+            try (InputStream in = connection.getInputStream()) {
+                index = read(in);
+            }
+            if (merged == null) merged = new RouteIndex();
+            merged.merge(index);
+            Path location = locationOf(resource);
+            if (location != null) merged.locations.add(location);
+        }
+        return merged;
+    }
+
+    private void merge(RouteIndex other) {
+        for (String controller : other.controllers) {
+            if (!controllers.contains(controller)) controllers.add(controller);
+        }
+        for (String entity : other.entities) {
+            if (!entities.contains(entity)) entities.add(entity);
+        }
+        routes.addAll(other.routes);
+    }
+
+    /**
+     * Répertoire ou jar qui contient l'index (null si ce n'est pas un fichier local)
+     */
+    static Path locationOf(URL resource) {
+        String url = resource.toString();
+        String base;
+        if ("jar".equals(resource.getProtocol())) {
+            int separator = url.indexOf("!/");
+            if (separator < 0) return null;
+            base = url.substring("jar:".length(), separator);
+        } else if ("file".equals(resource.getProtocol()) && url.endsWith(RESOURCE)) {
+            base = url.substring(0, url.length() - RESOURCE.length());
+        } else {
+            return null;
+        }
+        if (!base.startsWith("file:")) return null;
+        try {
+            return Paths.get(new URL(base).toURI()).toAbsolutePath().normalize();
+        } catch (URISyntaxException | IllegalArgumentException | IOException e) {
+            return new File(base.substring("file:".length())).toPath().toAbsolutePath().normalize();
+        }
+    }
+
+    /**
+     * Lit un index
+     *
+     * @throws IOException si le contenu n'est pas un index valide
+     */
+    public static RouteIndex read(InputStream in) throws IOException {
+        RouteIndex index = new RouteIndex();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String header = reader.readLine();
+        if (!HEADER.equals(header)) {
+            throw new IOException("Format d'index de routes non supporté: " + header);
+        }
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] fields = line.split("\t", -1);
+            switch (fields[0]) {
+                case "controller":
+                    index.controllers.add(fields[1]);
+                    break;
+                case "entity":
+                    index.entities.add(fields[1]);
+                    break;
+                case "route":
+                    if (fields.length != 8) {
+                        throw new IOException("Ligne d'index de routes invalide: " + line);
+                    }
+                    List<String> parameterTypes = fields[3].isEmpty()
+                        ? Collections.emptyList()
+                        : List.of(fields[3].split(","));
+                    index.routes.add(new Route(fields[1], fields[2], parameterTypes,
+                        unescape(fields[4]), unescape(fields[5]), unescape(fields[6]),
+                        Integer.parseInt(fields[7])));
+                    break;
+                default:
+                    // Type de ligne inconnu (version plus récente) : ignoré
+            }
+        }
+        return index;
+    }
+
+    public List<String> getControllers() { return controllers; }
+    public List<String> getEntities() { return entities; }
+    public List<Route> getRoutes() { return routes; }
+    /** Répertoires et jars dont les classes sont décrites par l'index */
+    public Set<Path> getLocations() { return locations; }
+
+    /**
+     * Charge (sans les initialiser) les classes nommées
+     */
+    public static List<Class<?>> loadClasses(List<String> classNames, ClassLoader classLoader) {
+        List<Class<?>> classes = new ArrayList<>(classNames.size());
+        for (String className : classNames) {
+            try {
+                classes.add(Class.forName(className, false, classLoader));
+            } catch (ClassNotFoundException | LinkageError e) {
+                System.err.println("Classe de l'index introuvable: " + className);
+            }
+        }
+        return classes;
+    }
+
+    // Les valeurs libres (url, auteur) ne doivent contenir ni tabulation ni saut de ligne
+
+    static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    static String unescape(String value) {
+        if (value.indexOf('\\') < 0) return value;
+        StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                switch (next) {
+                    case 't': result.append('\t'); break;
+                    case 'n': result.append('\n'); break;
+                    case 'r': result.append('\r'); break;
+                    default: result.append(next);
+                }
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,238 @@
+package lookup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Processeur d'annotations qui génère META-INF/framework-routes.idx à la compilation
+ *
+ * Il est déclaré dans META-INF/services du jar du framework : javac le découvre
+ * automatiquement quand le jar est dans le classpath de compilation de l'application.
+ * Le démarrage n'a alors plus besoin de parcourir WEB-INF/classes (voir RouteIndex).
+ *
+ * Comme pour le scan, seules les méthodes des classes @Controller sont indexées.
+ *
+ * En compilation incrémentale, javac ne voit que les sources modifiées : l'index déjà
+ * présent dans CLASS_OUTPUT est relu et ses lignes sont conservées pour les classes
+ * qui n'ont pas été recompilées et qui existent encore. Les lignes d'une classe
+ * recompilée sont remplacées par ce que ce tour a trouvé (rien si elle n'est plus annotée).
+ */
+@SupportedAnnotationTypes({
+    "annotations.Controller",
+    "annotations.Entity",
+    "annotations.Mapping",
+    "annotations.GetMapping",
+    "annotations.PostMapping"
+})
+public class RouteIndexProcessor extends AbstractProcessor {
+
+    private static final String CONTROLLER = "annotations.Controller";
+    private static final String ENTITY = "annotations.Entity";
+    private static final String MAPPING = "annotations.Mapping";
+    private static final String GET_MAPPING = "annotations.GetMapping";
+    private static final String POST_MAPPING = "annotations.PostMapping";
+
+    // Lignes accumulées sur tous les tours, triées pour un fichier reproductible
+    private final Set<String> controllers = new TreeSet<>();
+    private final Set<String> entities = new TreeSet<>();
+    private final Set<String> routes = new TreeSet<>();
+
+    // Classes compilées par cette exécution : leurs anciennes lignes d'index sont obsolètes
+    private final Set<String> compiledTypes = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeIndex();
+            return false;
+        }
+
+        for (Element root : roundEnv.getRootElements()) {
+            collectTypes(root);
+        }
+
+        for (TypeElement annotation : annotations) {
+            String annotationName = annotation.getQualifiedName().toString();
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                switch (annotationName) {
+                    case CONTROLLER:
+                        controllers.add(binaryName((TypeElement) element));
+                        break;
+                    case ENTITY:
+                        entities.add(binaryName((TypeElement) element));
+                        break;
+                    default:
+                        if (element.getKind() == ElementKind.METHOD) {
+                            addRoute((ExecutableElement) element, annotationName);
+                        }
+                }
+            }
+        }
+        return false;
+    }
+
+    private void addRoute(ExecutableElement method, String annotationName) {
+        TypeElement type = (TypeElement) method.getEnclosingElement();
+        if (findAnnotation(type, CONTROLLER) == null) return;
+
+        // Même priorité que MappingAnalyzer : @Mapping, puis @GetMapping, puis @PostMapping
+        AnnotationMirror mapping = findAnnotation(method, MAPPING);
+        if (mapping == null) mapping = findAnnotation(method, GET_MAPPING);
+        if (mapping == null) mapping = findAnnotation(method, POST_MAPPING);
+        String mappingName = ((TypeElement) mapping.getAnnotationType().asElement()).getQualifiedName().toString();
+        if (!mappingName.equals(annotationName)) return;
+
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+            processingEnv.getElementUtils().getElementValuesWithDefaults(mapping);
+        String url = stringValue(values, "value");
+        String httpMethod = stringValue(values, "method");
+        String auteur = stringValue(values, "auteur");
+        String version = MAPPING.equals(mappingName) ? stringValue(values, "version") : "1";
+
+        List<String> parameterTypes = new ArrayList<>();
+        for (VariableElement parameter : method.getParameters()) {
+            parameterTypes.add(processingEnv.getTypeUtils().erasure(parameter.asType()).toString());
+        }
+
+        routes.add(String.join("\t", "route", binaryName(type), method.getSimpleName().toString(),
+            String.join(",", parameterTypes), RouteIndex.escape(url), RouteIndex.escape(httpMethod),
+            RouteIndex.escape(auteur), version));
+    }
+
+    private void collectTypes(Element element) {
+        if (!element.getKind().isClass() && !element.getKind().isInterface()) return;
+        compiledTypes.add(binaryName((TypeElement) element));
+        for (Element enclosed : element.getEnclosedElements()) {
+            collectTypes(enclosed);
+        }
+    }
+
+    /**
+     * Reprend les lignes de l'index précédent pour les classes non recompilées encore présentes
+     *
+     * @return false s'il n'y avait pas d'index précédent
+     */
+    private boolean mergePreviousIndex() {
+        List<String> lines = new ArrayList<>();
+        try {
+            FileObject previous = processingEnv.getFiler()
+                .getResource(StandardLocation.CLASS_OUTPUT, "", RouteIndex.RESOURCE);
+            try (InputStream in = previous.openInputStream()) {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+                if (!RouteIndex.HEADER.equals(reader.readLine())) return false;
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines.add(line);
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // Pas d'index précédent (compilation complète)
+            return false;
+        }
+
+        for (String line : lines) {
+            String[] fields = line.split("\t", -1);
+            if (fields.length < 2 || compiledTypes.contains(fields[1]) || !exists(fields[1])) continue;
+            switch (fields[0]) {
+                case "controller":
+                    controllers.add(fields[1]);
+                    break;
+                case "entity":
+                    entities.add(fields[1]);
+                    break;
+                case "route":
+                    routes.add(line);
+                    break;
+                default:
+            }
+        }
+        return true;
+    }
+
+    // Classe encore présente dans le classpath de compilation (supprimée sinon)
+    private boolean exists(String binaryName) {
+        return processingEnv.getElementUtils().getTypeElement(binaryName.replace('$', '.')) != null;
+    }
+
+    private void writeIndex() {
+        boolean hadIndex = mergePreviousIndex();
+        // Index vide réécrit s'il existait : les dernières classes annotées ont disparu
+        if (controllers.isEmpty() && entities.isEmpty() && !hadIndex) return;
+        try {
+            FileObject file = processingEnv.getFiler()
+                .createResource(StandardLocation.CLASS_OUTPUT, "", RouteIndex.RESOURCE);
+            try (Writer writer = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)) {
+                writer.write(RouteIndex.HEADER);
+                writer.write('\n');
+                for (String controller : controllers) {
+                    writer.write("controller\t" + controller + "\n");
+                }
+                for (String entity : entities) {
+                    writer.write("entity\t" + entity + "\n");
+                }
+                for (String route : routes) {
+                    writer.write(route);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                "Impossible d'écrire " + RouteIndex.RESOURCE + ": " + e.getMessage());
+        }
+    }
+
+    private String binaryName(TypeElement type) {
+        return processingEnv.getElementUtils().getBinaryName(type).toString();
+    }
+
+    private static AnnotationMirror findAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+            if (type.getQualifiedName().contentEquals(annotationName)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private static String stringValue(Map<? extends ExecutableElement, ? extends AnnotationValue> values,
+                                      String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return String.valueOf(entry.getValue().getValue());
+            }
+        }
+        return "";
+    }
+}
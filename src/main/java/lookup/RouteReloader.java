@@ -0,0 +1,218 @@
+package lookup;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import annotations.Controller;
+import lookup.ClassFileReader.ClassFileInfo;
+import lookup.MappingAnalyzer.MappedMethod;
+
+/**
+ * Rechargement des routes en mode développement
+ *
+ * À chaque lot de fichiers .class modifiés :
+ * - un nouveau ClassLoader est créé sur WEB-INF/classes ; il ne charge lui-même que les
+ *   classes modifiées depuis le démarrage et délègue tout le reste à son parent
+ * - seules les classes modifiées sont relues (bytecode) et, si ce sont des
+ *   contrôleurs, chargées pour analyser leurs méthodes
+ * - les routes des autres contrôleurs sont rattachées au nouveau ClassLoader sans
+ *   être chargées : elles le seront à leur première requête
+ *
+ * Les requêtes en cours gardent l'ancienne table de routage et l'ancien ClassLoader.
+ * Après un rechargement, plus aucune route ne référence l'ancien ClassLoader : il est
+ * fermé au rechargement suivant, sans vérifier qu'aucune requête ne l'utilise encore.
+ * Une requête plus longue que l'intervalle entre deux rechargements peut donc échouer
+ * en chargeant une classe (NoClassDefFoundError) : risque accepté, le rechargement
+ * n'existe qu'en mode développement.
+ */
+public class RouteReloader implements Closeable {
+
+    private final Path classesDir;
+    private final ClassLoader parent;
+    private final MappingAnalyzer mappingAnalyzer = new MappingAnalyzer();
+
+    // Routes actuelles par classe de contrôleur (modifiées uniquement dans reload())
+    private final Map<String, List<MappedMethod>> routesByClass = new LinkedHashMap<>();
+
+    // Classes (de premier niveau) modifiées depuis le démarrage, chargées par le ClassLoader enfant
+    private final Set<String> modifiedClasses = new LinkedHashSet<>();
+
+    // ClassLoader des routes actuelles, et celui qu'il a remplacé (peut-être encore utilisé par des requêtes en cours)
+    private URLClassLoader current;
+    private URLClassLoader retired;
+
+    /**
+     * @param classesDir Le répertoire WEB-INF/classes
+     * @param parent Le ClassLoader de l'application web
+     * @param initialRoutes Les routes construites au démarrage
+     */
+    public RouteReloader(Path classesDir, ClassLoader parent, List<MappedMethod> initialRoutes) {
+        this.classesDir = classesDir;
+        this.parent = parent;
+        for (MappedMethod route : initialRoutes) {
+            routesByClass.computeIfAbsent(route.getClassName(), k -> new ArrayList<>()).add(route);
+        }
+    }
+
+    /**
+     * Recharge les classes modifiées et retourne la nouvelle liste complète des routes
+     *
+     * @param changedFiles Les fichiers modifiés (le répertoire racine lui-même = tout relire)
+     * @return Toutes les routes, liées au nouveau ClassLoader
+     */
+    public synchronized List<MappedMethod> reload(Set<Path> changedFiles) throws IOException {
+        Set<String> changedClasses = new LinkedHashSet<>();
+        if (changedFiles.contains(classesDir)) {
+            // Évènements perdus : toutes les classes sont relues
+            changedClasses.addAll(routesByClass.keySet());
+            try (Stream<Path> files = Files.walk(classesDir)) {
+                for (Path file : files.filter(p -> p.toString().endsWith(".class")).collect(Collectors.toList())) {
+                    changedClasses.add(topLevelClassName(file));
+                }
+            }
+        } else {
+            for (Path file : changedFiles) {
+                if (file.startsWith(classesDir) && file.toString().endsWith(".class")) {
+                    changedClasses.add(topLevelClassName(file));
+                }
+            }
+        }
+
+        modifiedClasses.addAll(changedClasses);
+        ChildFirstClassLoader classLoader = new ChildFirstClassLoader(classesDir, parent, Set.copyOf(modifiedClasses));
+
+        // Classes modifiées : relues depuis le bytecode, analysées si ce sont des contrôleurs
+        Set<String> reloaded = new LinkedHashSet<>();
+        for (String className : changedClasses) {
+            routesByClass.remove(className);
+            Path classFile = classesDir.resolve(className.replace('.', File.separatorChar) + ".class");
+            if (!Files.isRegularFile(classFile)) continue; // classe supprimée
+
+            ClassFileInfo info;
+            try (InputStream in = Files.newInputStream(classFile)) {
+                info = ClassFileReader.read(in);
+            }
+            if (!info.hasAnnotation(Controller.class.getName())) continue;
+
+            try {
+                Class<?> clazz = Class.forName(className, false, classLoader);
+                List<MappedMethod> routes = mappingAnalyzer.analyzeMethodMappings(Collections.singletonList(clazz))
+                    .getOrDefault(clazz, Collections.emptyList());
+                routesByClass.put(className, routes);
+                reloaded.add(className);
+            } catch (ClassNotFoundException | LinkageError e) {
+                System.err.println("Impossible de recharger: " + className + " (" + e + ")");
+            }
+        }
+
+        // Autres contrôleurs : rattachés au nouveau ClassLoader, chargés à la première requête
+        List<MappedMethod> allRoutes = new ArrayList<>();
+        for (Map.Entry<String, List<MappedMethod>> entry : routesByClass.entrySet()) {
+            if (!reloaded.contains(entry.getKey())) {
+                List<MappedMethod> rebound = new ArrayList<>(entry.getValue().size());
+                for (MappedMethod route : entry.getValue()) {
+                    rebound.add(route.withClassLoader(classLoader));
+                }
+                entry.setValue(rebound);
+            }
+            allRoutes.addAll(entry.getValue());
+        }
+
+        // Toutes les routes sont maintenant liées à classLoader : celui d'avant l'ancien
+        // n'a plus de route. Les requêtes en cours ne sont pas suivies : une requête encore
+        // servie par ce ClassLoader depuis deux rechargements peut échouer (mode développement)
+        closeQuietly(retired);
+        retired = current;
+        current = classLoader;
+        return allRoutes;
+    }
+
+    /**
+     * Ferme les ClassLoaders créés par les rechargements (arrêt de l'application)
+     */
+    @Override
+    public synchronized void close() {
+        closeQuietly(retired);
+        closeQuietly(current);
+        retired = null;
+        current = null;
+    }
+
+    private static void closeQuietly(URLClassLoader classLoader) {
+        if (classLoader == null) return;
+        try {
+            classLoader.close();
+        } catch (IOException e) {
+            System.err.println("Erreur à la fermeture du ClassLoader de rechargement: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Nom de la classe englobante d'un fichier .class (Foo$1.class -> Foo)
+     */
+    private String topLevelClassName(Path classFile) {
+        String relative = classesDir.relativize(classFile).toString().replace(File.separatorChar, '.');
+        String className = relative.substring(0, relative.length() - ".class".length());
+        int nested = className.indexOf('$', className.lastIndexOf('.') + 1);
+        return nested > 0 ? className.substring(0, nested) : className;
+    }
+
+    /**
+     * ClassLoader qui charge lui-même, depuis WEB-INF/classes, les classes modifiées
+     * (et leurs classes internes) afin d'obtenir leur nouvelle version ; toutes les
+     * autres classes, y compris celles des jars et du framework, restent celles du parent.
+     */
+    private static final class ChildFirstClassLoader extends URLClassLoader {
+
+        private final Set<String> childClasses;
+
+        ChildFirstClassLoader(Path classesDir, ClassLoader parent, Set<String> childClasses)
+                throws MalformedURLException {
+            super(new URL[] { classesDir.toUri().toURL() }, parent);
+            this.childClasses = childClasses;
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!isChildFirst(name)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> clazz = findLoadedClass(name);
+                if (clazz == null) {
+                    try {
+                        clazz = findClass(name);
+                    } catch (ClassNotFoundException e) {
+                        return super.loadClass(name, resolve);
+                    }
+                }
+                if (resolve) {
+                    resolveClass(clazz);
+                }
+                return clazz;
+            }
+        }
+
+        // Foo$Bar suit Foo
+        private boolean isChildFirst(String name) {
+            int nested = name.indexOf('$', name.lastIndexOf('.') + 1);
+            return childClasses.contains(nested > 0 ? name.substring(0, nested) : name);
+        }
+    }
+}
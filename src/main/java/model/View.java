@@ -8,6 +8,8 @@ public class View {
     private String template;
     private Object data;
     private Map<String, Object> additionalData; // Nouvelle map pour les données supplémentaires
+    private String redirectUrl; // URL passée à redirect(), sans le préfixe "redirect:"
+    private int redirectStatus = 302;
 
     public void setData(Object data) {
         this.data = data;
@@ -19,9 +21,14 @@ public class View {
 
     public void setTemplate(String template){
         this.template = template;
+        this.redirectUrl = null;
     }
     
     public String getTemplate() {
+        if (template == null && redirectUrl != null) {
+            // Vue créée par redirect() : le template n'est construit que si on le demande
+            return "redirect:" + redirectUrl;
+        }
         return template;
     }
 
@@ -81,7 +88,7 @@ public class View {
      * @return true si c'est une redirection, false sinon
      */
     public boolean isRedirect() {
-        return template != null && template.startsWith("redirect:");
+        return redirectUrl != null || (template != null && template.startsWith("redirect:"));
     }
     
     /**
@@ -91,13 +98,35 @@ public class View {
      */
     public String getRedirectUrl() {
         if (isRedirect()) {
-            String url = template.substring("redirect:".length());
+            String url = redirectUrl != null ? redirectUrl : template.substring("redirect:".length());
+            if (url.startsWith("http://") || url.startsWith("https://")) {
+                return url;
+            }
             // Assure que l'URL commence par "/" pour être absolue dans le contexte de l'application
             return url.startsWith("/") ? url : "/" + url;
         }
         return null;
     }
     
+    /**
+     * Chaîne d'où vient la redirection : l'URL passée à redirect() ou le template "redirect:..."
+     * Quand c'est une constante du code, c'est la même instance d'un appel à l'autre
+     * (littéraux internés) : la servlet s'en sert pour réutiliser la cible déjà calculée.
+     * 
+     * @return la chaîne d'origine, ou null si ce n'est pas une redirection
+     */
+    public String getRedirectSource() {
+        if (redirectUrl != null) return redirectUrl;
+        return isRedirect() ? template : null;
+    }
+    
+    /**
+     * Statut HTTP de la redirection (302 par défaut)
+     */
+    public int getRedirectStatus() {
+        return redirectStatus;
+    }
+    
     // =====================================================
     // MÉTHODES UTILITAIRES STATIQUES
     // =====================================================
@@ -110,7 +139,29 @@ public class View {
      * @return Une nouvelle instance de View configurée pour la redirection
      */
     public static View redirect(String url) {
-        return new View("redirect:" + url);
+        return redirect(url, 302);
+    }
+    
+    /**
+     * Redirection avec un statut choisi
+     * Utilisation : return View.redirect("users", 303); // après un POST
+     * 
+     * @param url L'URL vers laquelle rediriger (sans le préfixe "redirect:")
+     * @param status 301, 302, 303, 307 ou 308
+     * @return Une nouvelle instance de View configurée pour la redirection
+     * @throws IllegalArgumentException si l'URL est vide ou le statut n'est pas un statut de redirection
+     */
+    public static View redirect(String url, int status) {
+        if (url == null || url.isBlank()) {
+            throw new IllegalArgumentException("URL de redirection vide");
+        }
+        if (status != 301 && status != 302 && status != 303 && status != 307 && status != 308) {
+            throw new IllegalArgumentException("Statut de redirection invalide: " + status);
+        }
+        View view = new View();
+        view.redirectUrl = url;
+        view.redirectStatus = status;
+        return view;
     }
     
     /**
@@ -0,0 +1,148 @@
+package com;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+
+/**
+ * Test aléatoire de PathNormalizer face à une normalisation de référence
+ *
+ * La référence est écrite pour être évidente plutôt que rapide : découpage sur '/',
+ * décodage de chaque suite de %XX par le décodeur UTF-8 strict de la JVM (suite
+ * recopiée telle quelle s'il la refuse), puis résolution de "." et ".." sur une pile.
+ * Les chemins générés mélangent segments ordinaires, caractères non ASCII, %XX valides
+ * ou non (UTF-8 tronqué, trop long, demi-paires, %2F), slashs multiples et segments
+ * "." / ".." en clair ou encodés, derrière un chemin de contexte de longueur variable.
+ *
+ * Vérifie aussi que needsNormalization() ne laisse passer que des chemins déjà normaux.
+ * Lancement : java -cp target/classes:target/test-classes com.PathNormalizerFuzz [chemins] [graine]
+ */
+class PathNormalizerFuzz {
+
+    private static final String[] CONTEXTS = { "", "/app", "/a/b" };
+
+    private static final String[] PIECES = {
+        "a", "users", "42", "x-y_z", "~", "é", "日本", "😀", ".", "..", "...", ".a", "a.",
+        "%41", "%2e", "%2E", "%2e%2e", "%2F", "%2f", "%25", "%20", "%zz", "%4", "%",
+        "%C3%A9", "%c3%a9", "%C3", "%A9", "%E6%97%A5", "%F0%9F%98%80", "%F0%9F%98",
+        "%ED%A0%80", "%C0%AF", "%E0%80%AF", "%F4%90%80%80", "%FF", "%80%80", "%C3%28"
+    };
+
+    private static int failures;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+        Random random = new Random(seed);
+        RequestContext context = RequestContext.acquire();
+
+        String[] fixed = {
+            "/", "//", "/a", "/a/", "/a//b", "/./a", "/a/.", "/a/..", "/../a", "/a/b/../../..",
+            "/%zz/a", "/%C3", "/%ED%A0%80", "/%C0%AF", "/a%2Fb", "/%2e%2e/a",
+            "/users/j%C3%A9r%C3%B4me/", "/a/%2e/b", "/.../a", "/a/..b"
+        };
+        for (String contextPath : CONTEXTS) {
+            for (String path : fixed) {
+                check(contextPath + path, contextPath.length(), context);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            String contextPath = CONTEXTS[random.nextInt(CONTEXTS.length)];
+            check(contextPath + randomPath(random), contextPath.length(), context);
+        }
+        context.release();
+
+        if (failures > 0) {
+            throw new IllegalStateException(failures + " chemin(s) mal normalisé(s), graine " + seed);
+        }
+        System.out.println("Aucune différence (" + count + " chemins, graine " + seed + ")");
+    }
+
+    private static String randomPath(Random random) {
+        StringBuilder path = new StringBuilder();
+        int segments = random.nextInt(6);
+        for (int s = 0; s < segments; s++) {
+            path.append(random.nextInt(8) == 0 ? "//" : "/");
+            int pieces = 1 + random.nextInt(3);
+            for (int p = 0; p < pieces; p++) {
+                path.append(PIECES[random.nextInt(PIECES.length)]);
+            }
+        }
+        if (path.length() == 0 || random.nextInt(6) == 0) path.append('/');
+        return path.toString();
+    }
+
+    private static void check(String uri, int from, RequestContext context) {
+        String expected = reference(uri.substring(from));
+        String actual = PathNormalizer.normalize(uri, from, context);
+        if (!expected.equals(actual)) {
+            fail(uri, "normalize=" + actual + " attendu=" + expected);
+        }
+        if (!PathNormalizer.needsNormalization(uri, from) && !expected.equals(uri.substring(from))) {
+            fail(uri, "needsNormalization=false, attendu=" + expected);
+        }
+    }
+
+    private static void fail(String uri, String detail) {
+        if (failures++ < 10) {
+            System.err.println(uri + " : " + detail);
+        }
+    }
+
+    // =====================================================
+    // Référence
+    // =====================================================
+
+    static String reference(String path) {
+        Deque<String> stack = new ArrayDeque<>();
+        for (String raw : path.split("/", -1)) {
+            String segment = decodeSegment(raw);
+            if (segment.isEmpty() || segment.equals(".")) continue;
+            if (segment.equals("..")) {
+                stack.pollLast();
+            } else {
+                stack.addLast(segment);
+            }
+        }
+        return stack.isEmpty() ? "/" : "/" + String.join("/", stack);
+    }
+
+    private static String decodeSegment(String segment) {
+        StringBuilder out = new StringBuilder();
+        int i = 0;
+        while (i < segment.length()) {
+            int run = i;
+            while (isEscape(segment, run)) run += 3;
+            if (run == i) {
+                out.append(segment.charAt(i++));
+                continue;
+            }
+            byte[] bytes = new byte[(run - i) / 3];
+            for (int b = 0; b < bytes.length; b++) {
+                bytes[b] = (byte) Integer.parseInt(segment.substring(i + 3 * b + 1, i + 3 * b + 3), 16);
+            }
+            try {
+                out.append(StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(bytes)));
+            } catch (CharacterCodingException e) {
+                out.append(segment, i, run);
+            }
+            i = run;
+        }
+        return out.toString();
+    }
+
+    // %XX hexadécimal (ASCII) valide, sauf %2F qui reste encodé
+    private static boolean isEscape(String segment, int at) {
+        if (at + 2 >= segment.length() || segment.charAt(at) != '%') return false;
+        String hex = segment.substring(at + 1, at + 3);
+        if (!hex.matches("[0-9A-Fa-f]{2}")) return false;
+        return !hex.equalsIgnoreCase("2f");
+    }
+}
@@ -0,0 +1,232 @@
+package com;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.CyclicBarrier;
+
+/**
+ * Test de concurrence des métadonnées de session (à la manière de jcstress)
+ *
+ * Chaque scénario lance deux acteurs en parallèle sur un lot de SessionMetadata
+ * neuves, les acteurs parcourant le lot dans le même ordre pour multiplier les
+ * croisements, puis vérifie que chaque objet est dans un état autorisé :
+ * - touch/touch : lastAccessed vaut toujours le plus récent des deux accès
+ * - touch/expire : soit la session est morte et expire() a répondu vrai,
+ *   soit le rafraîchissement est passé et expire() a répondu faux (pas de résurrection)
+ * - touch tardif/expire : un accès après l'échéance ne ranime pas la session,
+ *   expire() la trouve toujours expirée
+ * - touch/kill : une session tuée reste morte
+ * - lecteur : lastAccessed ne recule jamais, DEAD est définitif
+ * - SessionManager : refreshSession / isSessionExpired / cleanupExpiredSessions
+ *   sur les maps réelles, métadonnées et données toujours cohérentes ; un accès
+ *   après l'échéance ne sauve pas la session du nettoyage
+ *
+ * L'horloge est simulée : les instants sont passés explicitement.
+ * Hors du jar (sources de test), dans le package com pour l'accès aux métadonnées.
+ * Lancement : java -cp target/classes:target/test-classes com.SessionStress [tours] [objets par tour]
+ */
+class SessionStress {
+
+    private static final long DEAD = SessionManager.SessionMetadata.DEAD;
+    private static final long TIMEOUT = SessionManager.sessionTimeout();
+
+    private static int failures;
+
+    public static void main(String[] args) throws Exception {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+
+        for (int round = 0; round < rounds; round++) {
+            touchVersusTouch(size);
+            touchVersusExpire(size);
+            lateTouchVersusExpire(size);
+            touchVersusKill(size);
+        }
+        monotonicReads(rounds * 1000);
+        sessionManagerCleanup(Math.max(1, rounds / 10), Math.min(size, 2000));
+
+        if (failures > 0) {
+            throw new IllegalStateException(failures + " état(s) interdit(s) observé(s)");
+        }
+        System.out.println("Aucun état interdit (" + rounds + " tours de " + size + " objets)");
+    }
+
+    private static SessionManager.SessionMetadata[] fresh(int size) {
+        SessionManager.SessionMetadata[] batch = new SessionManager.SessionMetadata[size];
+        for (int i = 0; i < size; i++) {
+            batch[i] = new SessionManager.SessionMetadata(0);
+        }
+        return batch;
+    }
+
+    /**
+     * Lance les deux acteurs en même temps et attend leur fin
+     */
+    private static void race(Runnable first, Runnable second) throws Exception {
+        CyclicBarrier start = new CyclicBarrier(2);
+        Throwable[] error = new Throwable[1];
+        Thread other = new Thread(() -> {
+            try {
+                start.await();
+                second.run();
+            } catch (Throwable e) {
+                error[0] = e;
+            }
+        });
+        other.start();
+        start.await();
+        first.run();
+        other.join();
+        if (error[0] != null) {
+            throw new IllegalStateException("Acteur en échec", error[0]);
+        }
+    }
+
+    private static void fail(String scenario, String state) {
+        if (failures++ < 10) {
+            System.err.println(scenario + " : état interdit " + state);
+        }
+    }
+
+    private static void touchVersusTouch(int size) throws Exception {
+        SessionManager.SessionMetadata[] batch = fresh(size);
+        race(() -> {
+            for (SessionManager.SessionMetadata m : batch) m.touch(100, 0);
+        }, () -> {
+            for (SessionManager.SessionMetadata m : batch) m.touch(200, 0);
+        });
+        for (SessionManager.SessionMetadata m : batch) {
+            if (m.lastAccessed() != 200) fail("touch/touch", "lastAccessed=" + m.lastAccessed());
+        }
+    }
+
+    private static void touchVersusExpire(int size) throws Exception {
+        SessionManager.SessionMetadata[] batch = fresh(size);
+        boolean[] expired = new boolean[size];
+        // Accès juste avant l'échéance, nettoyage juste après
+        race(() -> {
+            for (SessionManager.SessionMetadata m : batch) m.touch(TIMEOUT - 1, 0);
+        }, () -> {
+            for (int i = 0; i < size; i++) expired[i] = batch[i].expire(TIMEOUT + 1);
+        });
+        for (int i = 0; i < size; i++) {
+            long last = batch[i].lastAccessed();
+            boolean allowed = expired[i] ? last == DEAD : last == TIMEOUT - 1;
+            if (!allowed) fail("touch/expire", "expire=" + expired[i] + " lastAccessed=" + last);
+        }
+    }
+
+    private static void lateTouchVersusExpire(int size) throws Exception {
+        SessionManager.SessionMetadata[] batch = fresh(size);
+        boolean[] expired = new boolean[size];
+        // Accès et nettoyage au même instant, après l'échéance
+        race(() -> {
+            for (SessionManager.SessionMetadata m : batch) m.touch(TIMEOUT + 1, 0);
+        }, () -> {
+            for (int i = 0; i < size; i++) expired[i] = batch[i].expire(TIMEOUT + 1);
+        });
+        for (int i = 0; i < size; i++) {
+            long last = batch[i].lastAccessed();
+            if (!expired[i] || last != DEAD) {
+                fail("touch tardif/expire", "expire=" + expired[i] + " lastAccessed=" + last);
+            }
+        }
+    }
+
+    private static void touchVersusKill(int size) throws Exception {
+        SessionManager.SessionMetadata[] batch = fresh(size);
+        race(() -> {
+            for (SessionManager.SessionMetadata m : batch) {
+                m.touch(10, 0);
+                m.touch(20, 0);
+            }
+        }, () -> {
+            for (SessionManager.SessionMetadata m : batch) m.kill();
+        });
+        for (SessionManager.SessionMetadata m : batch) {
+            if (m.lastAccessed() != DEAD || !m.isExpired(0)) {
+                fail("touch/kill", "lastAccessed=" + m.lastAccessed());
+            }
+        }
+    }
+
+    private static void monotonicReads(int steps) throws Exception {
+        SessionManager.SessionMetadata metadata = new SessionManager.SessionMetadata(0);
+        race(() -> {
+            for (long now = 1; now <= steps; now++) metadata.touch(now, 0);
+            metadata.kill();
+            // Après la mort, plus aucun accès ne doit compter
+            for (long now = steps + 1; now <= steps + 1000; now++) metadata.touch(now, 0);
+        }, () -> {
+            long previous = 0;
+            long last;
+            while ((last = metadata.lastAccessed()) != DEAD) {
+                if (last < previous) {
+                    fail("lecteur", "recul de " + previous + " à " + last);
+                    return;
+                }
+                previous = last;
+            }
+            for (int i = 0; i < 1000; i++) {
+                if ((last = metadata.lastAccessed()) != DEAD) {
+                    fail("lecteur", "résurrection après DEAD : " + last);
+                    return;
+                }
+            }
+        });
+        if (metadata.lastAccessed() != DEAD) fail("lecteur", "état final " + metadata.lastAccessed());
+    }
+
+    private static void sessionManagerCleanup(int rounds, int size) throws Exception {
+        // cleanupExpiredSessions() écrit une ligne par session nettoyée
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            SessionManager.setTouchInterval(0);
+            for (int round = 0; round < rounds; round++) {
+                String[] ids = new String[size];
+                for (int i = 0; i < size; i++) {
+                    ids[i] = SessionManager.openSession(0);
+                }
+                race(() -> {
+                    for (String id : ids) {
+                        SessionManager.refreshSession(id, TIMEOUT - 1);
+                        SessionManager.isSessionExpired(id, TIMEOUT - 1);
+                    }
+                }, () -> SessionManager.cleanupExpiredSessions(TIMEOUT + 1));
+
+                for (String id : ids) {
+                    SessionManager.SessionMetadata metadata = SessionManager.metadata(id);
+                    boolean hasData = SessionManager.hasData(id);
+                    boolean allowed = metadata == null
+                        ? !hasData
+                        : hasData && metadata.lastAccessed() == TIMEOUT - 1
+                            && !SessionManager.isSessionExpired(id, TIMEOUT + 1);
+                    if (!allowed) {
+                        fail("SessionManager", "metadata=" + (metadata == null ? null : metadata.lastAccessed())
+                            + " data=" + hasData);
+                    }
+                }
+                // Tout ce qui reste expire au-delà de l'échéance du dernier accès
+                SessionManager.cleanupExpiredSessions(2 * TIMEOUT + 1);
+
+                // Accès tardifs : aucune session ne doit survivre au nettoyage
+                String[] late = new String[size];
+                for (int i = 0; i < size; i++) {
+                    late[i] = SessionManager.openSession(0);
+                }
+                race(() -> {
+                    for (String id : late) SessionManager.refreshSession(id, TIMEOUT + 1);
+                }, () -> SessionManager.cleanupExpiredSessions(TIMEOUT + 1));
+                for (String id : late) {
+                    if (SessionManager.metadata(id) != null || SessionManager.hasData(id)) {
+                        fail("SessionManager tardif", "session " + id + " ranimée");
+                    }
+                }
+            }
+        } finally {
+            SessionManager.setTouchInterval(5 * 1000);
+            System.setOut(out);
+        }
+    }
+}